@@ -0,0 +1,114 @@
+package poc.todo.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import poc.todo.TodoApplication;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The Todo application started against a throwaway SQLite database holding a given number of Todo items.
+ * Each benchmark trial gets its own database, so runs do not influence each other and never touch todoSqlite.db.
+ */
+final class BenchmarkApplication implements AutoCloseable {
+
+    private final Path directory;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(Path directory, ConfigurableApplicationContext context) {
+        this.directory = directory;
+        this.context = context;
+    }
+
+    /**
+     * Creates a database with Todo items 1 to {@code rows} and starts the application on it.
+     *
+     * @param rows               the number of Todo items to create.
+     * @param webApplicationType whether to start the web layer as well.
+     * @param properties         further command line properties; "${benchmark.directory}" names the database directory.
+     * @return the running application.
+     * @throws IOException if the database directory cannot be created.
+     */
+    static BenchmarkApplication start(int rows, WebApplicationType webApplicationType, String... properties) throws IOException {
+        Path directory = Files.createTempDirectory("todo-benchmark");
+        String url = "jdbc:sqlite:" + directory.resolve("todo.db");
+        populate(url, rows);
+
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TodoApplication.class)
+                .web(webApplicationType)
+                .run(Stream.concat(Stream.of("--todo.datasource.url=" + url,
+                                "--benchmark.directory=" + directory,
+                                "--server.port=0",
+                                "--spring.main.banner-mode=off"), Stream.of(properties))
+                        .toArray(String[]::new));
+        return new BenchmarkApplication(directory, context);
+    }
+
+    /**
+     * Gets a bean of the running application.
+     *
+     * @param type the type of the bean.
+     * @param <T>  the bean type.
+     * @return the bean.
+     */
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Gets the context of the running application.
+     *
+     * @return the application context.
+     */
+    ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    /**
+     * Stops the application and deletes its database.
+     */
+    @Override
+    public void close() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Creates the schema the application expects and inserts the Todo items in one transaction.
+     */
+    private static void populate(String url, int rows) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(url, true);
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE TABLE todo (completed boolean, id bigint not null, description varchar(255), primary key (id))");
+            jdbcTemplate.execute("CREATE TABLE todo_seq (next_val bigint)");
+            jdbcTemplate.update("INSERT INTO todo_seq VALUES (?)", rows + 1);
+            jdbcTemplate.execute("BEGIN");
+            List<Object[]> batch = new ArrayList<>(1000);
+            for (int id = 1; id <= rows; id++) {
+                batch.add(new Object[]{id, "benchmark todo " + id, id % 2 == 0});
+                if (batch.size() == 1000 || id == rows) {
+                    jdbcTemplate.batchUpdate("INSERT INTO todo (id, description, completed) VALUES (?,?,?)", batch);
+                    batch.clear();
+                }
+            }
+            jdbcTemplate.execute("COMMIT");
+        } finally {
+            dataSource.destroy();
+        }
+    }
+}
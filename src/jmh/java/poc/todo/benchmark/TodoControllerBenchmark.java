@@ -0,0 +1,79 @@
+package poc.todo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Benchmarks full request handling by the TodoController: dispatch, JSON conversion, service and DAO,
+ * without the network stack.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class TodoControllerBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    BenchmarkApplication application;
+    MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        application = BenchmarkApplication.start(rows, WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) application.getContext()).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public MvcResult getAllTodos() throws Exception {
+        return mockMvc.perform(get("/todos")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getTodoPage() throws Exception {
+        return mockMvc.perform(get("/todos").param("after", String.valueOf(randomId())).param("limit", "100")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getTodoById() throws Exception {
+        return mockMvc.perform(get("/todos/{id}", randomId())).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult createTodo() throws Exception {
+        return mockMvc.perform(post("/todos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\":\"benchmark todo\"}")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult updateTodo() throws Exception {
+        return mockMvc.perform(patch("/todos/{id}", randomId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"completed\":true}")).andReturn();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+}
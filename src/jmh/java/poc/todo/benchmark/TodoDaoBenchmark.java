@@ -0,0 +1,129 @@
+package poc.todo.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import poc.todo.dao.TodoDaoImpl;
+import poc.todo.model.Todo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks the JDBC TodoDao against SQLite tables of different sizes.
+ * The thread count is set with JMH's -t option (the jmh.threads property of the jmh profile).
+ * The export benchmarks write all rows as JSON to a discarding stream; the "gc.alloc.rate.norm" result of
+ * the gc profiler divided by the row count is the allocation per exported row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class TodoDaoBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    BenchmarkApplication application;
+    TodoDaoImpl todoDao;
+    ObjectMapper objectMapper;
+    // Jackson's reflective bean mapping, as used for Todo items before TodoJson
+    ObjectMapper reflectiveMapper;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        application = BenchmarkApplication.start(rows, WebApplicationType.NONE);
+        todoDao = application.getBean(TodoDaoImpl.class);
+        objectMapper = application.getBean(ObjectMapper.class);
+        reflectiveMapper = JsonMapper.builder().disable(MapperFeature.USE_ANNOTATIONS)
+                .serializationInclusion(JsonInclude.Include.NON_NULL).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        application.close();
+    }
+
+    /**
+     * A Todo item created before each deleteById call, so every call deletes an existing row
+     * and the table keeps its size.
+     */
+    @State(Scope.Thread)
+    public static class PendingDelete {
+        long id;
+
+        @Setup(Level.Invocation)
+        public void create(TodoDaoBenchmark benchmark) {
+            id = benchmark.todoDao.save(newTodo()).getId();
+        }
+    }
+
+    @Benchmark
+    public List<Todo> findAll() {
+        return todoDao.findAll();
+    }
+
+    @Benchmark
+    public long exportFromTodoObjects() throws IOException {
+        long count = 0;
+        try (Stream<Todo> todos = todoDao.streamAll();
+             SequenceWriter writer = reflectiveMapper.writerFor(Todo.class).writeValuesAsArray(OutputStream.nullOutputStream())) {
+            for (Iterator<Todo> iterator = todos.iterator(); iterator.hasNext(); count++) {
+                writer.write(iterator.next());
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long exportFromResultSet() throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(OutputStream.nullOutputStream())) {
+            return todoDao.writeAll(generator);
+        }
+    }
+
+    @Benchmark
+    public Todo findById() {
+        return todoDao.findById(randomId());
+    }
+
+    @Benchmark
+    public Todo save() {
+        return todoDao.save(newTodo());
+    }
+
+    @Benchmark
+    public Todo updateById() {
+        Todo patch = new Todo();
+        patch.setId(randomId());
+        patch.setCompleted(ThreadLocalRandom.current().nextBoolean());
+        return todoDao.updateById(patch);
+    }
+
+    @Benchmark
+    public boolean deleteById(PendingDelete pending) {
+        return todoDao.deleteById(pending.id, null);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    static Todo newTodo() {
+        Todo todo = new Todo();
+        todo.setDescription("benchmark todo");
+        todo.setCompleted(false);
+        return todo;
+    }
+}
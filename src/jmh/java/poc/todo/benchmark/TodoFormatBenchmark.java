@@ -0,0 +1,107 @@
+package poc.todo.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import poc.todo.model.Todo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the representations of a Todo list the API can negotiate: encoding and decoding time per list.
+ * The payload size, plain and gzipped as the server compresses it, is reported as the "bytes" and "gzippedBytes"
+ * secondary results of each benchmark.
+ * "json-reflective" is JSON through Jackson's reflective bean mapping, which Todo used before TodoJson.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class TodoFormatBenchmark {
+
+    private static final TypeReference<List<Todo>> TODO_LIST = new TypeReference<>() { };
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    @Param({"json", "json-reflective", "smile", "cbor"})
+    String format;
+
+    ObjectMapper mapper;
+    List<Todo> todos;
+    byte[] encoded;
+    int gzippedSize;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        mapper = switch (format) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "json-reflective" -> Jackson2ObjectMapperBuilder.json().annotationIntrospector(NopAnnotationIntrospector.instance)
+                    .serializationInclusion(JsonInclude.Include.NON_NULL).build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        todos = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            Todo todo = new Todo();
+            todo.setId((long) i);
+            todo.setDescription("todo " + i);
+            todo.setCompleted(i % 3 == 0);
+            todo.setVersion((long) (i % 5));
+            todos.add(todo);
+        }
+        encoded = mapper.writeValueAsBytes(todos);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(encoded);
+        }
+        gzippedSize = compressed.size();
+    }
+
+    @Benchmark
+    public byte[] encode(PayloadSize size) throws IOException {
+        size.record(this);
+        return mapper.writeValueAsBytes(todos);
+    }
+
+    @Benchmark
+    public List<Todo> decode(PayloadSize size) throws IOException {
+        size.record(this);
+        return mapper.readValue(encoded, TODO_LIST);
+    }
+
+    /**
+     * The size of the encoded Todo list, reported by JMH next to the timings rather than printed.
+     * JMH clears the counters before every iteration and sums the events of all measurement iterations, threads
+     * and forks, so every invocation records the size divided by their number, which sums up to the size.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public double bytes;
+        public double gzippedBytes;
+
+        private double share;
+
+        @Setup(Level.Trial)
+        public void start(BenchmarkParams params) {
+            share = 1.0 / ((long) params.getThreads() * params.getMeasurement().getCount() * Math.max(1, params.getForks()));
+        }
+
+        void record(TodoFormatBenchmark benchmark) {
+            bytes = benchmark.encoded.length * share;
+            gzippedBytes = benchmark.gzippedSize * share;
+        }
+    }
+}
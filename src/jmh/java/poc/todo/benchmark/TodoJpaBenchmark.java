@@ -0,0 +1,73 @@
+package poc.todo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import poc.todo.model.Todo;
+import poc.todo.repository.TodoRepository;
+import poc.todo.service.TodoService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the JPA path, through the TodoRepository directly and through the TodoService on top of it,
+ * for comparison with the JDBC TodoDao.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class TodoJpaBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    BenchmarkApplication application;
+    TodoRepository todoRepository;
+    TodoService todoService;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        application = BenchmarkApplication.start(rows, WebApplicationType.NONE);
+        todoRepository = application.getBean(TodoRepository.class);
+        todoService = application.getBean(TodoService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public List<Todo> repositoryFindAll() {
+        return todoRepository.findAll();
+    }
+
+    @Benchmark
+    public Optional<Todo> repositoryFindById() {
+        return todoRepository.findById(randomId());
+    }
+
+    @Benchmark
+    public List<Todo> serviceGetAllTodos() {
+        return todoService.getAllTodos();
+    }
+
+    @Benchmark
+    public Todo serviceGetTodoById() {
+        return todoService.getTodoById(randomId());
+    }
+
+    @Benchmark
+    public Todo serviceCreateTodo() {
+        return todoService.createTodo(TodoDaoBenchmark.newTodo());
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+}
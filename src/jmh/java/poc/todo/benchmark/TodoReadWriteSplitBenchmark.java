@@ -0,0 +1,88 @@
+package poc.todo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import poc.todo.dao.TodoDaoImpl;
+import poc.todo.model.Todo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks read latency under a sustained write load, with and without the read/write split:
+ * in each group two threads keep saving and updating Todo items while four threads read them.
+ * Reads are sampled, so the results include the p99 of findById and findPage;
+ * the thread counts are fixed by the groups, the jmh.threads property does not apply.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class TodoReadWriteSplitBenchmark {
+
+    @Param({"100000"})
+    int rows;
+
+    @Param({"false", "true"})
+    boolean split;
+
+    BenchmarkApplication application;
+    TodoDaoImpl todoDao;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        application = BenchmarkApplication.start(rows, WebApplicationType.NONE,
+                "--sqlite.read-write-split.enabled=" + split);
+        todoDao = application.getBean(TodoDaoImpl.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    @Group("findById")
+    @GroupThreads(4)
+    public Todo findById() {
+        return todoDao.findById(ThreadLocalRandom.current().nextLong(1, rows + 1));
+    }
+
+    @Benchmark
+    @Group("findById")
+    @GroupThreads(2)
+    public Todo findByIdWriter() {
+        return write();
+    }
+
+    @Benchmark
+    @Group("findPage")
+    @GroupThreads(4)
+    public List<Todo> findPage() {
+        return todoDao.findPage(ThreadLocalRandom.current().nextLong(0, rows), 50);
+    }
+
+    @Benchmark
+    @Group("findPage")
+    @GroupThreads(2)
+    public Todo findPageWriter() {
+        return write();
+    }
+
+    /**
+     * Saves a new Todo item or updates an existing one, alternately.
+     */
+    private Todo write() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextBoolean()) {
+            return todoDao.save(TodoDaoBenchmark.newTodo());
+        }
+        Todo patch = new Todo();
+        patch.setId(random.nextLong(1, rows + 1));
+        patch.setCompleted(random.nextBoolean());
+        return todoDao.updateById(patch);
+    }
+}
@@ -0,0 +1,80 @@
+package poc.todo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import poc.todo.dao.ShardedTodoDao;
+import poc.todo.model.Todo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the sharded TodoDao with 1, 2, 4 and 8 SQLite files, each trial starting from {@code rows}
+ * Todo items spread over fresh shard files. Write throughput only scales when several threads write at once,
+ * so run it with as many threads as cores, e.g.
+ * {@code mvn -Pjmh verify -Djmh.includes=TodoShardBenchmark -Djmh.threads=8}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class TodoShardBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    @Param({"1", "2", "4", "8"})
+    int shards;
+
+    BenchmarkApplication application;
+    ShardedTodoDao todoDao;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        application = BenchmarkApplication.start(0, WebApplicationType.NONE,
+                "--todo.dao.engine=sharded",
+                "--todo.shard.count=" + shards,
+                "--todo.shard.url-pattern=jdbc:sqlite:${benchmark.directory}/shard-%d.db");
+        todoDao = application.getBean(ShardedTodoDao.class);
+        List<Todo> batch = new ArrayList<>(1000);
+        for (int row = 1; row <= rows; row++) {
+            batch.add(TodoDaoBenchmark.newTodo());
+            if (batch.size() == 1000 || row == rows) {
+                todoDao.saveAll(batch);
+                batch = new ArrayList<>(1000);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public Todo save() {
+        return todoDao.save(TodoDaoBenchmark.newTodo());
+    }
+
+    @Benchmark
+    public Todo updateById() {
+        Todo patch = new Todo();
+        patch.setId(ThreadLocalRandom.current().nextLong(1, rows + 1));
+        patch.setCompleted(ThreadLocalRandom.current().nextBoolean());
+        return todoDao.updateById(patch);
+    }
+
+    @Benchmark
+    public List<Todo> findPage() {
+        return todoDao.findPage(ThreadLocalRandom.current().nextLong(0, rows), 50);
+    }
+
+    @Benchmark
+    public long count() {
+        return todoDao.count(null);
+    }
+}
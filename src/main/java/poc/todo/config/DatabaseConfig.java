@@ -1,14 +1,20 @@
 package poc.todo.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.*;
 import org.springframework.core.env.Environment;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.sqlite.SQLiteConfig;
 import org.sqlite.SQLiteDataSource;
 
 import javax.sql.DataSource;
+import java.sql.SQLException;
 
 /**
  * Configuration class for setting up database-related beans in a Spring application.
@@ -20,47 +26,150 @@ public class DatabaseConfig {
     private Environment env;
 
     /**
-     * Creates a DataSource bean configured with environment properties.
+     * Resolves the SQLite storage profile and the settings overriding it.
      *
-     * @return a DataSource configured with driver class name, URL, username, and password from the environment.
+     * @return the storage settings the connections are opened with.
      */
     @Bean
-    public DataSource dataSource() {
-        final DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(env.getProperty("driverClassName"));
-        dataSource.setUrl(env.getProperty("url"));
-        dataSource.setUsername(env.getProperty("user"));
-        dataSource.setPassword(env.getProperty("password"));
-        return dataSource;
+    public SqliteStorageSettings sqliteStorageSettings() {
+        return SqliteStorageSettings.from(env);
     }
 
     /**
      * Creates a primary DataSource bean configured for SQLite.
+     * The database file is taken from "todo.datasource.url", the only setting naming it, and every connection
+     * is opened with the storage settings of the configured profile (see {@link SqliteStorageSettings}).
+     * When "sqlite.pool.enabled" is set, connections are opened once and pooled, run with the configured
+     * busy timeout, and cache their prepared statements. With the read/write split the pool holds the single
+     * writer connection, and queries go to {@link #readDataSource()}.
      *
-     * @return a SQLiteDataSource configured with the SQLite database file and other settings.
+     * @return a SQLiteDataSource, or a pooled DataSource over it, configured with the SQLite database file and other settings.
+     * @throws SQLException if a new database file cannot be initialized.
      */
     @Bean
     @Primary
-    DataSource createDataSource() {
+    DataSource createDataSource() throws SQLException {
+        int poolSize = readWriteSplit() ? 1 : env.getProperty("sqlite.pool.size", Integer.class, 4);
+        return createSqliteDataSource(databaseUrl(), "todo-sqlite", poolSize, false);
+    }
+
+    /**
+     * Creates the DataSource of the read-only connections, when "sqlite.read-write-split.enabled" is set:
+     * a pool of "sqlite.read-pool.size" connections to the same database file, each switched to query_only mode.
+     * In WAL mode readers never wait for the writer, and with the writer in a pool of its own a burst of writes
+     * queues for that one connection instead of taking every pooled connection away from the queries.
+     *
+     * @return the pooled read-only DataSource.
+     * @throws SQLException if the database file cannot be opened.
+     * @throws IllegalStateException if connections are not pooled.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "sqlite.read-write-split.enabled", havingValue = "true")
+    public HikariDataSource readDataSource() throws SQLException {
+        if (!env.getProperty("sqlite.pool.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("The read/write split needs pooled connections (sqlite.pool.enabled=true)");
+        }
+        return (HikariDataSource) createSqliteDataSource(databaseUrl(), "todo-sqlite-read",
+                env.getProperty("sqlite.read-pool.size", Integer.class, 4), true);
+    }
+
+    /**
+     * Creates a SQLite DataSource for a database file, set up like the primary one; also used for the files
+     * of the sharded storage engine.
+     *
+     * @param url      the JDBC URL of the database file.
+     * @param poolName the name of the connection pool, if connections are pooled.
+     * @return a SQLiteDataSource, or a pooled DataSource over it.
+     * @throws SQLException if a new database file cannot be initialized.
+     */
+    public DataSource createSqliteDataSource(String url, String poolName) throws SQLException {
+        return createSqliteDataSource(url, poolName, env.getProperty("sqlite.pool.size", Integer.class, 4), false);
+    }
+
+    /**
+     * Creates a SQLite DataSource for a database file with a given pool size, optionally read-only.
+     *
+     * @param url      the JDBC URL of the database file.
+     * @param poolName the name of the connection pool, if connections are pooled.
+     * @param poolSize the number of pooled connections.
+     * @param queryOnly whether the pooled connections are switched to query_only mode, which fails any write.
+     * @return a SQLiteDataSource, or a pooled DataSource over it.
+     * @throws SQLException if a new database file cannot be initialized.
+     */
+    private DataSource createSqliteDataSource(String url, String poolName, int poolSize, boolean queryOnly) throws SQLException {
         SQLiteDataSource dataSource = new SQLiteDataSource();
-        dataSource.setUrl("jdbc:sqlite:todoSqlite.db");
+        dataSource.setUrl(url);
+        SqliteStorageSettings storageSettings = sqliteStorageSettings();
+        storageSettings.initializeDatabase(url);
         SQLiteConfig config = new SQLiteConfig();
         config.setDateClass("TEXT");
+        storageSettings.applyTo(config);
+        if (!env.getProperty("sqlite.pool.enabled", Boolean.class, false)) {
+            dataSource.setConfig(config);
+            return dataSource;
+        }
+
+        config.setBusyTimeout(env.getProperty("sqlite.busy-timeout", Integer.class, 5000));
         dataSource.setConfig(config);
-        return dataSource;
+
+        int statementCacheSize = env.getProperty("sqlite.statement-cache.size", Integer.class, 32);
+        DataSource target = statementCacheSize > 0 ? new StatementCachingDataSource(dataSource, statementCacheSize) : dataSource;
+
+        HikariConfig poolConfig = new HikariConfig();
+        poolConfig.setPoolName(poolName);
+        if (queryOnly) {
+            poolConfig.setConnectionInitSql("PRAGMA query_only = 1");
+        }
+        poolConfig.setDataSource(target);
+        poolConfig.setMaximumPoolSize(poolSize);
+        poolConfig.setMinimumIdle(poolSize);
+        return new HikariDataSource(poolConfig);
     }
 
     /**
      * Creates a JdbcTemplate bean for interacting with the database.
+     * With the read/write split this is the writer; it stays the one injected by default.
      *
      * @param dataSource the DataSource to be used by JdbcTemplate.
      * @return a JdbcTemplate configured with the provided DataSource.
      */
     @Bean
+    @Primary
     public JdbcTemplate jdbcTemplate(DataSource dataSource) {
         return new JdbcTemplate(dataSource);
     }
 
+    /**
+     * Creates the JdbcTemplate of the read-only connections, when the read/write split is enabled.
+     *
+     * @param readDataSource the pooled read-only DataSource.
+     * @return a JdbcTemplate over the read-only connections.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "sqlite.read-write-split.enabled", havingValue = "true")
+    public JdbcTemplate readJdbcTemplate(@Qualifier("readDataSource") DataSource readDataSource) {
+        return new JdbcTemplate(readDataSource);
+    }
+
+    private boolean readWriteSplit() {
+        return env.getProperty("sqlite.read-write-split.enabled", Boolean.class, false);
+    }
+
+    private String databaseUrl() {
+        return env.getProperty("todo.datasource.url", "jdbc:sqlite:todoSqlite.db");
+    }
+
+    /**
+     * Creates a TransactionTemplate for running several JDBC statements in one transaction.
+     *
+     * @param dataSource the DataSource whose connections take part in the transaction.
+     * @return a TransactionTemplate backed by a DataSourceTransactionManager.
+     */
+    @Bean
+    public TransactionTemplate jdbcTransactionTemplate(DataSource dataSource) {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
     /**
      * Configuration class for SQLite database setup, activated under "sqlite" profile.
      */
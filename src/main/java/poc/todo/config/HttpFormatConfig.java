@@ -0,0 +1,57 @@
+package poc.todo.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuration of the representations of the servlet Todo API besides JSON: CBOR ("application/cbor") and
+ * Smile ("application/x-jackson-smile"), chosen by the Accept header for responses and the Content-Type
+ * header for request bodies. JSON stays the default, as its converter comes first. The responses vary by the
+ * Accept header and their ETags name the representation, see {@link RepresentationETagFilter}.
+ * <p>
+ * The mappers are built from Spring Boot's Jackson builder, so the "spring.jackson.*" settings and the
+ * registered modules apply to every format alike. Response compression is configured with the
+ * "server.compression.*" properties, compressed request bodies are handled by {@link RequestDecompressionFilter}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class HttpFormatConfig {
+
+    /**
+     * Creates the CBOR message converter, which replaces Spring MVC's default one.
+     *
+     * @param builder Spring Boot's Jackson builder, a fresh instance per injection point.
+     * @return the CBOR message converter.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Creates the Smile message converter, which replaces Spring MVC's default one.
+     *
+     * @param builder Spring Boot's Jackson builder, a fresh instance per injection point.
+     * @return the Smile message converter.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * Creates the filter that keeps the caching of the JSON, CBOR and Smile representations apart.
+     *
+     * @return the representation ETag filter.
+     */
+    @Bean
+    public RepresentationETagFilter representationETagFilter() {
+        return new RepresentationETagFilter();
+    }
+}
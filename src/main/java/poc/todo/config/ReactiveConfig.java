@@ -0,0 +1,43 @@
+package poc.todo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Configuration of the reactive Todo API, activated under the "reactive" profile.
+ * Requests are served by Netty's event loops, while the blocking DAO calls run on a small bounded scheduler.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    /**
+     * Creates the scheduler the blocking Todo DAO calls are confined to.
+     * It has a fixed cap of threads, sized like the connection pool, and a bounded queue of waiting calls;
+     * calls beyond the queue are rejected instead of piling up.
+     *
+     * @param threads   the maximum number of threads running DAO calls.
+     * @param queueSize the maximum number of DAO calls waiting for a thread.
+     * @return the DAO scheduler, disposed with the application context.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler todoDbScheduler(@Value("${todo.reactive.db-threads:4}") int threads,
+                                     @Value("${todo.reactive.db-queue-size:1000}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "todo-db");
+    }
+
+    /**
+     * Serves the reactive API on Netty rather than Tomcat, which is also on the classpath for the servlet API.
+     *
+     * @return the Netty server factory, customized by Spring Boot's "server.*" properties.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,173 @@
+package poc.todo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Tells the JSON, CBOR and Smile representations of a resource apart for caches: every response varies by the
+ * Accept header, and the ETags of CBOR and Smile responses end with "+cbor" or "+smile". The suffix is added to
+ * the ETags the controllers set, and removed from If-None-Match before the controllers see it, where the tags
+ * of another representation are dropped. So a client holding the JSON body never gets "not modified" for CBOR.
+ * <p>
+ * The representation is chosen from the Accept header the way the message converters choose it: the most
+ * preferred of the formats, JSON for wildcards or when none is named. JSON requests are passed on unchanged,
+ * as their unsuffixed tags never equal a suffixed one.
+ */
+public class RepresentationETagFilter extends OncePerRequestFilter {
+
+    // The media type of Smile, served by the Smile message converter of HttpFormatConfig
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String suffix = representationSuffix(request.getHeader(HttpHeaders.ACCEPT));
+        if (suffix == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        filterChain.doFilter(new RepresentationRequest(request, suffix), new RepresentationResponse(response, suffix));
+    }
+
+    /**
+     * Chooses the ETag suffix of the representation an Accept header asks for.
+     *
+     * @param accept the Accept header, or null if absent.
+     * @return "+cbor" or "+smile", or null for JSON.
+     */
+    static String representationSuffix(String accept) {
+        if (accept == null) {
+            return null;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null; // Rejected by the message converters, with a response that has no ETag
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()); // Stable: ties stay by specificity
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return null; // Wildcards included, as the JSON converter comes first
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return "+cbor";
+            }
+            if (mediaType.isCompatibleWith(APPLICATION_SMILE)) {
+                return "+smile";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Request whose If-None-Match header only lists the tags of its representation, without their suffix.
+     */
+    private static final class RepresentationRequest extends HttpServletRequestWrapper {
+
+        private final String ifNoneMatch;
+
+        RepresentationRequest(HttpServletRequest request, String suffix) {
+            super(request);
+            this.ifNoneMatch = stripTags(request.getHeader(HttpHeaders.IF_NONE_MATCH), suffix);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isIfNoneMatch(name) ? ifNoneMatch : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (!isIfNoneMatch(name)) {
+                return super.getHeaders(name);
+            }
+            return ifNoneMatch == null ? Collections.emptyEnumeration() : Collections.enumeration(List.of(ifNoneMatch));
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            if (ifNoneMatch == null) {
+                names.removeIf(this::isIfNoneMatch);
+            }
+            return Collections.enumeration(names);
+        }
+
+        private boolean isIfNoneMatch(String name) {
+            return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name);
+        }
+
+        /**
+         * Keeps the tags of an If-None-Match header that end with the suffix, and removes it from them.
+         *
+         * @return the remaining tags, or null if none remain.
+         */
+        private static String stripTags(String header, String suffix) {
+            if (header == null) {
+                return null;
+            }
+            List<String> tags = new ArrayList<>();
+            for (String tag : header.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*")) {
+                    tags.add(tag);
+                } else if (tag.endsWith(suffix + "\"")) {
+                    tags.add(tag.substring(0, tag.length() - suffix.length() - 1) + "\"");
+                }
+            }
+            return tags.isEmpty() ? null : String.join(", ", tags);
+        }
+    }
+
+    /**
+     * Response whose ETag carries the suffix of its representation.
+     */
+    private static final class RepresentationResponse extends HttpServletResponseWrapper {
+
+        private final String suffix;
+
+        RepresentationResponse(HttpServletResponse response, String suffix) {
+            super(response);
+            this.suffix = suffix;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            super.setHeader(name, withSuffix(name, value));
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            super.addHeader(name, withSuffix(name, value));
+        }
+
+        private String withSuffix(String name, String value) {
+            if (!HttpHeaders.ETAG.equalsIgnoreCase(name) || value == null || value.length() < 2 || !value.endsWith("\"")) {
+                return value;
+            }
+            return value.substring(0, value.length() - 1) + suffix + "\"";
+        }
+    }
+}
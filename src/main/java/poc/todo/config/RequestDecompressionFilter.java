@@ -0,0 +1,447 @@
+package poc.todo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import poc.todo.exception.RequestBodyTooLargeException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates request bodies sent with "Content-Encoding: gzip" or "deflate", so clients can compress large writes
+ * such as batch creates. The request seen by the controllers has no Content-Encoding and an unknown length.
+ * <p>
+ * Other encodings are refused with 415 "Unsupported Media Type", as RFC 9110 asks. The inflated body is capped
+ * at "todo.request-decompression.max-size", so a small compressed body cannot expand without bound; reading
+ * past the cap fails with {@link RequestBodyTooLargeException}, which the controllers report as a bad request
+ * and the bulk import as the line it stopped at. The body can be read blockingly or with a
+ * ReadListener. The filter only applies to the servlet API.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "todo.request-decompression.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestDecompressionFilter.class);
+
+    private final long maxSize;
+
+    /**
+     * Constructor for RequestDecompressionFilter.
+     *
+     * @param maxSize the maximum size of an inflated request body.
+     */
+    @Autowired
+    public RequestDecompressionFilter(@Value("${todo.request-decompression.max-size:16MB}") DataSize maxSize) {
+        this.maxSize = maxSize.toBytes();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || encoding.isBlank() || encoding.trim().equalsIgnoreCase("identity")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String coding = encoding.trim().toLowerCase();
+        if (!coding.equals("gzip") && !coding.equals("x-gzip") && !coding.equals("deflate")) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Refusing request body with Content-Encoding {}.", encoding);
+            }
+            response.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding: " + encoding);
+            return;
+        }
+        filterChain.doFilter(new DecompressedRequest(request, coding.equals("deflate")), response);
+    }
+
+    /**
+     * Request whose body is inflated on the fly, without the headers describing the compressed body.
+     */
+    private class DecompressedRequest extends HttpServletRequestWrapper {
+
+        private final boolean deflate;
+        private ServletInputStream inputStream;
+
+        DecompressedRequest(HttpServletRequest request, boolean deflate) {
+            super(request);
+            this.deflate = deflate;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new InflatingInputStream(super.getInputStream(), deflate);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isRemoved(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isRemoved(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(this::isRemoved);
+            return Collections.enumeration(names);
+        }
+
+        private boolean isRemoved(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * ServletInputStream that inflates the compressed body itself, with an {@link Inflater} fed from the
+     * request's stream, rather than through GZIPInputStream, which would block reading the header. So it
+     * works for non-blocking reads as well: once a ReadListener is set, compressed bytes are only read while
+     * the request's stream is ready, and {@link #isReady()} is true only when inflated bytes are at hand.
+     * Fails once the inflated body exceeds the maximum size.
+     */
+    private class InflatingInputStream extends ServletInputStream {
+
+        private static final int FHCRC = 2;
+        private static final int FEXTRA = 4;
+        private static final int FNAME = 8;
+        private static final int FCOMMENT = 16;
+
+        private final ServletInputStream source;
+        private final boolean gzip;
+        private final Inflater inflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] input = new byte[8192];
+        private final byte[] output = new byte[8192];
+        private final byte[] field = new byte[10]; // Fixed-size gzip header, extra length or trailer being read
+        private int inputPos;
+        private int inputLimit;
+        private int outputPos;
+        private int outputLimit;
+        private Stage stage;
+        private int fieldLength;
+        private int fieldPos;
+        private int flags;       // Optional gzip header fields still to be read
+        private long skip;       // Bytes of the gzip extra field still to be skipped
+        private long memberSize; // Inflated bytes of the current gzip member
+        private int members;     // Complete gzip members
+        private long inflated;
+        private boolean sourceFinished;
+        private boolean finished;
+        private IOException failure;
+        private ReadListener readListener;
+
+        InflatingInputStream(ServletInputStream source, boolean deflate) {
+            this.source = source;
+            this.gzip = !deflate;
+            this.inflater = new Inflater(gzip); // Raw deflate inside gzip framing, zlib-wrapped for "deflate"
+            if (gzip) {
+                expectField(Stage.HEADER, 10);
+            } else {
+                stage = Stage.BODY;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int read = read(one, 0, 1);
+            return read < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            if (outputPos == outputLimit && !fill()) {
+                throw new IllegalStateException("Request body read while not ready; check isReady() first");
+            }
+            if (outputPos == outputLimit) {
+                return -1;
+            }
+            int read = Math.min(length, outputLimit - outputPos);
+            System.arraycopy(output, outputPos, buffer, offset, read);
+            outputPos += read;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished && outputPos == outputLimit;
+        }
+
+        @Override
+        public boolean isReady() {
+            if (readListener == null || failure != null || outputPos < outputLimit || finished) {
+                return true;
+            }
+            try {
+                return fill();
+            } catch (IOException e) {
+                failure = e; // Thrown by the next read
+                return true;
+            }
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            this.readListener = readListener;
+            source.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    if (isReady()) { // Compressed bytes may only have completed a header, with nothing to read yet
+                        readListener.onDataAvailable();
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() throws IOException {
+                    if (!isFinished()) { // What is left is inflated from the buffered compressed bytes
+                        readListener.onDataAvailable();
+                    }
+                    readListener.onAllDataRead();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    readListener.onError(t);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            source.close();
+        }
+
+        /**
+         * Inflates into the output buffer until it holds bytes or the body is finished.
+         *
+         * @return false if that needs compressed bytes that cannot be read without blocking.
+         */
+        private boolean fill() throws IOException {
+            while (outputPos == outputLimit && !finished) {
+                if (!readInput()) {
+                    if (!sourceFinished) {
+                        return false;
+                    }
+                    if (stage == Stage.HEADER && fieldPos == 0 && members > 0) {
+                        finished = true; // The end of the last gzip member
+                        break;
+                    }
+                    throw new EOFException("Compressed request body ends unexpectedly");
+                }
+                if (stage == Stage.BODY) {
+                    inflate();
+                } else {
+                    readFraming();
+                }
+            }
+            return true;
+        }
+
+        private void inflate() throws IOException {
+            if (inflater.needsInput()) {
+                inflater.setInput(input, inputPos, inputLimit - inputPos);
+                inputPos = inputLimit;
+            }
+            int read;
+            try {
+                read = inflater.inflate(output);
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid compressed request body: " + e.getMessage());
+            }
+            if (inflater.needsDictionary()) {
+                throw new ZipException("Compressed request bodies with a preset dictionary are not supported");
+            }
+            outputPos = 0;
+            outputLimit = read;
+            count(read);
+            if (inflater.finished()) {
+                inputPos = inputLimit - inflater.getRemaining(); // Back to the bytes after the deflate stream
+                if (gzip) {
+                    expectField(Stage.TRAILER, 8);
+                } else {
+                    finished = true;
+                }
+            }
+        }
+
+        /**
+         * Reads the buffered bytes of the gzip header or trailer, up to the start of the deflate stream.
+         */
+        private void readFraming() throws IOException {
+            while (inputPos < inputLimit && stage != Stage.BODY) {
+                byte b = input[inputPos++];
+                switch (stage) {
+                    case HEADER, EXTRA_LENGTH, TRAILER -> {
+                        field[fieldPos++] = b;
+                        if (fieldPos == fieldLength) {
+                            fieldRead();
+                        }
+                    }
+                    case SKIP -> {
+                        if (--skip == 0) {
+                            nextHeaderField();
+                        }
+                    }
+                    case TEXT -> {
+                        if (b == 0) {
+                            nextHeaderField();
+                        }
+                    }
+                    default -> throw new IllegalStateException("Unexpected stage " + stage);
+                }
+            }
+        }
+
+        private void fieldRead() throws IOException {
+            switch (stage) {
+                case HEADER -> {
+                    if ((field[0] & 0xff) != 0x1f || (field[1] & 0xff) != 0x8b || field[2] != 8) {
+                        throw new ZipException("Request body is not in gzip format");
+                    }
+                    flags = field[3];
+                    nextHeaderField();
+                }
+                case EXTRA_LENGTH -> {
+                    skip = littleEndian(0, 2);
+                    if (skip == 0) {
+                        nextHeaderField();
+                    } else {
+                        stage = Stage.SKIP;
+                    }
+                }
+                case TRAILER -> {
+                    if (littleEndian(0, 4) != crc.getValue() || littleEndian(4, 4) != (memberSize & 0xffffffffL)) {
+                        throw new ZipException("Corrupt gzip trailer in request body");
+                    }
+                    members++;
+                    expectField(Stage.HEADER, 10); // Another member may follow
+                }
+                default -> throw new IllegalStateException("Unexpected stage " + stage);
+            }
+        }
+
+        /**
+         * Moves on to the next optional gzip header field present, or to the deflate stream.
+         */
+        private void nextHeaderField() {
+            if ((flags & FEXTRA) != 0) {
+                flags &= ~FEXTRA;
+                expectField(Stage.EXTRA_LENGTH, 2);
+            } else if ((flags & (FNAME | FCOMMENT)) != 0) {
+                flags &= (flags & FNAME) != 0 ? ~FNAME : ~FCOMMENT;
+                stage = Stage.TEXT;
+            } else if ((flags & FHCRC) != 0) {
+                flags &= ~FHCRC;
+                skip = 2;
+                stage = Stage.SKIP;
+            } else {
+                inflater.reset();
+                crc.reset();
+                memberSize = 0;
+                stage = Stage.BODY;
+            }
+        }
+
+        private void expectField(Stage stage, int length) {
+            this.stage = stage;
+            this.fieldLength = length;
+            this.fieldPos = 0;
+        }
+
+        private long littleEndian(int offset, int length) {
+            long value = 0;
+            for (int i = length - 1; i >= 0; i--) {
+                value = value << 8 | (field[offset + i] & 0xff);
+            }
+            return value;
+        }
+
+        /**
+         * Makes compressed bytes available in the input buffer, blocking unless a ReadListener is set.
+         *
+         * @return false if the request's stream is not ready or finished.
+         */
+        private boolean readInput() throws IOException {
+            if (stage == Stage.BODY && !inflater.needsInput()) {
+                return true;
+            }
+            while (inputPos == inputLimit) {
+                if (sourceFinished || readListener != null && !source.isReady()) {
+                    return false;
+                }
+                int read = source.read(input);
+                if (read < 0) {
+                    sourceFinished = true;
+                    return false;
+                }
+                inputPos = 0;
+                inputLimit = read;
+            }
+            return true;
+        }
+
+        private void count(int read) throws IOException {
+            if (gzip) {
+                crc.update(output, 0, read);
+                memberSize += read;
+            }
+            inflated += read;
+            if (inflated > maxSize) {
+                throw new RequestBodyTooLargeException("Decompressed request body exceeds " + maxSize + " bytes");
+            }
+        }
+    }
+
+    /**
+     * The part of a compressed body the InflatingInputStream is reading.
+     */
+    private enum Stage {
+        HEADER, EXTRA_LENGTH, SKIP, TEXT, BODY, TRAILER
+    }
+}
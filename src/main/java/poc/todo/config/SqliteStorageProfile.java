@@ -0,0 +1,104 @@
+package poc.todo.config;
+
+import org.springframework.util.unit.DataSize;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.SQLiteConfig.SynchronousMode;
+import org.sqlite.SQLiteConfig.TempStore;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Named sets of SQLite storage settings, chosen with "sqlite.storage-profile".
+ * Each names the journal mode, synchronous level, page cache, memory map, temporary storage and page size
+ * the connections are opened with; single settings can still be overridden (see {@link SqliteStorageSettings}).
+ */
+public enum SqliteStorageProfile {
+
+    /**
+     * SQLite's own defaults in WAL mode: a 2 MB page cache, no memory map.
+     */
+    BALANCED(JournalMode.WAL, SynchronousMode.NORMAL, DataSize.ofMegabytes(2), DataSize.ofBytes(0), TempStore.DEFAULT, 4096),
+
+    /**
+     * Large reads and sorts: a 64 MB page cache per connection, 256 MB of the file memory-mapped
+     * so reads skip the copy into the page cache, and temporary tables and sort spills kept in memory.
+     */
+    THROUGHPUT(JournalMode.WAL, SynchronousMode.NORMAL, DataSize.ofMegabytes(64), DataSize.ofMegabytes(256), TempStore.MEMORY, 4096),
+
+    /**
+     * Balanced, but every commit is synced to disk, so a committed change also survives a power loss.
+     */
+    DURABLE(JournalMode.WAL, SynchronousMode.FULL, DataSize.ofMegabytes(2), DataSize.ofBytes(0), TempStore.DEFAULT, 4096),
+
+    /**
+     * Small footprint: a 512 KB page cache and temporary data in files.
+     */
+    LOW_MEMORY(JournalMode.WAL, SynchronousMode.NORMAL, DataSize.ofKilobytes(512), DataSize.ofBytes(0), TempStore.FILE, 4096);
+
+    private final JournalMode journalMode;
+    private final SynchronousMode synchronous;
+    private final DataSize cacheSize;
+    private final DataSize mmapSize;
+    private final TempStore tempStore;
+    private final int pageSize;
+
+    SqliteStorageProfile(JournalMode journalMode, SynchronousMode synchronous, DataSize cacheSize,
+                         DataSize mmapSize, TempStore tempStore, int pageSize) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Looks up a profile by its name, ignoring case, with dashes standing for underscores ("low-memory").
+     *
+     * @param name the profile name.
+     * @return the profile.
+     * @throws IllegalArgumentException if there is no profile of that name.
+     */
+    public static SqliteStorageProfile of(String name) {
+        String constant = name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+        return Arrays.stream(values())
+                .filter(profile -> profile.name().equals(constant))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown SQLite storage profile '" + name
+                        + "', expected one of " + Arrays.toString(values()).toLowerCase(Locale.ROOT).replace('_', '-')));
+    }
+
+    /**
+     * Gets the profile name as it is written in the configuration.
+     *
+     * @return the lower-case, dashed profile name.
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    public SynchronousMode getSynchronous() {
+        return synchronous;
+    }
+
+    public DataSize getCacheSize() {
+        return cacheSize;
+    }
+
+    public DataSize getMmapSize() {
+        return mmapSize;
+    }
+
+    public TempStore getTempStore() {
+        return tempStore;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
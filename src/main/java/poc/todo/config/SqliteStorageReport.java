@@ -0,0 +1,113 @@
+package poc.todo.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reports at startup which storage settings SQLite actually applied, as they can differ from the requested
+ * ones: an existing database keeps its page size, and SQLite caps the memory map at its compile-time maximum.
+ * The settings are logged, differences as warnings, and shown under "storage" on {@code GET /actuator/info}.
+ */
+@Component
+@DependsOn("todoSchema")
+public class SqliteStorageReport implements InfoContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqliteStorageReport.class);
+
+    private final JdbcOperations jdbcOperations;
+    private final SqliteStorageSettings settings;
+    private final Map<String, Object> applied = new LinkedHashMap<>();
+    private final Map<String, Object> differences = new LinkedHashMap<>();
+    private long schemaVersion;
+
+    /**
+     * Constructor for SqliteStorageReport.
+     *
+     * @param jdbcOperations the JDBC operations used to query the pragmas.
+     * @param settings       the requested storage settings.
+     */
+    @Autowired
+    public SqliteStorageReport(JdbcOperations jdbcOperations, SqliteStorageSettings settings) {
+        this.jdbcOperations = jdbcOperations;
+        this.settings = settings;
+    }
+
+    /**
+     * Queries the storage pragmas on a pooled connection and compares them with the requested ones.
+     */
+    @PostConstruct
+    public void report() {
+        settings.expectedPragmas().forEach((pragma, expected) -> {
+            Object actual = queryPragma(pragma);
+            applied.put(pragma, actual);
+            if (!Objects.equals(expected, actual)) {
+                differences.put(pragma, expected);
+            }
+        });
+        schemaVersion = ((Number) queryPragma("user_version")).longValue();
+        logger.info("SQLite storage profile {} applied at schema version {}: {}", settings.getProfile().getName(), schemaVersion, applied);
+        differences.forEach((pragma, expected) -> {
+            if (pragma.equals("page_size")) {
+                logger.warn("SQLite page_size {} requested, but the database uses {}: an existing database keeps its page size "
+                        + "until it is rebuilt with VACUUM outside WAL mode.", expected, applied.get(pragma));
+            } else {
+                logger.warn("SQLite {} {} requested, but {} was applied.", pragma, expected, applied.get(pragma));
+            }
+        });
+    }
+
+    /**
+     * Adds the storage profile, the applied pragmas and any requested values that did not take effect.
+     *
+     * @param builder the builder of the info endpoint response.
+     */
+    @Override
+    public void contribute(Info.Builder builder) {
+        Map<String, Object> storage = new LinkedHashMap<>();
+        storage.put("profile", settings.getProfile().getName());
+        storage.put("schemaVersion", schemaVersion);
+        storage.put("pragmas", applied);
+        if (!differences.isEmpty()) {
+            storage.put("requested", differences);
+        }
+        builder.withDetail("storage", storage);
+    }
+
+    /**
+     * Gets the pragma values SQLite reported at startup.
+     *
+     * @return the pragma values by pragma name.
+     */
+    public Map<String, Object> getApplied() {
+        return applied;
+    }
+
+    /**
+     * Gets the requested pragma values that SQLite did not apply.
+     *
+     * @return the requested values by pragma name, empty if everything was applied.
+     */
+    public Map<String, Object> getDifferences() {
+        return differences;
+    }
+
+    /**
+     * Reads a pragma, normalizing integers to Long and text to lower case so they compare with the requested values.
+     */
+    private Object queryPragma(String pragma) {
+        Object value = jdbcOperations.queryForObject("PRAGMA " + pragma, Object.class);
+        return value instanceof Number number ? (Object) number.longValue() : String.valueOf(value).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,164 @@
+package poc.todo.config;
+
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConfig.JournalMode;
+import org.sqlite.SQLiteConfig.SynchronousMode;
+import org.sqlite.SQLiteConfig.TempStore;
+import org.sqlite.SQLiteDataSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The SQLite storage settings the connections are opened with: a named {@link SqliteStorageProfile}
+ * ("sqlite.storage-profile", "balanced" by default) with any single setting overridden by its own property
+ * ("sqlite.journal-mode", "sqlite.synchronous", "sqlite.cache-size", "sqlite.mmap-size", "sqlite.temp-store",
+ * "sqlite.page-size").
+ * <p>
+ * All but two of the settings are per connection and take effect whenever a connection is opened.
+ * The journal mode WAL and the page size are stored in the database file; the page size can only be chosen
+ * before the first table is created, an existing database keeps its own until it is rebuilt with VACUUM.
+ */
+public class SqliteStorageSettings {
+
+    private final SqliteStorageProfile profile;
+    private final JournalMode journalMode;
+    private final SynchronousMode synchronous;
+    private final DataSize cacheSize;
+    private final DataSize mmapSize;
+    private final TempStore tempStore;
+    private final int pageSize;
+
+    /**
+     * Constructor for SqliteStorageSettings.
+     *
+     * @param profile     the profile the settings are based on.
+     * @param journalMode the journal mode.
+     * @param synchronous the synchronous level.
+     * @param cacheSize   the page cache size per connection.
+     * @param mmapSize    how much of the database file is memory-mapped (zero disables memory-mapped reads).
+     * @param tempStore   where temporary tables and indexes are kept.
+     * @param pageSize    the page size of a newly created database, in bytes.
+     */
+    public SqliteStorageSettings(SqliteStorageProfile profile, JournalMode journalMode, SynchronousMode synchronous,
+                                 DataSize cacheSize, DataSize mmapSize, TempStore tempStore, int pageSize) {
+        if (cacheSize.isNegative() || mmapSize.isNegative()) {
+            throw new IllegalArgumentException("SQLite cache and mmap sizes must not be negative");
+        }
+        if (pageSize < 512 || pageSize > 65536 || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("SQLite page size must be a power of two from 512 to 65536, not " + pageSize);
+        }
+        this.profile = profile;
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Takes the settings of a profile as they are.
+     *
+     * @param profile the storage profile.
+     * @return the settings of the profile.
+     */
+    public static SqliteStorageSettings of(SqliteStorageProfile profile) {
+        return new SqliteStorageSettings(profile, profile.getJournalMode(), profile.getSynchronous(),
+                profile.getCacheSize(), profile.getMmapSize(), profile.getTempStore(), profile.getPageSize());
+    }
+
+    /**
+     * Reads the profile and the overridden settings from the environment.
+     *
+     * @param env the environment holding the "sqlite.*" properties.
+     * @return the resolved settings.
+     * @throws IllegalArgumentException if the profile or one of the settings is not valid.
+     */
+    public static SqliteStorageSettings from(Environment env) {
+        SqliteStorageProfile profile = SqliteStorageProfile.of(env.getProperty("sqlite.storage-profile", "balanced"));
+        String journalMode = env.getProperty("sqlite.journal-mode");
+        String synchronous = env.getProperty("sqlite.synchronous");
+        String cacheSize = env.getProperty("sqlite.cache-size");
+        String mmapSize = env.getProperty("sqlite.mmap-size");
+        String tempStore = env.getProperty("sqlite.temp-store");
+        return new SqliteStorageSettings(profile,
+                journalMode == null ? profile.getJournalMode() : JournalMode.valueOf(journalMode.trim().toUpperCase(Locale.ROOT)),
+                synchronous == null ? profile.getSynchronous() : SynchronousMode.valueOf(synchronous.trim().toUpperCase(Locale.ROOT)),
+                cacheSize == null ? profile.getCacheSize() : DataSize.parse(cacheSize.trim()),
+                mmapSize == null ? profile.getMmapSize() : DataSize.parse(mmapSize.trim()),
+                tempStore == null ? profile.getTempStore() : TempStore.valueOf(tempStore.trim().toUpperCase(Locale.ROOT)),
+                env.getProperty("sqlite.page-size", Integer.class, profile.getPageSize()));
+    }
+
+    /**
+     * Gives a database that has not been written yet the configured page size and journal mode, in that order.
+     * The connection configuration applies its pragmas in no particular order, and once the journal mode
+     * WAL is written to the file the page size can no longer change. An existing database is left as it is.
+     *
+     * @param url the JDBC URL of the database file.
+     * @throws SQLException if the database cannot be opened.
+     */
+    public void initializeDatabase(String url) throws SQLException {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl(url);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            try (ResultSet pageCount = statement.executeQuery("PRAGMA page_count")) {
+                if (!pageCount.next() || pageCount.getLong(1) > 0) {
+                    return;
+                }
+            }
+            statement.execute("PRAGMA page_size = " + pageSize);
+            statement.execute("PRAGMA journal_mode = " + journalMode.name());
+        }
+    }
+
+    /**
+     * Sets the storage pragmas on a SQLite connection configuration.
+     *
+     * @param config the configuration the connections are opened with.
+     */
+    public void applyTo(SQLiteConfig config) {
+        config.setPageSize(pageSize);
+        config.setJournalMode(journalMode);
+        config.setSynchronous(synchronous);
+        config.setCacheSize(cacheSizePragma());
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, Long.toString(mmapSize.toBytes()));
+        config.setTempStore(tempStore);
+    }
+
+    /**
+     * Gets the storage pragmas as SQLite reports them back when they are queried,
+     * e.g. "journal_mode" as "wal" and "synchronous" as 1.
+     *
+     * @return the pragma values by pragma name.
+     */
+    public Map<String, Object> expectedPragmas() {
+        Map<String, Object> pragmas = new LinkedHashMap<>();
+        pragmas.put("page_size", (long) pageSize);
+        pragmas.put("journal_mode", journalMode.name().toLowerCase(Locale.ROOT));
+        pragmas.put("synchronous", (long) synchronous.ordinal());
+        pragmas.put("cache_size", (long) cacheSizePragma());
+        pragmas.put("mmap_size", mmapSize.toBytes());
+        pragmas.put("temp_store", (long) tempStore.ordinal());
+        return pragmas;
+    }
+
+    /**
+     * The cache_size pragma value: negative, as SQLite reads negative values as kibibytes rather than pages.
+     */
+    private int cacheSizePragma() {
+        return (int) -Math.max(cacheSize.toKilobytes(), 1);
+    }
+
+    public SqliteStorageProfile getProfile() {
+        return profile;
+    }
+}
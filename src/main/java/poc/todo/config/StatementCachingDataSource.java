@@ -0,0 +1,223 @@
+package poc.todo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DataSource decorator that caches prepared statements per physical connection.
+ * SQLite re-parses and re-plans every statement it is handed, so reusing the prepared statement
+ * for a repeated SQL string saves that work on every query.
+ * <p>
+ * Meant to sit underneath a connection pool: each physical connection keeps a small LRU cache,
+ * closing a cached statement only resets it, and closing the connection closes the whole cache.
+ * A connection is used by one thread at a time, so the cache itself is not synchronized.
+ */
+public class StatementCachingDataSource extends DelegatingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementCachingDataSource.class);
+
+    private final int cacheSize;
+
+    /**
+     * Constructor for StatementCachingDataSource.
+     *
+     * @param targetDataSource the DataSource providing the physical connections.
+     * @param cacheSize        the maximum number of prepared statements cached per connection.
+     */
+    public StatementCachingDataSource(DataSource targetDataSource, int cacheSize) {
+        super(targetDataSource);
+        this.cacheSize = cacheSize;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new CachingConnectionHandler(connection, cacheSize));
+    }
+
+    /**
+     * Invokes a method on the target, unwrapping the reflective exception wrapper.
+     */
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Connection proxy that serves single-argument prepareStatement calls from an LRU cache.
+     */
+    private static final class CachingConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final Map<String, CachedStatement> cache;
+
+        CachingConnectionHandler(Connection target, int cacheSize) {
+            this.target = target;
+            this.cache = new LinkedHashMap<>(cacheSize * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() > cacheSize) {
+                        eldest.getValue().evict();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    if (args.length == 1) {
+                        return prepare((String) args[0]);
+                    }
+                    return invokeTarget(target, method, args);
+                case "close":
+                    closeCache();
+                    target.close();
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        private PreparedStatement prepare(String sql) throws SQLException {
+            CachedStatement cached = cache.get(sql);
+            if (cached != null && !cached.inUse) {
+                cached.inUse = true;
+                return cached.proxy;
+            }
+            if (cached != null) {
+                // The same SQL is already open on this connection (e.g. an unfinished cursor), so don't share it
+                return target.prepareStatement(sql);
+            }
+            cached = new CachedStatement(target.prepareStatement(sql), () -> cache.remove(sql));
+            cached.inUse = true;
+            cache.put(sql, cached);
+            return cached.proxy;
+        }
+
+        private void closeCache() {
+            Iterator<CachedStatement> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                iterator.next().closeQuietly();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Prepared statement proxy whose close() resets the statement for reuse instead of closing it.
+     */
+    private static final class CachedStatement implements InvocationHandler {
+
+        private final PreparedStatement target;
+        private final PreparedStatement proxy;
+        private final Runnable onDiscard;
+        private ResultSet resultSet;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement target, Runnable onDiscard) {
+            this.target = target;
+            this.onDiscard = onDiscard;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(StatementCachingDataSource.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    release();
+                    return null;
+                case "isClosed":
+                    return !inUse || target.isClosed();
+                case "executeQuery":
+                    resultSet = (ResultSet) invokeTarget(target, method, args);
+                    return resultSet;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return invokeTarget(target, method, args);
+            }
+        }
+
+        /**
+         * Returns the statement to the cache, resetting it so it holds no cursor or parameters.
+         */
+        private void release() {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                if (resultSet != null) {
+                    resultSet.close(); // Resets the SQLite statement and ends its implicit read transaction
+                    resultSet = null;
+                }
+                target.clearParameters();
+                target.clearBatch();
+            } catch (SQLException e) {
+                logger.warn("Discarding cached statement that could not be reset: {}", e.getMessage());
+                onDiscard.run();
+                closeQuietly();
+            }
+        }
+
+        /**
+         * Marks the statement as evicted from the cache, closing it now or as soon as it is released.
+         */
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                target.close();
+            } catch (SQLException e) {
+                logger.warn("Failed to close cached statement: {}", e.getMessage());
+            }
+        }
+    }
+}
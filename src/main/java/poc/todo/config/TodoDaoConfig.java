@@ -0,0 +1,115 @@
+package poc.todo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import poc.todo.dao.CachingTodoDao;
+import poc.todo.dao.InMemoryTodoDao;
+import poc.todo.dao.ShardedTodoDao;
+import poc.todo.dao.TodoDao;
+import poc.todo.dao.TodoDaoImpl;
+import poc.todo.dao.TodoDbConcurrencyLimiter;
+import poc.todo.metrics.TodoMetrics;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration class for assembling the TodoDao used by the service layer.
+ * The storage engine is chosen with "todo.dao.engine" ("jdbc", "memory" or "sharded"),
+ * and "todo.cache.enabled" puts a read-through cache in front of it.
+ */
+@Configuration
+public class TodoDaoConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoDaoConfig.class);
+
+    @Autowired
+    private Environment env;
+
+    /**
+     * Creates the in-memory TodoDao engine, activated when "todo.dao.engine" is "memory".
+     *
+     * @param jdbcOperations          the JDBC operations used to load and snapshot the Todo table.
+     * @param jdbcTransactionTemplate the transaction template snapshots run in.
+     * @return the in-memory TodoDao, which writes its final snapshot when the context closes.
+     */
+    @Bean(destroyMethod = "close")
+    @DependsOn("todoSchema")
+    @ConditionalOnProperty(name = "todo.dao.engine", havingValue = "memory")
+    public InMemoryTodoDao inMemoryTodoDao(JdbcOperations jdbcOperations, TransactionTemplate jdbcTransactionTemplate) {
+        Duration snapshotInterval = env.getProperty("todo.memory.snapshot-interval", Duration.class, Duration.ofSeconds(5));
+        return new InMemoryTodoDao(jdbcOperations, jdbcTransactionTemplate, snapshotInterval);
+    }
+
+    /**
+     * Creates the sharded TodoDao engine, activated when "todo.dao.engine" is "sharded": "todo.shard.count"
+     * SQLite files named by "todo.shard.url-pattern", where "%d" stands for the shard index.
+     *
+     * @param databaseConfig the database configuration that opens the shard files like the primary database.
+     * @param metrics        the metrics the statement timers are registered with.
+     * @param dbLimiter      the limiter of concurrent statements.
+     * @return the sharded TodoDao, which closes the shard connection pools when the context closes.
+     * @throws SQLException if a shard file cannot be initialized.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "todo.dao.engine", havingValue = "sharded")
+    public ShardedTodoDao shardedTodoDao(DatabaseConfig databaseConfig, TodoMetrics metrics, TodoDbConcurrencyLimiter dbLimiter)
+            throws SQLException {
+        int shardCount = env.getProperty("todo.shard.count", Integer.class, 4);
+        String urlPattern = env.getProperty("todo.shard.url-pattern", "jdbc:sqlite:todoShard-%d.db");
+        if (shardCount < 1 || !urlPattern.contains("%d")) {
+            throw new IllegalArgumentException("Sharding needs a positive todo.shard.count and a %d in todo.shard.url-pattern");
+        }
+        List<DataSource> dataSources = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            dataSources.add(databaseConfig.createSqliteDataSource(urlPattern.formatted(shard), "todo-shard-" + shard));
+        }
+        int idBlockSize = env.getProperty("todo.id.block-size", Integer.class, 100);
+        int fanOutThreads = env.getProperty("todo.shard.fan-out-threads", Integer.class, 2 * shardCount);
+        return new ShardedTodoDao(dataSources, idBlockSize, fanOutThreads, metrics, dbLimiter);
+    }
+
+    /**
+     * Creates the primary TodoDao: the selected storage engine, optionally behind a cache.
+     *
+     * @param todoDaoImpl     the JDBC TodoDao engine.
+     * @param inMemoryTodoDao the in-memory TodoDao engine, if it is enabled.
+     * @param shardedTodoDao  the sharded TodoDao engine, if it is enabled.
+     * @param metrics         the metrics the cache statistics are published to.
+     * @return the TodoDao to be injected into the service layer.
+     */
+    @Bean(destroyMethod = "")
+    @Primary
+    public TodoDao todoDao(TodoDaoImpl todoDaoImpl, ObjectProvider<InMemoryTodoDao> inMemoryTodoDao,
+                           ObjectProvider<ShardedTodoDao> shardedTodoDao, TodoMetrics metrics) {
+        TodoDao engine = inMemoryTodoDao.getIfAvailable();
+        if (engine == null) {
+            engine = shardedTodoDao.getIfAvailable();
+        }
+        if (engine == null) {
+            engine = todoDaoImpl;
+        }
+        logger.info("Using {} as Todo storage engine.", engine.getClass().getSimpleName());
+        if (!env.getProperty("todo.cache.enabled", Boolean.class, false)) {
+            return engine;
+        }
+        long maximumSize = env.getProperty("todo.cache.maximum-size", Long.class, 10000L);
+        Duration timeToLive = env.getProperty("todo.cache.time-to-live", Duration.class, Duration.ofMinutes(5));
+        CachingTodoDao cachingTodoDao = new CachingTodoDao(engine, maximumSize, timeToLive);
+        metrics.monitorCache("todo", cachingTodoDao.getCache());
+        return cachingTodoDao;
+    }
+}
@@ -0,0 +1,423 @@
+package poc.todo.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.*;
+import poc.todo.exception.NoTodoFoundException;
+import poc.todo.model.Todo;
+import poc.todo.model.TodoBatchResult;
+import poc.todo.model.TodoBulkFormat;
+import poc.todo.model.TodoChangePage;
+import poc.todo.model.TodoField;
+import poc.todo.model.TodoImportResult;
+import poc.todo.service.TodoBulkTransfer;
+import poc.todo.service.TodoChangeTracker;
+import poc.todo.service.TodoEventBroker;
+import poc.todo.service.TodoServiceDao;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+/**
+ * Non-blocking variant of {@link TodoController}, served by Spring WebFlux when the "reactive" profile is active.
+ * <p>
+ * The endpoints, headers and status codes are the same. Every call into the blocking {@link TodoServiceDao}
+ * runs on the bounded "todoDbScheduler", so the event loop threads only parse requests and write responses.
+ * The full listing is streamed from the database cursor as a {@link Flux}, which reads rows only as fast as
+ * the client consumes them; the export and the import share {@link TodoBulkTransfer} with the servlet API.
+ * Errors are mapped by {@link RestExceptionHandler}, as for the servlet API.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/todos")
+public class ReactiveTodoController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveTodoController.class);
+
+    /** The number of body buffers an import reads ahead. */
+    private static final int IMPORT_PREFETCH = 4;
+
+    @Autowired
+    TodoServiceDao todoService;
+
+    @Autowired
+    TodoChangeTracker changeTracker;
+
+    @Autowired
+    TodoEventBroker eventBroker;
+
+    @Autowired
+    TodoBulkTransfer bulkTransfer;
+
+    @Autowired
+    @Qualifier("todoDbScheduler")
+    Scheduler dbScheduler;
+
+    /**
+     * Endpoint to check the status of the service.
+     *
+     * @return a Mono of a simple "up" message, indicating the service is running.
+     */
+    @GetMapping("/info")
+    public Mono<ResponseEntity<String>> info() {
+        return Mono.just(ResponseEntity.ok("up"));
+    }
+
+    /**
+     * Retrieves all Todo items as a stream, or a single page of them when a cursor or limit is given.
+     * The response carries the collection ETag; when If-None-Match names the current one,
+     * "not modified" is returned without querying the database.
+     *
+     * @param after       the ID after which the page starts (optional, enables paging).
+     * @param limit       the maximum number of Todo items on the page (optional, enables paging).
+     * @param completed   the completion status to filter on (optional).
+     * @param fields      the comma-separated fields to return, e.g. "id,completed" (optional; the ID is always returned).
+     * @param ifNoneMatch the ETags the client already holds (optional).
+     * @return a Mono of the response: the streamed Todo items, a page with its next cursor,
+     * "not modified" if nothing changed, or "not found" if there are no Todo items.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<?>> getAllTodos(@RequestParam(name = "after", required = false) Long after,
+                                               @RequestParam(name = "limit", required = false) Integer limit,
+                                               @RequestParam(name = "completed", required = false) Boolean completed,
+                                               @RequestParam(name = "fields", required = false) String fields,
+                                               @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Set<TodoField> selectedFields = TodoField.parse(fields); // Rejects unknown fields before anything else
+        String changeVersion = changeTracker.currentVersion(); // Read before querying, see TodoChangeTracker
+        String eTag = changeTracker.collectionETag(changeVersion);
+        if (changeTracker.collectionUnchanged(ifNoneMatch)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build());
+        }
+        if (after != null || limit != null) {
+            return blocking(() -> selectedFields != null ? todoService.getTodoPage(after, limit, completed, selectedFields)
+                    : completed == null ? todoService.getTodoPage(after, limit) : todoService.getTodoPage(after, limit, completed))
+                    .map(page -> ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(page));
+        }
+        if (completed != null || selectedFields != null) {
+            return blocking(() -> completed == null ? todoService.getAllTodos(selectedFields) : todoService.getTodosByCompleted(completed, selectedFields))
+                    .map(todos -> ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(todos));
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Streaming all Todo items.");
+        }
+        Flux<Todo> todos = streamAll().switchIfEmpty(Flux.error(() -> new NoTodoFoundException("No Todo items found.")));
+        return Mono.just(ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON).body(todos));
+    }
+
+    /**
+     * Counts the Todo items, like {@link TodoController#countTodos(Boolean, String)}.
+     *
+     * @param completed   the completion status to filter on (optional).
+     * @param ifNoneMatch the ETags the client already holds (optional).
+     * @return a Mono of the number of matching Todo items, or "not modified" if nothing changed.
+     */
+    @GetMapping("/count")
+    public Mono<ResponseEntity<Long>> countTodos(@RequestParam(name = "completed", required = false) Boolean completed,
+                                                 @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = changeTracker.collectionETag(changeTracker.currentVersion()); // Read before querying, see TodoChangeTracker
+        if (changeTracker.collectionUnchanged(ifNoneMatch)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build());
+        }
+        return blocking(() -> todoService.countTodos(completed))
+                .map(count -> ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(count));
+    }
+
+    /**
+     * Searches the Todo item descriptions, like {@link TodoController#searchTodos(String, Integer, String)}.
+     *
+     * @param q           the search text; all terms must match, and a term ending in "*" is a prefix.
+     * @param limit       the maximum number of results (optional).
+     * @param ifNoneMatch the ETags the client already holds (optional).
+     * @return a Mono of the matching Todo items, possibly none, or "not modified" if nothing changed.
+     */
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<Todo>>> searchTodos(@RequestParam(name = "q") String q,
+                                                        @RequestParam(name = "limit", required = false) Integer limit,
+                                                        @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = changeTracker.collectionETag(changeTracker.currentVersion()); // Read before querying, see TodoChangeTracker
+        if (changeTracker.collectionUnchanged(ifNoneMatch)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build());
+        }
+        return blocking(() -> todoService.searchTodos(q, limit))
+                .map(todos -> ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(todos));
+    }
+
+    /**
+     * Retrieves the Todo items changed since the client's last sync, like {@link TodoController#getChanges(Long, Integer)}.
+     *
+     * @param since the change sequence number of the last sync (optional, 0 lists all Todo items).
+     * @param limit the maximum number of changes to return (optional).
+     * @return a Mono of the page of changes, or "gone" if the client has to reload all Todo items.
+     */
+    @GetMapping("/changes")
+    public Mono<ResponseEntity<TodoChangePage>> getChanges(@RequestParam(name = "since", required = false) Long since,
+                                                           @RequestParam(name = "limit", required = false) Integer limit) {
+        return blocking(() -> todoService.getChangesSince(since, limit))
+                .map(page -> ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(page));
+    }
+
+    /**
+     * Exports all Todo items, like {@link TodoController#exportTodos(String, String)}. The items are written
+     * on the DAO scheduler into buffers that are sent as the client consumes them.
+     *
+     * @param format   the format to export, "json", "ndjson" or "csv" (optional; takes precedence over the Accept header).
+     * @param accept   the Accept header (optional).
+     * @param response the response, whose buffer factory the items are written into.
+     * @return a ResponseEntity whose body is written as the Todo items are read.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Flux<DataBuffer>> exportTodos(@RequestParam(name = "format", required = false) String format,
+                                                        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+                                                        ServerHttpResponse response) {
+        TodoBulkFormat bulkFormat = TodoBulkFormat.negotiate(format, accept);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Exporting all Todo items as {}.", bulkFormat);
+        }
+        Flux<DataBuffer> body = Flux.from(DataBufferUtils.outputStreamPublisher(outputStream -> {
+            try {
+                bulkTransfer.exportTodos(outputStream, bulkFormat);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, response.bufferFactory(), dbScheduler::schedule));
+        return ResponseEntity.ok().contentType(bulkFormat.getMediaType()).body(body);
+    }
+
+    /**
+     * Imports Todo items from a JSON array, NDJSON or CSV body,
+     * like {@link TodoController#importTodos(MediaType, InputStream)}.
+     * The body is read on the DAO scheduler as the import proceeds, requesting more of it only as it is consumed.
+     *
+     * @param contentType the media type of the body.
+     * @param body        the body, as it arrives.
+     * @return a Mono of the counts and the rejected items by line: "created" if every item was created,
+     * "bad request" if none was, or "multi-status" if only some were.
+     */
+    @PostMapping(path = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public Mono<ResponseEntity<TodoImportResult>> importTodos(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                              @RequestBody Flux<DataBuffer> body) {
+        TodoBulkFormat bulkFormat = TodoBulkFormat.of(contentType);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Importing Todo items as {}.", bulkFormat);
+        }
+        // Each buffer is copied and released as it arrives, so a body left unread when the import stops leaks nothing
+        return Mono.using(() -> body.map(ReactiveTodoController::copyAndRelease).toStream(IMPORT_PREFETCH),
+                        chunks -> blocking(() -> bulkTransfer.importTodos(new ChunkInputStream(chunks.iterator()), bulkFormat)),
+                        Stream::close)
+                .map(result -> ResponseEntity.status(TodoBatchStatus.resolve(result)).body(result));
+    }
+
+    /**
+     * Streams Todo changes as server-sent events, like {@link TodoController#streamChanges(String)}.
+     *
+     * @param lastEventId the ID of the last event the client received (optional).
+     * @return the event stream, open until the client disconnects.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamChanges(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return Flux.create(sink -> {
+            TodoEventBroker.Subscription subscription = eventBroker.subscribe(new ServerSentEventSink(sink), lastEventId);
+            sink.onDispose(subscription::cancel);
+        });
+    }
+
+    /**
+     * Retrieves a specific Todo item by its ID.
+     * When If-None-Match names an ETag of this item issued since the last change, "not modified"
+     * is returned without querying the database.
+     *
+     * @param id          the ID of the Todo item to retrieve.
+     * @param fields      the comma-separated fields to return, e.g. "id,completed" (optional; the ID is always returned).
+     * @param ifNoneMatch the ETags the client already holds (optional).
+     * @return a Mono of the requested Todo item with its ETag, "not modified" if nothing changed,
+     * or "not found" if not found.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Todo>> getTodoById(@PathVariable("id") Long id,
+                                                  @RequestParam(name = "fields", required = false) String fields,
+                                                  @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Set<TodoField> selectedFields = TodoField.parse(fields); // Rejects unknown fields before anything else
+        String changeVersion = changeTracker.currentVersion(); // Read before querying, see TodoChangeTracker
+        String unchangedETag = changeTracker.unchangedItemETag(id, ifNoneMatch);
+        if (unchangedETag != null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(unchangedETag).cacheControl(CacheControl.noCache()).build());
+        }
+        if (selectedFields == null) {
+            return blocking(() -> todoService.getTodoById(id))
+                    .map(todo -> ResponseEntity.ok().eTag(changeTracker.itemETag(todo, changeVersion)).cacheControl(CacheControl.noCache()).body(todo));
+        }
+        // The version is always read, as the ETag is derived from it, but only returned if it was asked for
+        return blocking(() -> todoService.getTodoById(id, TodoField.withVersion(selectedFields)))
+                .map(todo -> ResponseEntity.ok().eTag(changeTracker.itemETag(todo, changeVersion)).cacheControl(CacheControl.noCache())
+                        .body(TodoField.project(todo, selectedFields)));
+    }
+
+    /**
+     * Creates a new Todo item.
+     *
+     * @param todo the Todo item to create, passed in the request body.
+     * @return a Mono of the created Todo item with a "created" status, or "bad request" if there's an error.
+     */
+    @PostMapping
+    public Mono<ResponseEntity<Todo>> createTodo(@RequestBody Todo todo) {
+        String changeVersion = changeTracker.currentVersion(); // Predates the change, so the ETag never claims a later state
+        return blocking(() -> todoService.createTodo(todo))
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).eTag(changeTracker.itemETag(created, changeVersion)).body(created));
+    }
+
+    /**
+     * Creates several Todo items in one request, written together in a single transaction.
+     *
+     * @param todos the Todo items to create, passed in the request body as a JSON array.
+     * @return a Mono of the per-item results: "created" if every item was created,
+     * "bad request" if none was, or "multi-status" if only some were.
+     */
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<TodoBatchResult>> createTodos(@RequestBody List<Todo> todos) {
+        return blocking(() -> todoService.createTodos(todos))
+                .map(result -> ResponseEntity.status(TodoBatchStatus.resolve(result)).body(result));
+    }
+
+    /**
+     * Updates the fields sent for an existing Todo item by its ID; fields left out keep their value.
+     *
+     * @param id      the ID of the Todo item to update.
+     * @param todo    the updated Todo information.
+     * @param ifMatch the ETag the Todo item must still have (optional).
+     * @return a Mono of the updated Todo item with its new ETag, "not found" if the item doesn't exist,
+     * or "precondition failed" if it no longer matches the If-Match header.
+     */
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<Todo>> updateTodo(@PathVariable("id") Long id, @RequestBody Todo todo,
+                                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String changeVersion = changeTracker.currentVersion(); // Predates the change, so the ETag never claims a later state
+        return blocking(() -> todoService.updateTodo(id, todo, TodoChangeTracker.expectedRowVersion(id, ifMatch)))
+                .map(updated -> ResponseEntity.ok().eTag(changeTracker.itemETag(updated, changeVersion)).body(updated));
+    }
+
+    /**
+     * Deletes a Todo item by its ID.
+     *
+     * @param id      the ID of the Todo item to delete.
+     * @param ifMatch the ETag the Todo item must still have (optional).
+     * @return a Mono of "no content" on success, "not found" if the item doesn't exist,
+     * or "precondition failed" if it no longer matches the If-Match header.
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteTodo(@PathVariable("id") Long id,
+                                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return blocking(() -> todoService.deleteTodoById(id, TodoChangeTracker.expectedRowVersion(id, ifMatch)))
+                .map(deleted -> ResponseEntity.noContent().<Void>build());
+    }
+
+    /**
+     * Runs a blocking service call on the DAO scheduler.
+     *
+     * @param call the service call.
+     * @param <T>  the result type of the call.
+     * @return a Mono of the call's result, or of the exception it threw.
+     */
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(dbScheduler);
+    }
+
+    /**
+     * Copies the bytes of a body buffer and releases it.
+     *
+     * @param buffer the buffer.
+     * @return the bytes of the buffer.
+     */
+    private static byte[] copyAndRelease(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Streams all Todo items from the database cursor on the DAO scheduler.
+     * Rows are read as downstream requests them and the cursor is closed on completion, error or cancellation.
+     *
+     * @return the Todo items, emitted as they are read.
+     */
+    private Flux<Todo> streamAll() {
+        return Flux.using(todoService::streamAllTodos, Flux::fromStream, Stream::close)
+                .subscribeOn(dbScheduler);
+    }
+
+    /**
+     * Reads the chunks of a request body in order, blocking until the next one arrives.
+     */
+    private static final class ChunkInputStream extends InputStream {
+
+        private final Iterator<byte[]> chunks;
+        private byte[] chunk = new byte[0];
+        private int position;
+
+        ChunkInputStream(Iterator<byte[]> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int read() {
+            return nextChunk() ? chunk[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            if (length == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+            int count = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+        /**
+         * Moves to the next chunk with bytes left, if the current one is used up.
+         *
+         * @return true if there are bytes to read, false at the end of the body.
+         */
+        private boolean nextChunk() {
+            while (position == chunk.length) {
+                if (!chunks.hasNext()) {
+                    return false;
+                }
+                chunk = chunks.next();
+                position = 0;
+            }
+            return true;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package poc.todo.controller;
 
+import io.micrometer.core.instrument.Counter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -9,6 +12,13 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestController;
 import poc.todo.exception.MissingTodoDescriptionException;
 import poc.todo.exception.NoTodoFoundException;
+import poc.todo.exception.TodoChangesExpiredException;
+import poc.todo.exception.TodoChangesUnavailableException;
+import poc.todo.exception.TodoStorageBusyException;
+import poc.todo.exception.TodoVersionConflictException;
+import poc.todo.exception.UnknownTodoFieldException;
+import poc.todo.exception.UnsupportedTodoFormatException;
+import poc.todo.metrics.TodoMetrics;
 import poc.todo.model.CustomTodoError;
 
 /**
@@ -21,6 +31,32 @@ public class RestExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(RestExceptionHandler.class);
 
+    private final Counter noTodoFoundCounter;
+    private final Counter missingDescriptionCounter;
+    private final Counter versionConflictCounter;
+    private final Counter storageBusyCounter;
+    private final Counter changesExpiredCounter;
+    private final Counter changesUnavailableCounter;
+    private final Counter unknownFieldCounter;
+    private final Counter unsupportedFormatCounter;
+
+    /**
+     * Constructor for RestExceptionHandler, resolving the exception counters.
+     *
+     * @param metrics the factory of the exception counters.
+     */
+    @Autowired
+    public RestExceptionHandler(TodoMetrics metrics) {
+        this.noTodoFoundCounter = metrics.exceptionCounter(NoTodoFoundException.class);
+        this.missingDescriptionCounter = metrics.exceptionCounter(MissingTodoDescriptionException.class);
+        this.versionConflictCounter = metrics.exceptionCounter(TodoVersionConflictException.class);
+        this.storageBusyCounter = metrics.exceptionCounter(TodoStorageBusyException.class);
+        this.changesExpiredCounter = metrics.exceptionCounter(TodoChangesExpiredException.class);
+        this.changesUnavailableCounter = metrics.exceptionCounter(TodoChangesUnavailableException.class);
+        this.unknownFieldCounter = metrics.exceptionCounter(UnknownTodoFieldException.class);
+        this.unsupportedFormatCounter = metrics.exceptionCounter(UnsupportedTodoFormatException.class);
+    }
+
     /**
      * Handles exceptions when a Todo item is not found.
      *
@@ -29,7 +65,10 @@ public class RestExceptionHandler {
      */
     @ExceptionHandler(value = NoTodoFoundException.class)
     public ResponseEntity<CustomTodoError> handleNoTodoFoundException(NoTodoFoundException e) {
-        logger.warn("Todo not found: {}", e.getMessage());
+        noTodoFoundCounter.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Todo not found: {}", e.getMessage());
+        }
         CustomTodoError error = new CustomTodoError(e.getMessage());
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
@@ -42,8 +81,109 @@ public class RestExceptionHandler {
      */
     @ExceptionHandler(value = MissingTodoDescriptionException.class)
     public ResponseEntity<CustomTodoError> handleMissingTodoDescriptionException(MissingTodoDescriptionException e) {
-        logger.error("Missing description in Todo: {}", e.getMessage());
+        missingDescriptionCounter.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Missing description in Todo: {}", e.getMessage());
+        }
         CustomTodoError error = new CustomTodoError(e.getMessage());
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * Handles exceptions when a client selects a Todo field that does not exist.
+     *
+     * @param e the exception naming the unknown field.
+     * @return a ResponseEntity with a custom error message and HTTP status "BAD REQUEST".
+     */
+    @ExceptionHandler(value = UnknownTodoFieldException.class)
+    public ResponseEntity<CustomTodoError> handleUnknownTodoFieldException(UnknownTodoFieldException e) {
+        unknownFieldCounter.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Unknown Todo field: {}", e.getMessage());
+        }
+        CustomTodoError error = new CustomTodoError(e.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles exceptions when a client asks for a bulk format that is not supported.
+     *
+     * @param e the exception naming the format.
+     * @return a ResponseEntity with a custom error message and HTTP status "BAD REQUEST".
+     */
+    @ExceptionHandler(value = UnsupportedTodoFormatException.class)
+    public ResponseEntity<CustomTodoError> handleUnsupportedTodoFormatException(UnsupportedTodoFormatException e) {
+        unsupportedFormatCounter.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Unsupported Todo format: {}", e.getMessage());
+        }
+        CustomTodoError error = new CustomTodoError(e.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles exceptions when a Todo item no longer has the version the client expected.
+     *
+     * @param e the exception indicating a version conflict.
+     * @return a ResponseEntity with a custom error message and HTTP status "PRECONDITION FAILED".
+     */
+    @ExceptionHandler(value = TodoVersionConflictException.class)
+    public ResponseEntity<CustomTodoError> handleTodoVersionConflictException(TodoVersionConflictException e) {
+        versionConflictCounter.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Todo version conflict: {}", e.getMessage());
+        }
+        CustomTodoError error = new CustomTodoError(e.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    /**
+     * Handles exceptions when the Todo storage is saturated.
+     *
+     * @param e the exception indicating no database access could be obtained in time.
+     * @return a ResponseEntity with a custom error message, HTTP status "SERVICE UNAVAILABLE" and a Retry-After header.
+     */
+    @ExceptionHandler(value = TodoStorageBusyException.class)
+    public ResponseEntity<CustomTodoError> handleTodoStorageBusyException(TodoStorageBusyException e) {
+        storageBusyCounter.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Todo storage busy: {}", e.getMessage());
+        }
+        CustomTodoError error = new CustomTodoError(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    /**
+     * Handles exceptions when the Todo changes a client asked for have been compacted away.
+     *
+     * @param e the exception indicating the client's sync point is older than the compaction horizon.
+     * @return a ResponseEntity with a custom error message and HTTP status "GONE".
+     */
+    @ExceptionHandler(value = TodoChangesExpiredException.class)
+    public ResponseEntity<CustomTodoError> handleTodoChangesExpiredException(TodoChangesExpiredException e) {
+        changesExpiredCounter.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Todo changes expired: {}", e.getMessage());
+        }
+        CustomTodoError error = new CustomTodoError(e.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.GONE);
+    }
+
+    /**
+     * Handles exceptions when the storage engine in use does not offer the delta feed.
+     *
+     * @param e the exception indicating the Todo changes cannot be listed.
+     * @return a ResponseEntity with a custom error message and HTTP status "NOT IMPLEMENTED".
+     */
+    @ExceptionHandler(value = TodoChangesUnavailableException.class)
+    public ResponseEntity<CustomTodoError> handleTodoChangesUnavailableException(TodoChangesUnavailableException e) {
+        changesUnavailableCounter.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Todo changes unavailable: {}", e.getMessage());
+        }
+        CustomTodoError error = new CustomTodoError(e.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.NOT_IMPLEMENTED);
+    }
 }
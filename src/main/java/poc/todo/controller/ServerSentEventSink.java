@@ -0,0 +1,59 @@
+package poc.todo.controller;
+
+import org.springframework.http.codec.ServerSentEvent;
+import poc.todo.model.TodoChangeEvent;
+import poc.todo.service.TodoEventBroker;
+import reactor.core.publisher.FluxSink;
+
+import java.io.IOException;
+
+/**
+ * Delivers the change feed of one subscriber into a WebFlux {@link FluxSink} of server-sent events.
+ * The events are the same as those of {@link SseEmitterSink}. Delivery never buffers beyond what the
+ * connection has requested: when the client is not keeping up, the stream is completed and the client
+ * resumes with its Last-Event-ID, getting the missed events from the broker's ring or a resync.
+ */
+class ServerSentEventSink implements TodoEventBroker.Sink {
+
+    private final FluxSink<ServerSentEvent<Object>> sink;
+
+    /**
+     * Constructor for ServerSentEventSink.
+     *
+     * @param sink the sink of the subscriber's response stream.
+     */
+    ServerSentEventSink(FluxSink<ServerSentEvent<Object>> sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void send(String eventId, TodoChangeEvent event) throws IOException {
+        emit(ServerSentEvent.builder().id(eventId).event(event.getType()).data(event).build());
+    }
+
+    @Override
+    public void resync() throws IOException {
+        emit(ServerSentEvent.builder().event("resync").data((Object) "{}").build());
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+        emit(ServerSentEvent.builder().comment("heartbeat").build());
+    }
+
+    @Override
+    public void close() {
+        sink.complete();
+    }
+
+    private void emit(ServerSentEvent<Object> event) throws IOException {
+        if (sink.isCancelled()) {
+            throw new IOException("Change feed subscriber disconnected");
+        }
+        if (sink.requestedFromDownstream() <= 0) {
+            sink.complete();
+            throw new IOException("Change feed subscriber is not keeping up");
+        }
+        sink.next(event);
+    }
+}
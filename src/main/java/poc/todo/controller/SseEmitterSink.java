@@ -0,0 +1,47 @@
+package poc.todo.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import poc.todo.model.TodoChangeEvent;
+import poc.todo.service.TodoEventBroker;
+
+import java.io.IOException;
+
+/**
+ * Delivers the change feed of one subscriber over a Spring MVC {@link SseEmitter}.
+ * Events are named after their type ("created", "updated", "deleted"); "resync" asks the client to reload
+ * the Todo items and heartbeats are sent as SSE comments.
+ */
+class SseEmitterSink implements TodoEventBroker.Sink {
+
+    private final SseEmitter emitter;
+
+    /**
+     * Constructor for SseEmitterSink.
+     *
+     * @param emitter the emitter of the subscriber's response.
+     */
+    SseEmitterSink(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void send(String eventId, TodoChangeEvent event) throws IOException {
+        emitter.send(SseEmitter.event().id(eventId).name(event.getType()).data(event, MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void resync() throws IOException {
+        emitter.send(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+        emitter.send(SseEmitter.event().comment("heartbeat"));
+    }
+
+    @Override
+    public void close() {
+        emitter.completeWithError(new IOException("Change feed delivery timed out"));
+    }
+}
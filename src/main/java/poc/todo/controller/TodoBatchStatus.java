@@ -0,0 +1,43 @@
+package poc.todo.controller;
+
+import org.springframework.http.HttpStatus;
+import poc.todo.model.TodoBatchItemResult;
+import poc.todo.model.TodoBatchResult;
+import poc.todo.model.TodoImportResult;
+
+/**
+ * Maps the outcomes of a batch create request or a bulk import to HTTP statuses, for the servlet and the reactive controller alike.
+ */
+final class TodoBatchStatus {
+
+    private TodoBatchStatus() {
+    }
+
+    /**
+     * Sets the HTTP status of every item of a batch result and chooses the status of the response:
+     * "created" if every item was created, "bad request" if none was, or "multi-status" if only some were.
+     *
+     * @param result the batch result, whose items get their statuses.
+     * @return the status of the response.
+     */
+    static HttpStatus resolve(TodoBatchResult result) {
+        for (TodoBatchItemResult item : result.getResults()) {
+            item.setStatus(item.getOutcome() == TodoBatchItemResult.Outcome.CREATED
+                    ? HttpStatus.CREATED.value() : HttpStatus.BAD_REQUEST.value());
+        }
+        return result.getFailed() == 0 ? HttpStatus.CREATED
+                : result.getCreated() == 0 ? HttpStatus.BAD_REQUEST : HttpStatus.MULTI_STATUS;
+    }
+
+    /**
+     * Chooses the status of an import response: "created" if every item was created, "bad request" if none was,
+     * or "multi-status" if only some were.
+     *
+     * @param result the import result.
+     * @return the status of the response.
+     */
+    static HttpStatus resolve(TodoImportResult result) {
+        return result.getFailed() == 0 ? HttpStatus.CREATED
+                : result.getImported() == 0 ? HttpStatus.BAD_REQUEST : HttpStatus.MULTI_STATUS;
+    }
+}
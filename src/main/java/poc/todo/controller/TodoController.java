@@ -1,20 +1,48 @@
 package poc.todo.controller;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import poc.todo.exception.NoTodoFoundException;
 import poc.todo.model.Todo;
+import poc.todo.model.TodoBatchResult;
+import poc.todo.model.TodoBulkFormat;
+import poc.todo.model.TodoChangePage;
+import poc.todo.model.TodoField;
+import poc.todo.model.TodoImportResult;
+import poc.todo.model.TodoPage;
+import poc.todo.service.TodoBulkTransfer;
+import poc.todo.service.TodoChangeTracker;
+import poc.todo.service.TodoEventBroker;
 import poc.todo.service.TodoServiceDao;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Controller for handling HTTP requests related to "Todo" resources.
+ * Replaced by {@link ReactiveTodoController} when the "reactive" profile is active.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/todos")
 public class TodoController {
 
@@ -25,10 +53,29 @@ public class TodoController {
     // Initialize the logger for this class
     private static final Logger logger = LoggerFactory.getLogger(TodoController.class);
 
+    // The media type of Smile, served by the Smile message converter of HttpFormatConfig
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
     // TodoService using DAO implementation
     @Autowired
     TodoServiceDao todoService;
 
+    @Autowired
+    TodoBulkTransfer bulkTransfer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    TodoChangeTracker changeTracker;
+
+    @Autowired
+    TodoEventBroker eventBroker;
+
+    // How long a change feed connection stays open before the client has to reconnect
+    @Value("${todo.events.stream-timeout:30m}")
+    Duration streamTimeout;
+
     /**
      * Endpoint to check the status of the service.
      *
@@ -36,34 +83,280 @@ public class TodoController {
      */
     @GetMapping("/info")
     public ResponseEntity<String> info() {
-        logger.info("Service status checked.");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Service status checked.");
+        }
         return ResponseEntity.ok("up");
     }
 
     /**
-     * Retrieves all Todo items.
+     * Retrieves all Todo items, or a single page of them when a cursor or limit is given,
+     * optionally only the completed or the open ones.
+     * The response carries the collection ETag; when If-None-Match names the current one,
+     * "not modified" is returned without querying the database.
+     * The full listing in JSON is written straight from the database cursor, like the export.
      *
-     * @return a ResponseEntity containing a list of all Todo items, or a "not found" response if the list is empty.
+     * @param after       the ID after which the page starts (optional, enables paging).
+     * @param limit       the maximum number of Todo items on the page (optional, enables paging).
+     * @param completed   the completion status to filter on (optional).
+     * @param fields      the comma-separated fields to return, e.g. "id,completed" (optional; the ID is always returned).
+     * @param ifNoneMatch the ETags the client already holds (optional).
+     * @param accept      the Accept header (optional).
+     * @param response    the response the full JSON listing is written to.
+     * @return a ResponseEntity containing a list of all Todo items, a page with its next cursor,
+     * a "not modified" response if nothing changed, or a "not found" response if the list is empty;
+     * null once the full listing has been written to the response.
+     * @throws IOException if writing the full listing fails.
      */
     @GetMapping
-    public ResponseEntity<List<Todo>> getAllTodos() {
-        logger.info("Fetching all Todo items.");
-        List<Todo> todos = todoService.getAllTodos();
-        logger.info("Fetched {} Todo items.", todos.size());
-        return ResponseEntity.ok(todos);
+    public ResponseEntity<?> getAllTodos(@RequestParam(name = "after", required = false) Long after,
+                                         @RequestParam(name = "limit", required = false) Integer limit,
+                                         @RequestParam(name = "completed", required = false) Boolean completed,
+                                         @RequestParam(name = "fields", required = false) String fields,
+                                         @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                         @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+                                         HttpServletResponse response) throws IOException {
+        Set<TodoField> selectedFields = TodoField.parse(fields); // Rejects unknown fields before anything else
+        String changeVersion = changeTracker.currentVersion(); // Read before querying, see TodoChangeTracker
+        String eTag = changeTracker.collectionETag(changeVersion);
+        if (changeTracker.collectionUnchanged(ifNoneMatch)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Todo items not modified since ETag {}.", eTag);
+            }
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        if (after != null || limit != null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Fetching a page of Todo items after ID: {}", after);
+            }
+            TodoPage page = selectedFields != null ? todoService.getTodoPage(after, limit, completed, selectedFields)
+                    : completed == null ? todoService.getTodoPage(after, limit) : todoService.getTodoPage(after, limit, completed);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(page);
+        }
+        if (selectedFields == null && completed == null && !acceptsBinaryFormat(accept)) {
+            writeAllTodos(response, eTag);
+            return null; // The response has been written
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching all Todo items with completed={}.", completed);
+        }
+        List<Todo> todos = selectedFields == null
+                ? completed == null ? todoService.getAllTodos() : todoService.getTodosByCompleted(completed)
+                : completed == null ? todoService.getAllTodos(selectedFields) : todoService.getTodosByCompleted(completed, selectedFields);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetched {} Todo items.", todos.size());
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(todos);
+    }
+
+    /**
+     * Writes all Todo items as a JSON array straight from the database cursor, with no Todo list in memory.
+     * The generator buffers what it writes, so nothing reaches the client before the first rows; when there
+     * are none, the buffered "[]" is dropped and "not found" is answered instead, as for the list.
+     *
+     * @param response the response to write to.
+     * @param eTag     the collection ETag of the listing.
+     * @throws IOException if writing fails.
+     * @throws NoTodoFoundException if there are no Todo items.
+     */
+    private void writeAllTodos(HttpServletResponse response, String eTag) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Writing all Todo items from the database cursor.");
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+        long count = todoService.writeAllTodos(generator);
+        if (count == 0) {
+            response.reset(); // Not committed yet: the 404 gets headers of its own
+            throw new NoTodoFoundException("No Todo items found.");
+        }
+        generator.close();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Wrote {} Todo items.", count);
+        }
+    }
+
+    /**
+     * Checks whether the Accept header names CBOR or Smile, which the listing leaves to the message converters.
+     *
+     * @param accept the Accept header, or null if absent.
+     * @return true if a binary format is acceptable.
+     */
+    private static boolean acceptsBinaryFormat(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream().anyMatch(mediaType -> !mediaType.isWildcardSubtype()
+                    && (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR) || mediaType.isCompatibleWith(APPLICATION_SMILE)));
+        } catch (InvalidMediaTypeException e) {
+            return true; // Left to the message converters, which reject it as for any other endpoint
+        }
+    }
+
+    /**
+     * Counts the Todo items, optionally only the completed or the open ones, without fetching them.
+     * Carries the collection ETag like the listing, so an unchanged count is answered with "not modified".
+     *
+     * @param completed   the completion status to filter on (optional).
+     * @param ifNoneMatch the ETags the client already holds (optional).
+     * @return a ResponseEntity containing the number of matching Todo items, or "not modified" if nothing changed.
+     */
+    @GetMapping("/count")
+    public ResponseEntity<Long> countTodos(@RequestParam(name = "completed", required = false) Boolean completed,
+                                           @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = changeTracker.collectionETag(changeTracker.currentVersion()); // Read before querying, see TodoChangeTracker
+        if (changeTracker.collectionUnchanged(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Counting Todo items with completed={}.", completed);
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(todoService.countTodos(completed));
+    }
+
+    /**
+     * Searches the Todo item descriptions with the full-text index, best matches first.
+     * Carries the collection ETag like the listing, so an unchanged result is answered with "not modified".
+     *
+     * @param q           the search text; all terms must match, and a term ending in "*" is a prefix.
+     * @param limit       the maximum number of results (optional).
+     * @param ifNoneMatch the ETags the client already holds (optional).
+     * @return a ResponseEntity containing the matching Todo items, possibly none, or "not modified" if nothing changed.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Todo>> searchTodos(@RequestParam(name = "q") String q,
+                                                  @RequestParam(name = "limit", required = false) Integer limit,
+                                                  @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = changeTracker.collectionETag(changeTracker.currentVersion()); // Read before querying, see TodoChangeTracker
+        if (changeTracker.collectionUnchanged(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Searching Todo items for: {}", q);
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(todoService.searchTodos(q, limit));
+    }
+
+    /**
+     * Retrieves the Todo items created, updated or deleted since the client's last sync, in change order.
+     * Deleted items are listed as tombstones. A client starts from 0 and keeps the returned "nextSince",
+     * asking again right away while "hasMore" is set.
+     *
+     * @param since the change sequence number of the last sync (optional, 0 lists all Todo items).
+     * @param limit the maximum number of changes to return (optional).
+     * @return a ResponseEntity containing the page of changes, or "gone" if changes after {@code since}
+     * have been compacted and the client has to reload all Todo items.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<TodoChangePage> getChanges(@RequestParam(name = "since", required = false) Long since,
+                                                     @RequestParam(name = "limit", required = false) Integer limit) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching Todo changes since sequence number: {}", since);
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(todoService.getChangesSince(since, limit));
+    }
+
+    /**
+     * Exports all Todo items written straight from the database cursor, so memory use stays constant
+     * regardless of the table size and no Todo object is created per row. The items are written as a JSON
+     * array, or as NDJSON or CSV when the "format" parameter or the Accept header asks for it.
+     *
+     * @param format the format to export, "json", "ndjson" or "csv" (optional; takes precedence over the Accept header).
+     * @param accept the Accept header (optional).
+     * @return a ResponseEntity whose body writes the Todo items as they are read.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTodos(@RequestParam(name = "format", required = false) String format,
+                                                             @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        TodoBulkFormat bulkFormat = TodoBulkFormat.negotiate(format, accept);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Exporting all Todo items as {}.", bulkFormat);
+        }
+        StreamingResponseBody body = outputStream -> bulkTransfer.exportTodos(outputStream, bulkFormat);
+        return ResponseEntity.ok().contentType(bulkFormat.getMediaType()).body(body);
+    }
+
+    /**
+     * Imports Todo items from a JSON array, NDJSON or CSV body, read one item at a time and created in batches.
+     * CSV starts with a header line naming the columns, e.g. "description,completed".
+     *
+     * @param contentType the media type of the body.
+     * @param body        the body, read as the import proceeds.
+     * @return a ResponseEntity with the counts and the rejected items by line: "created" if every item was
+     * created, "bad request" if none was, or "multi-status" if only some were.
+     * @throws IOException if reading the body fails.
+     */
+    @PostMapping(path = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<TodoImportResult> importTodos(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                        InputStream body) throws IOException {
+        TodoBulkFormat bulkFormat = TodoBulkFormat.of(contentType);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Importing Todo items as {}.", bulkFormat);
+        }
+        TodoImportResult result = bulkTransfer.importTodos(body, bulkFormat);
+        return ResponseEntity.status(TodoBatchStatus.resolve(result)).body(result);
+    }
+
+    /**
+     * Streams Todo changes as server-sent events: "created", "updated" and "deleted" events carrying the change,
+     * and "resync" when events were lost and the Todo items must be reloaded. A reconnecting client resumes
+     * after the event named in its Last-Event-ID header. The connection holds no request thread while open.
+     *
+     * @param lastEventId the ID of the last event the client received (optional).
+     * @return the emitter of the event stream.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Opening Todo change feed after event {}.", lastEventId);
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        TodoEventBroker.Subscription subscription = eventBroker.subscribe(new SseEmitterSink(emitter), lastEventId);
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
     }
 
     /**
      * Retrieves a specific Todo item by its ID.
+     * When If-None-Match names an ETag of this item issued since the last change, "not modified"
+     * is returned without querying the database.
      *
-     * @param id the ID of the Todo item to retrieve.
-     * @return a ResponseEntity containing the requested Todo item, or a "not found" response if not found.
+     * @param id          the ID of the Todo item to retrieve.
+     * @param fields      the comma-separated fields to return, e.g. "id,completed" (optional; the ID is always returned).
+     * @param ifNoneMatch the ETags the client already holds (optional).
+     * @return a ResponseEntity containing the requested Todo item with its ETag, a "not modified" response
+     * if nothing changed, or a "not found" response if not found.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Todo> getTodoById(@PathVariable("id") Long id) {
-        logger.info("Fetching Todo item with ID: {}", id);
-        Todo todo = todoService.getTodoById(id);
-        return ResponseEntity.ok(todo);
+    public ResponseEntity<Todo> getTodoById(@PathVariable("id") Long id,
+                                            @RequestParam(name = "fields", required = false) String fields,
+                                            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Set<TodoField> selectedFields = TodoField.parse(fields); // Rejects unknown fields before anything else
+        String changeVersion = changeTracker.currentVersion(); // Read before querying, see TodoChangeTracker
+        String unchangedETag = changeTracker.unchangedItemETag(id, ifNoneMatch);
+        if (unchangedETag != null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Todo item with ID {} not modified.", id);
+            }
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(unchangedETag).cacheControl(CacheControl.noCache()).build();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching Todo item with ID: {}", id);
+        }
+        if (selectedFields == null) {
+            Todo todo = todoService.getTodoById(id);
+            return ResponseEntity.ok().eTag(changeTracker.itemETag(todo, changeVersion)).cacheControl(CacheControl.noCache()).body(todo);
+        }
+        // The version is always read, as the ETag is derived from it, but only returned if it was asked for
+        Todo todo = todoService.getTodoById(id, TodoField.withVersion(selectedFields));
+        String eTag = changeTracker.itemETag(todo, changeVersion);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(TodoField.project(todo, selectedFields));
     }
 
     /**
@@ -74,37 +367,75 @@ public class TodoController {
      */
     @PostMapping
     public ResponseEntity<Todo> createTodo(@RequestBody Todo todo) {
-        logger.info("Creating a new Todo item.");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Creating a new Todo item.");
+        }
+        String changeVersion = changeTracker.currentVersion(); // Predates the change, so the ETag never claims a later state
         Todo createdTodo = todoService.createTodo(todo);
-        logger.info("Todo item created with ID: {}", createdTodo.getId());
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdTodo);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Todo item created with ID: {}", createdTodo.getId());
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(changeTracker.itemETag(createdTodo, changeVersion)).body(createdTodo);
+    }
+
+    /**
+     * Creates several Todo items in one request, written together in a single transaction.
+     *
+     * @param todos the Todo items to create, passed in the request body as a JSON array.
+     * @return a ResponseEntity with the per-item results: "created" if every item was created,
+     * "bad request" if none was, or "multi-status" if only some were.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<TodoBatchResult> createTodos(@RequestBody List<Todo> todos) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Creating a batch of {} Todo items.", todos.size());
+        }
+        TodoBatchResult result = todoService.createTodos(todos);
+        HttpStatus status = TodoBatchStatus.resolve(result);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Batch created {} Todo items, {} rejected.", result.getCreated(), result.getFailed());
+        }
+        return ResponseEntity.status(status).body(result);
     }
 
     /**
-     * Updates an existing Todo item by its ID.
+     * Updates the fields sent for an existing Todo item by its ID; fields left out keep their value.
      *
-     * @param id   the ID of the Todo item to update.
-     * @param todo the updated Todo information.
-     * @return a ResponseEntity containing the updated Todo item, or a "not found" response if the item doesn't exist.
+     * @param id      the ID of the Todo item to update.
+     * @param todo    the updated Todo information.
+     * @param ifMatch the ETag the Todo item must still have (optional).
+     * @return a ResponseEntity containing the updated Todo item with its new ETag, a "not found" response
+     * if the item doesn't exist, or "precondition failed" if it no longer matches the If-Match header.
      */
     @PatchMapping("/{id}")
-    public ResponseEntity<Todo> updateTodo(@PathVariable("id") Long id, @RequestBody Todo todo) {
-        logger.info("Updating Todo item with ID: {}", id);
-        Todo updatedTodo = todoService.updateTodo(id, todo);
-        return ResponseEntity.ok(updatedTodo);
+    public ResponseEntity<Todo> updateTodo(@PathVariable("id") Long id, @RequestBody Todo todo,
+                                           @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Updating Todo item with ID: {}", id);
+        }
+        String changeVersion = changeTracker.currentVersion(); // Predates the change, so the ETag never claims a later state
+        Todo updatedTodo = todoService.updateTodo(id, todo, TodoChangeTracker.expectedRowVersion(id, ifMatch));
+        return ResponseEntity.ok().eTag(changeTracker.itemETag(updatedTodo, changeVersion)).body(updatedTodo);
     }
 
     /**
      * Deletes a Todo item by its ID.
      *
-     * @param id the ID of the Todo item to delete.
-     * @return a ResponseEntity indicating success with "no content", or "not found" if the item doesn't exist.
+     * @param id      the ID of the Todo item to delete.
+     * @param ifMatch the ETag the Todo item must still have (optional).
+     * @return a ResponseEntity indicating success with "no content", "not found" if the item doesn't exist,
+     * or "precondition failed" if it no longer matches the If-Match header.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTodo(@PathVariable("id") Long id) {
-        logger.info("Deleting Todo item with ID: {}", id);
-        todoService.deleteTodoById(id);
-        logger.info("Todo item with ID {} deleted.", id);
+    public ResponseEntity<Void> deleteTodo(@PathVariable("id") Long id,
+                                           @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Deleting Todo item with ID: {}", id);
+        }
+        todoService.deleteTodoById(id, TodoChangeTracker.expectedRowVersion(id, ifMatch));
+        if (logger.isDebugEnabled()) {
+            logger.debug("Todo item with ID {} deleted.", id);
+        }
         return ResponseEntity.noContent().build();
     }
 }
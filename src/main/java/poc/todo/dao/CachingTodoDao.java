@@ -0,0 +1,205 @@
+package poc.todo.dao;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import poc.todo.model.Todo;
+import poc.todo.model.TodoChange;
+import poc.todo.model.TodoField;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * TodoDao decorator that serves {@link #findById(long)} from a bounded, expiring in-memory cache.
+ * <p>
+ * Loads go through the cache's atomic per-key load, and every mutation invalidates the key after the
+ * delegate has committed it. An invalidation waits for an in-flight load of the same key, so a reader that
+ * fetched the old row before a concurrent update cannot leave it behind in the cache.
+ * Cached items are copied on the way in and out because callers are free to modify the Todo they get.
+ * Lookups by ID with a field selection are projected from the cached item; list reads with a field
+ * selection go to the delegate, which can select fewer columns.
+ */
+public class CachingTodoDao implements TodoDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingTodoDao.class);
+
+    private final TodoDao delegate;
+    private final Cache<Long, Todo> cache;
+
+    /**
+     * Constructor for CachingTodoDao.
+     *
+     * @param delegate    the TodoDao holding the data.
+     * @param maximumSize the maximum number of Todo items kept in the cache.
+     * @param timeToLive  how long a cached Todo item is served before it is reloaded.
+     */
+    public CachingTodoDao(TodoDao delegate, long maximumSize, Duration timeToLive) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        logger.info("Todo cache enabled (maximum size {}, time to live {}).", maximumSize, timeToLive);
+    }
+
+    /**
+     * Gets the hit, miss and eviction counters of the cache.
+     *
+     * @return a snapshot of the cache statistics.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Gets the underlying Caffeine cache, e.g. for binding it to a metrics registry.
+     *
+     * @return the cache of Todo items by ID.
+     */
+    public Cache<Long, Todo> getCache() {
+        return cache;
+    }
+
+    @Override
+    public List<Todo> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Todo> findAll(Set<TodoField> fields) {
+        return delegate.findAll(fields);
+    }
+
+    @Override
+    public List<Todo> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<Todo> findPage(long afterId, int limit, Set<TodoField> fields) {
+        return delegate.findPage(afterId, limit, fields);
+    }
+
+    @Override
+    public List<Todo> findByCompleted(boolean completed) {
+        return delegate.findByCompleted(completed);
+    }
+
+    @Override
+    public List<Todo> findPageByCompleted(boolean completed, long afterId, int limit) {
+        return delegate.findPageByCompleted(completed, afterId, limit);
+    }
+
+    @Override
+    public List<Todo> findPageByCompleted(boolean completed, long afterId, int limit, Set<TodoField> fields) {
+        return delegate.findPageByCompleted(completed, afterId, limit, fields);
+    }
+
+    @Override
+    public long count(Boolean completed) {
+        return delegate.count(completed);
+    }
+
+    @Override
+    public List<Todo> search(String text, int limit) {
+        return delegate.search(text, limit);
+    }
+
+    @Override
+    public Stream<Todo> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public long writeAll(JsonGenerator generator) throws IOException {
+        return delegate.writeAll(generator);
+    }
+
+    /**
+     * Finds a Todo item by its ID, loading it from the delegate on a cache miss.
+     * Missing IDs are not cached.
+     *
+     * @param id the ID of the Todo item to find.
+     * @return a copy of the Todo item, or null if not found.
+     */
+    @Override
+    public Todo findById(long id) {
+        Todo cached = cache.get(id, key -> copy(delegate.findById(key)));
+        return copy(cached);
+    }
+
+    @Override
+    public List<TodoChange> findChangesSince(long since, int limit) {
+        return delegate.findChangesSince(since, limit);
+    }
+
+    @Override
+    public long getCompactedThrough() {
+        return delegate.getCompactedThrough();
+    }
+
+    @Override
+    public Todo save(Todo todo) {
+        Todo saved = delegate.save(todo);
+        cache.invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public List<Todo> saveAll(List<Todo> todos) {
+        List<Todo> saved = delegate.saveAll(todos);
+        saved.forEach(todo -> cache.invalidate(todo.getId()));
+        return saved;
+    }
+
+    @Override
+    public boolean deleteById(long id, Long expectedVersion) {
+        try {
+            return delegate.deleteById(id, expectedVersion);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return cache.getIfPresent(id) != null || delegate.existsById(id);
+    }
+
+    @Override
+    public List<Long> getMaxTodoId() {
+        return delegate.getMaxTodoId();
+    }
+
+    @Override
+    public Todo updateById(Todo todo) {
+        try {
+            return delegate.updateById(todo);
+        } finally {
+            cache.invalidate(todo.getId());
+        }
+    }
+
+    /**
+     * Creates a detached copy of a Todo item so cached state cannot be changed by callers.
+     */
+    private static Todo copy(Todo todo) {
+        if (todo == null) {
+            return null;
+        }
+        Todo copy = new Todo();
+        copy.setId(todo.getId());
+        copy.setDescription(todo.getDescription());
+        copy.setCompleted(todo.getCompleted());
+        copy.setVersion(todo.getVersion());
+        return copy;
+    }
+}
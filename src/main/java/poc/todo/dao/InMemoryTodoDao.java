@@ -0,0 +1,477 @@
+package poc.todo.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+import poc.todo.model.Todo;
+import poc.todo.model.TodoChange;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * TodoDao implementation that keeps every Todo item in memory, in a {@link LongTodoMap}.
+ * <p>
+ * All reads are served from memory. The data is loaded from the SQLite Todo table at startup and written
+ * back by periodic snapshots, which only touch the IDs changed since the previous snapshot; a final
+ * snapshot is taken on shutdown. Changes made after the last snapshot are lost if the process dies,
+ * so the snapshot interval is the window of possible data loss.
+ * <p>
+ * Snapshots stamp the rows they write with change sequence numbers and turn deletions into tombstones, like
+ * {@link TodoDaoImpl}, and the delta feed is read from the table. A change therefore shows up in the feed once
+ * the snapshot holding it has been written, at most one snapshot interval late but never out of order.
+ * <p>
+ * Filtered listings scan the map, while the number of completed Todo items is maintained on every write,
+ * so counts take constant time. Searches use the full-text index of the snapshotted table to find and rank
+ * the IDs, and return the current in-memory Todo items; text changed since the last snapshot is not yet found.
+ * <p>
+ * Memory per Todo item is one slot in each of the map's arrays (8 + 4 + 1 + 8 bytes with compressed oops)
+ * divided by the 0.3 to 0.6 load factor, i.e. about 35 to 70 bytes, plus the description String itself.
+ */
+public class InMemoryTodoDao implements TodoDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryTodoDao.class);
+
+    private final JdbcOperations jdbcOperations;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongTodoMap todos = new LongTodoMap(1024);
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ScheduledExecutorService snapshotExecutor;
+    private final ReentrantLock snapshotLock = new ReentrantLock(); // Keeps snapshots from overtaking each other
+
+    private long[] dirtyIds = new long[64]; // IDs changed since the last snapshot, guarded by the write lock
+    private int dirtyCount;
+    private int completedCount; // Number of completed Todo items, guarded by the write lock
+
+    /**
+     * RowMapper for mapping snapshotted rows, tombstones included, to entries of the delta feed.
+     */
+    private final RowMapper<TodoChange> changeRowMapper = (rs, rowNum) -> {
+        Todo todo = null;
+        if (!rs.getBoolean("deleted")) {
+            todo = new Todo();
+            todo.setId(rs.getLong("id"));
+            todo.setDescription(rs.getString("description"));
+            todo.setCompleted(rs.getBoolean("completed"));
+            todo.setVersion(rs.getLong("version"));
+        }
+        return new TodoChange(rs.getLong("change_seq"), rs.getLong("id"), todo == null, todo);
+    };
+
+    /**
+     * Constructor for InMemoryTodoDao, loading all Todo items and scheduling periodic snapshots.
+     *
+     * @param jdbcOperations      the JDBC operations used to load and snapshot the Todo table.
+     * @param transactionTemplate the transaction template each snapshot runs in.
+     * @param snapshotInterval    how often changes are written back to the database.
+     */
+    public InMemoryTodoDao(JdbcOperations jdbcOperations, TransactionTemplate transactionTemplate, Duration snapshotInterval) {
+        this.jdbcOperations = jdbcOperations;
+        this.transactionTemplate = transactionTemplate;
+        load();
+        this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "todo-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = snapshotInterval.toMillis();
+        snapshotExecutor.scheduleWithFixedDelay(this::snapshotQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<Todo> findAll() {
+        lock.readLock().lock();
+        try {
+            long[] ids = todos.sortedKeys();
+            List<Todo> result = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                result.add(todos.get(id));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a page of Todo items ordered by ID.
+     * IDs are allocated densely, so the page is found by probing the IDs following the cursor;
+     * when the remaining ID range is larger than the table, the sorted keys are used instead.
+     */
+    @Override
+    public List<Todo> findPage(long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Todo> page = new ArrayList<>(Math.min(limit, todos.size()));
+            long maxId = nextId.get() - 1;
+            if (maxId - afterId <= (long) todos.capacity()) {
+                for (long id = afterId + 1; id <= maxId && page.size() < limit; id++) {
+                    Todo todo = todos.get(id);
+                    if (todo != null) {
+                        page.add(todo);
+                    }
+                }
+            } else {
+                long[] ids = todos.sortedKeys();
+                int start = Arrays.binarySearch(ids, afterId);
+                start = start >= 0 ? start + 1 : -start - 1;
+                for (int i = start; i < ids.length && page.size() < limit; i++) {
+                    page.add(todos.get(ids[i]));
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Todo> findByCompleted(boolean completed) {
+        return findPageByCompleted(completed, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds a page of Todo items with the given completion status by scanning the sorted keys after the cursor.
+     */
+    @Override
+    public List<Todo> findPageByCompleted(boolean completed, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            long[] ids = todos.sortedKeys();
+            int start = Arrays.binarySearch(ids, afterId);
+            start = start >= 0 ? start + 1 : -start - 1;
+            List<Todo> page = new ArrayList<>(Math.min(limit, ids.length - start));
+            for (int i = start; i < ids.length && page.size() < limit; i++) {
+                Todo todo = todos.get(ids[i]);
+                if (todo.getCompleted() == completed) {
+                    page.add(todo);
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Todo> search(String text, int limit) {
+        String match = TodoSearchQuery.toMatchExpression(text);
+        if (match == null || limit < 1) {
+            return List.of();
+        }
+        // The index holds the snapshot, so matches deleted since then are skipped and more are read in their place
+        int pageSize = limit + pendingChanges();
+        List<Todo> found = new ArrayList<>(limit);
+        for (int offset = 0; ; offset += pageSize) {
+            List<Long> ids = jdbcOperations.queryForList(Queries.QUERY_SEARCH_IDS, Long.class, match, pageSize, offset);
+            for (long id : ids) {
+                Todo todo = findById(id);
+                if (todo != null) {
+                    found.add(todo);
+                    if (found.size() == limit) {
+                        return found;
+                    }
+                }
+            }
+            if (ids.size() < pageSize) {
+                return found;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of changes made since the last snapshot, which bounds the search matches that are stale.
+     *
+     * @return the number of changed IDs, counted once per change.
+     */
+    private int pendingChanges() {
+        lock.readLock().lock();
+        try {
+            return dirtyCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count(Boolean completed) {
+        lock.readLock().lock();
+        try {
+            if (completed == null) {
+                return todos.size();
+            }
+            return completed ? completedCount : todos.size() - completedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Streams all Todo items in ID order, looking each one up lazily so only the ID array is copied.
+     */
+    @Override
+    public Stream<Todo> streamAll() {
+        long[] ids;
+        lock.readLock().lock();
+        try {
+            ids = todos.sortedKeys();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Arrays.stream(ids).mapToObj(this::findById).filter(Objects::nonNull);
+    }
+
+    /**
+     * Finds the changes written to the database by the snapshots so far.
+     */
+    @Override
+    public List<TodoChange> findChangesSince(long since, int limit) {
+        return jdbcOperations.query(Queries.QUERY_FETCH_CHANGES, changeRowMapper, since, limit);
+    }
+
+    @Override
+    public long getCompactedThrough() {
+        Long compactedThrough = jdbcOperations.queryForObject(Queries.QUERY_COMPACTED_THROUGH, Long.class);
+        return compactedThrough == null ? 0 : compactedThrough;
+    }
+
+    @Override
+    public Todo findById(long id) {
+        lock.readLock().lock();
+        try {
+            return todos.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Todo save(Todo todo) {
+        lock.writeLock().lock();
+        try {
+            insert(todo);
+            return todo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Todo> saveAll(List<Todo> todosToSave) {
+        lock.writeLock().lock();
+        try {
+            todosToSave.forEach(this::insert);
+            return todosToSave;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteById(long id, Long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            Todo current = todos.get(id);
+            if (current == null || (expectedVersion != null && !expectedVersion.equals(current.getVersion()))) {
+                return false;
+            }
+            todos.remove(id);
+            if (current.getCompleted()) {
+                completedCount--;
+            }
+            markDirty(id);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        lock.readLock().lock();
+        try {
+            return todos.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the highest ID assigned so far, which IDs of deleted Todo items may exceed.
+     */
+    @Override
+    public List<Long> getMaxTodoId() {
+        return List.of(nextId.get() - 1);
+    }
+
+    @Override
+    public Todo updateById(Todo todo) {
+        lock.writeLock().lock();
+        try {
+            Todo current = todos.get(todo.getId());
+            if (current == null || (todo.getVersion() != null && !todo.getVersion().equals(current.getVersion()))) {
+                return null;
+            }
+            if (todo.getDescription() != null) {
+                current.setDescription(todo.getDescription());
+            }
+            if (todo.getCompleted() != null && !todo.getCompleted().equals(current.getCompleted())) {
+                completedCount += todo.getCompleted() ? 1 : -1;
+                current.setCompleted(todo.getCompleted());
+            }
+            current.setVersion(current.getVersion() + 1);
+            todos.put(current.getId(), current.getDescription(), current.getCompleted(), current.getVersion());
+            markDirty(current.getId());
+            return current;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes every Todo item changed since the previous snapshot to the database in one transaction.
+     * If the write fails, the changed IDs are kept for the next attempt.
+     */
+    public void snapshot() {
+        snapshotLock.lock();
+        try {
+            writeSnapshot();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the periodic snapshots and writes the remaining changes.
+     */
+    public void close() throws InterruptedException {
+        snapshotExecutor.shutdown();
+        snapshotExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        snapshot();
+    }
+
+    private void writeSnapshot() {
+        long[] ids;
+        Todo[] states;
+        lock.writeLock().lock();
+        try {
+            ids = Arrays.stream(dirtyIds, 0, dirtyCount).sorted().distinct().toArray();
+            dirtyCount = 0;
+            states = new Todo[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                states[i] = todos.get(ids[i]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (ids.length == 0) {
+            return;
+        }
+
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        long deletedAt = System.currentTimeMillis();
+        for (int i = 0; i < ids.length; i++) {
+            if (states[i] != null) {
+                upserts.add(new Object[]{ids[i], states[i].getDescription(), states[i].getCompleted(), states[i].getVersion()});
+            } else {
+                deletes.add(new Object[]{deletedAt, ids[i]});
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcOperations.batchUpdate(Queries.QUERY_UPSERT_Todo, upserts);
+                jdbcOperations.batchUpdate(Queries.QUERY_DELETE_BY_ID, deletes);
+            });
+            logger.info("Snapshot wrote {} changed and {} deleted Todo items.", upserts.size(), deletes.size());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                for (long id : ids) {
+                    markDirty(id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            logger.error("Snapshot of Todo items failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void load() {
+        lock.writeLock().lock();
+        try {
+            jdbcOperations.query(Queries.QUERY_FETCH_ALL, (RowCallbackHandler) rs -> {
+                long id = rs.getLong("id");
+                boolean completed = rs.getBoolean("completed");
+                todos.put(id, rs.getString("description"), completed, rs.getLong("version"));
+                if (completed) {
+                    completedCount++;
+                }
+            });
+            // Tombstones keep their IDs, so a new Todo item must not take the ID of a deleted one
+            Long maxId = jdbcOperations.queryForObject(Queries.QUERY_MAX_ID, Long.class);
+            nextId.set(maxId == null ? 1 : maxId + 1);
+            logger.info("Loaded {} Todo items into memory.", todos.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(Todo todo) {
+        long id = nextId.getAndIncrement();
+        todo.setId(id);
+        todo.setVersion(0L);
+        boolean completed = Boolean.TRUE.equals(todo.getCompleted());
+        todos.put(id, todo.getDescription(), completed, 0L);
+        if (completed) {
+            completedCount++;
+        }
+        markDirty(id);
+    }
+
+    private void markDirty(long id) {
+        if (dirtyCount == dirtyIds.length) {
+            dirtyIds = Arrays.copyOf(dirtyIds, dirtyCount * 2);
+        }
+        dirtyIds[dirtyCount++] = id;
+    }
+
+    /**
+     * Defines SQL queries used by the InMemoryTodoDao.
+     */
+    interface Queries {
+        String NEXT_CHANGE_SEQ = "(SELECT COALESCE(MAX(CHANGE_SEQ), 0) + 1 FROM Todo)"; // Next change sequence number, read under the write lock.
+        String QUERY_FETCH_ALL = "SELECT ID, DESCRIPTION, COMPLETED, VERSION FROM Todo WHERE DELETED = 0"; // Load all Todo items.
+        String QUERY_MAX_ID = "SELECT MAX(ID) FROM Todo"; // Get the maximum ID, tombstones included.
+        String QUERY_UPSERT_Todo = "INSERT INTO Todo (ID, DESCRIPTION, COMPLETED, VERSION, CHANGE_SEQ) VALUES (?,?,?,?," + NEXT_CHANGE_SEQ + ") "
+                + "ON CONFLICT(ID) DO UPDATE SET DESCRIPTION = excluded.DESCRIPTION, COMPLETED = excluded.COMPLETED, "
+                + "VERSION = excluded.VERSION, CHANGE_SEQ = excluded.CHANGE_SEQ, DELETED = 0, DELETED_AT = NULL"; // Write a changed Todo, reviving its row if it was a tombstone.
+        String QUERY_DELETE_BY_ID = "UPDATE Todo SET DELETED = 1, DELETED_AT = ?, DESCRIPTION = NULL, VERSION = VERSION + 1, CHANGE_SEQ = "
+                + NEXT_CHANGE_SEQ + " WHERE ID = ? AND DELETED = 0"; // Turn a deleted Todo into a tombstone.
+        String QUERY_FETCH_CHANGES = "SELECT * FROM Todo WHERE CHANGE_SEQ > ? ORDER BY CHANGE_SEQ LIMIT ?"; // Fetch the snapshotted changes after a sequence number.
+        String QUERY_SEARCH_IDS = "SELECT rowid FROM TodoSearch WHERE TodoSearch MATCH ? ORDER BY rank LIMIT ? OFFSET ?"; // Search the snapshotted descriptions, best bm25 rank first.
+        String QUERY_COMPACTED_THROUGH = "SELECT COMPACTED_THROUGH FROM TodoSyncState WHERE ID = 1"; // Get the compaction horizon.
+    }
+}
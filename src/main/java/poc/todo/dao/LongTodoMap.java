@@ -0,0 +1,215 @@
+package poc.todo.dao;
+
+import poc.todo.model.Todo;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive long Todo IDs to Todo fields.
+ * <p>
+ * Keys, descriptions, completion flags and versions live in four parallel arrays, so an entry costs one slot in each
+ * array and there are no boxed keys or per-entry node objects. Collisions are resolved with linear probing
+ * and removals use backward-shift deletion, which keeps probe sequences short without tombstones.
+ * ID 0 marks an empty slot and cannot be stored.
+ * <p>
+ * Not thread-safe; callers must synchronize access.
+ */
+final class LongTodoMap {
+
+    private static final long EMPTY = 0L;
+    private static final double LOAD_FACTOR = 0.6;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private String[] descriptions;
+    private boolean[] completed;
+    private long[] versions;
+    private int mask;
+    private int shift;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * Constructor for LongTodoMap.
+     *
+     * @param expectedSize the number of entries the map should hold without resizing.
+     */
+    LongTodoMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return the number of entries.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of slots currently allocated.
+     *
+     * @return the table capacity.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Checks whether the map contains the given key.
+     *
+     * @param key the Todo ID.
+     * @return true if the key is present.
+     */
+    boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Gets the entry for the given key as a new Todo object.
+     *
+     * @param key the Todo ID.
+     * @return a Todo built from the stored fields, or null if the key is absent.
+     */
+    Todo get(long key) {
+        int slot = indexOf(key);
+        return slot < 0 ? null : toTodo(slot);
+    }
+
+    /**
+     * Inserts or replaces the entry for the given key.
+     *
+     * @param key         the Todo ID, which must not be 0.
+     * @param description the description of the Todo item.
+     * @param isCompleted whether the Todo item is completed.
+     * @param version     the version of the Todo item.
+     */
+    void put(long key, String description, boolean isCompleted, long version) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Todo ID 0 cannot be stored.");
+        }
+        int slot = slotFor(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                descriptions[slot] = description;
+                completed[slot] = isCompleted;
+                versions[slot] = version;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        descriptions[slot] = description;
+        completed[slot] = isCompleted;
+        versions[slot] = version;
+        if (++size > resizeAt) {
+            allocate(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the entry for the given key, shifting later entries of its probe sequence back into the gap.
+     *
+     * @param key the Todo ID.
+     * @return true if an entry was removed.
+     */
+    boolean remove(long key) {
+        int gap = indexOf(key);
+        if (gap < 0) {
+            return false;
+        }
+        int slot = (gap + 1) & mask;
+        while (keys[slot] != EMPTY) {
+            int home = slotFor(keys[slot]);
+            // Move the entry back if the gap lies between its home slot and its current slot
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                descriptions[gap] = descriptions[slot];
+                completed[gap] = completed[slot];
+                versions[gap] = versions[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        descriptions[gap] = null;
+        completed[gap] = false;
+        versions[gap] = 0;
+        size--;
+        return true;
+    }
+
+    /**
+     * Gets all keys in ascending order.
+     *
+     * @return a new sorted array of the keys.
+     */
+    long[] sortedKeys() {
+        long[] result = new long[size];
+        int i = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[i++] = key;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private Todo toTodo(int slot) {
+        Todo todo = new Todo();
+        todo.setId(keys[slot]);
+        todo.setDescription(descriptions[slot]);
+        todo.setCompleted(completed[slot]);
+        todo.setVersion(versions[slot]);
+        return todo;
+    }
+
+    private int indexOf(long key) {
+        if (key == EMPTY) {
+            return -1;
+        }
+        int slot = slotFor(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slotFor(long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 8) / LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private void allocate(int capacity) {
+        long[] oldKeys = keys;
+        String[] oldDescriptions = descriptions;
+        boolean[] oldCompleted = completed;
+        long[] oldVersions = versions;
+
+        keys = new long[capacity];
+        descriptions = new String[capacity];
+        completed = new boolean[capacity];
+        versions = new long[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+        size = 0;
+
+        if (oldKeys != null) {
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldDescriptions[i], oldCompleted[i], oldVersions[i]);
+                }
+            }
+        }
+    }
+}
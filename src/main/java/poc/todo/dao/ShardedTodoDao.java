@@ -0,0 +1,418 @@
+package poc.todo.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import poc.todo.exception.TodoChangesUnavailableException;
+import poc.todo.logging.RequestStats;
+import poc.todo.metrics.TodoMetrics;
+import poc.todo.model.Todo;
+import poc.todo.model.TodoChange;
+import poc.todo.model.TodoField;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * TodoDao engine spreading the Todo items over several SQLite files ("shards") by a hash of their ID.
+ * <p>
+ * SQLite lets one writer at a time into a database file, so a single file serializes every write however many
+ * cores the service has. Each shard is a database of its own, with its own connections and write lock, so writes
+ * to different shards run in parallel. Operations on one Todo item go to the shard its ID hashes to; listings and
+ * counts ask all shards in parallel and merge the results in ID order.
+ * <p>
+ * IDs stay unique across the shards because they all come from one {@link TodoIdAllocator}, which reserves its
+ * blocks in the first shard; an ID is allocated before the shard is chosen. Every shard records the shard count
+ * it was created for, and a mismatch fails startup, as Todo items would otherwise be looked up in the wrong file.
+ * <p>
+ * A batch spanning several shards is committed per shard, so it is atomic only within each one. The delta feed
+ * is not offered: every shard numbers its changes on its own, and no single sequence orders them all.
+ */
+public class ShardedTodoDao implements TodoDao, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedTodoDao.class);
+
+    private final List<DataSource> dataSources;
+    private final List<TodoDaoImpl> shards;
+    private final TodoIdAllocator idAllocator;
+    private final ExecutorService fanOutExecutor;
+
+    /**
+     * Constructor for ShardedTodoDao, creating or migrating the schema of every shard.
+     *
+     * @param dataSources   the DataSources of the shards, one database file each, in shard order.
+     * @param idBlockSize   the number of IDs reserved per database round trip.
+     * @param fanOutThreads the number of threads querying the shards in parallel.
+     * @param metrics       the metrics the statement timers are registered with.
+     * @param dbLimiter     the limiter of concurrent statements, shared by all shards.
+     * @throws IllegalStateException if a shard was created for a different number of shards.
+     */
+    public ShardedTodoDao(List<DataSource> dataSources, int idBlockSize, int fanOutThreads,
+                          TodoMetrics metrics, TodoDbConcurrencyLimiter dbLimiter) {
+        if (dataSources.isEmpty() || fanOutThreads < 1) {
+            throw new IllegalArgumentException("A sharded TodoDao needs at least one shard and one fan-out thread");
+        }
+        this.dataSources = List.copyOf(dataSources);
+        List<JdbcTemplate> jdbcTemplates = dataSources.stream().map(JdbcTemplate::new).toList();
+        this.idAllocator = new TodoIdAllocator(jdbcTemplates.get(0), idBlockSize);
+        List<TodoDaoImpl> daos = new ArrayList<>(dataSources.size());
+        for (int shard = 0; shard < dataSources.size(); shard++) {
+            JdbcTemplate jdbcTemplate = jdbcTemplates.get(shard);
+            new TodoSchema(jdbcTemplate).migrate();
+            checkLayout(jdbcTemplate, shard, dataSources.size());
+            daos.add(new TodoDaoImpl(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSources.get(shard))),
+                    idAllocator, metrics, dbLimiter));
+        }
+        this.shards = List.copyOf(daos);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanOutExecutor = Executors.newFixedThreadPool(fanOutThreads, runnable -> {
+            Thread thread = new Thread(runnable, "todo-shard-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Todo items are spread over {} SQLite shards.", shards.size());
+    }
+
+    /**
+     * Records the shard layout in a shard on its first start, and checks it on every later one.
+     */
+    private static void checkLayout(JdbcTemplate jdbcTemplate, int shard, int shardCount) {
+        jdbcTemplate.update(Queries.QUERY_INIT_LAYOUT, "shard_index", shard);
+        jdbcTemplate.update(Queries.QUERY_INIT_LAYOUT, "shard_count", shardCount);
+        Long index = jdbcTemplate.queryForObject(Queries.QUERY_LAYOUT, Long.class, "shard_index");
+        Long count = jdbcTemplate.queryForObject(Queries.QUERY_LAYOUT, Long.class, "shard_count");
+        if (index == null || index != shard || count == null || count != shardCount) {
+            throw new IllegalStateException("Todo shard " + shard + " of " + shardCount + " was created as shard "
+                    + index + " of " + count + "; changing the number or order of shards is not supported");
+        }
+    }
+
+    /**
+     * Chooses the shard of a Todo item from its ID. The ID is scrambled first (the 64-bit finalizer of
+     * MurmurHash3), so consecutive IDs from one allocator block spread evenly over the shards.
+     *
+     * @param id         the ID of the Todo item.
+     * @param shardCount the number of shards.
+     * @return the index of the shard, from 0 to shardCount - 1.
+     */
+    static int shardOf(long id, int shardCount) {
+        long hash = id;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) Long.remainderUnsigned(hash, shardCount);
+    }
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return the number of shards.
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public List<Todo> findAll() {
+        return findPage(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Todo> findAll(Set<TodoField> fields) {
+        return findPage(0, Integer.MAX_VALUE, fields);
+    }
+
+    @Override
+    public List<Todo> findPage(long afterId, int limit) {
+        return mergeById(fanOut(shard -> shard.findPage(afterId, limit)), limit);
+    }
+
+    @Override
+    public List<Todo> findPage(long afterId, int limit, Set<TodoField> fields) {
+        return mergeById(fanOut(shard -> shard.findPage(afterId, limit, fields)), limit);
+    }
+
+    @Override
+    public List<Todo> findByCompleted(boolean completed) {
+        return findPageByCompleted(completed, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Todo> findPageByCompleted(boolean completed, long afterId, int limit) {
+        return mergeById(fanOut(shard -> shard.findPageByCompleted(completed, afterId, limit)), limit);
+    }
+
+    @Override
+    public List<Todo> findPageByCompleted(boolean completed, long afterId, int limit, Set<TodoField> fields) {
+        return mergeById(fanOut(shard -> shard.findPageByCompleted(completed, afterId, limit, fields)), limit);
+    }
+
+    @Override
+    public long count(Boolean completed) {
+        return fanOut(shard -> shard.count(completed)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Searches every shard and keeps the best matches overall. The bm25 ranks are computed per shard, from that
+     * shard's own term statistics; with Todo items spread by a hash the shards are alike enough to compare them.
+     *
+     * @param text  the search text, see {@link TodoSearchQuery}.
+     * @param limit the maximum number of Todo items to return.
+     * @return a list of the best matching Todo items, best first.
+     */
+    @Override
+    public List<Todo> search(String text, int limit) {
+        return fanOut(shard -> shard.searchRanked(text, limit)).stream()
+                .flatMap(List::stream)
+                .sorted(Map.Entry.comparingByValue())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Streams the Todo items of one shard after the other, so only one connection is held at a time.
+     * Unlike the listings, the stream is not in ID order.
+     *
+     * @return a stream of Todo items which must be closed to release the connection.
+     */
+    @Override
+    public Stream<Todo> streamAll() {
+        return shards.stream().flatMap(TodoDaoImpl::streamAll);
+    }
+
+    @Override
+    public Todo findById(long id) {
+        return shardFor(id).findById(id);
+    }
+
+    @Override
+    public Todo findById(long id, Set<TodoField> fields) {
+        return shardFor(id).findById(id, fields);
+    }
+
+    /**
+     * Saves a new Todo item in the shard of the ID allocated for it.
+     *
+     * @param todo the Todo item to save.
+     * @return the saved Todo item with the new ID.
+     */
+    @Override
+    public Todo save(Todo todo) {
+        todo.setId(idAllocator.nextId());
+        return shardFor(todo.getId()).insert(todo);
+    }
+
+    /**
+     * Saves several new Todo items, inserting the part of the batch that belongs to each shard in parallel,
+     * with one transaction per shard.
+     *
+     * @param todos the Todo items to save.
+     * @return the saved Todo items with their new IDs, in the order given.
+     */
+    @Override
+    public List<Todo> saveAll(List<Todo> todos) {
+        Map<TodoDaoImpl, List<Todo>> byShard = new HashMap<>();
+        for (Todo todo : todos) {
+            todo.setId(idAllocator.nextId());
+            byShard.computeIfAbsent(shardFor(todo.getId()), shard -> new ArrayList<>()).add(todo);
+        }
+        fanOut(byShard.keySet().stream().toList(), shard -> shard.insertAll(byShard.get(shard)));
+        return todos;
+    }
+
+    /**
+     * Not available: the shards number their changes independently, so there is no single sequence to resume from.
+     *
+     * @throws TodoChangesUnavailableException always.
+     */
+    @Override
+    public List<TodoChange> findChangesSince(long since, int limit) {
+        throw new TodoChangesUnavailableException("The delta feed is not available with the sharded storage engine.");
+    }
+
+    @Override
+    public long getCompactedThrough() {
+        return 0;
+    }
+
+    @Override
+    public boolean deleteById(long id, Long expectedVersion) {
+        return shardFor(id).deleteById(id, expectedVersion);
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return shardFor(id).existsById(id);
+    }
+
+    @Override
+    public List<Long> getMaxTodoId() {
+        return fanOut(TodoDaoImpl::getMaxTodoId).stream()
+                .flatMap(List::stream)
+                .max(Long::compare)
+                .map(List::of)
+                .orElse(List.of());
+    }
+
+    @Override
+    public Todo updateById(Todo todo) {
+        return shardFor(todo.getId()).updateById(todo);
+    }
+
+    /**
+     * Removes expired tombstones from every shard, see {@link TodoDaoImpl#compactTombstones(long)}.
+     *
+     * @param deletedBefore the deletion time, in epoch milliseconds, before which tombstones are removed.
+     * @return the number of tombstones removed.
+     */
+    public int compactTombstones(long deletedBefore) {
+        return fanOut(shard -> shard.compactTombstones(deletedBefore)).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Rebuilds the full-text search index of every shard, see {@link TodoDaoImpl#rebuildSearchIndex()}.
+     */
+    public void rebuildSearchIndex() {
+        fanOut(shard -> {
+            shard.rebuildSearchIndex();
+            return null;
+        });
+    }
+
+    /**
+     * Stops the fan-out threads and closes the connection pools of the shards.
+     *
+     * @throws Exception if a connection pool cannot be closed.
+     */
+    @Override
+    public void close() throws Exception {
+        fanOutExecutor.shutdownNow();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private TodoDaoImpl shardFor(long id) {
+        return shards.get(shardOf(id, shards.size()));
+    }
+
+    private <T> List<T> fanOut(Function<TodoDaoImpl, T> operation) {
+        return fanOut(shards, operation);
+    }
+
+    /**
+     * Runs an operation on several shards in parallel: on the fan-out threads for all but the first shard,
+     * which the calling thread handles itself. The rows and database time of the other threads are added
+     * to the calling thread's {@link RequestStats}.
+     *
+     * @return the results in the order of the shards.
+     */
+    private <T> List<T> fanOut(List<TodoDaoImpl> targets, Function<TodoDaoImpl, T> operation) {
+        if (targets.size() == 1) {
+            return List.of(operation.apply(targets.get(0)));
+        }
+        List<CompletableFuture<ShardResult<T>>> others = new ArrayList<>(targets.size() - 1);
+        for (TodoDaoImpl shard : targets.subList(1, targets.size())) {
+            others.add(CompletableFuture.supplyAsync(() -> {
+                RequestStats stats = RequestStats.reset();
+                T result = operation.apply(shard);
+                return new ShardResult<>(result, stats.getRows(), stats.getDbNanos());
+            }, fanOutExecutor));
+        }
+        List<T> results = new ArrayList<>(targets.size());
+        results.add(operation.apply(targets.get(0)));
+        RequestStats stats = RequestStats.current();
+        for (CompletableFuture<ShardResult<T>> future : others) {
+            ShardResult<T> shardResult;
+            try {
+                shardResult = future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+            stats.addRows(shardResult.rows());
+            stats.addDbTime(shardResult.dbNanos());
+            results.add(shardResult.result());
+        }
+        return results;
+    }
+
+    /**
+     * Merges lists of Todo items ordered by ID into one list ordered by ID, up to a limit.
+     *
+     * @param lists the lists, each ordered by ID.
+     * @param limit the maximum number of Todo items to return.
+     * @return the merged list.
+     */
+    static List<Todo> mergeById(List<List<Todo>> lists, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Comparator.comparingLong(Cursor::headId));
+        int total = 0;
+        for (List<Todo> list : lists) {
+            total += list.size();
+            if (!list.isEmpty()) {
+                heads.add(new Cursor(list));
+            }
+        }
+        List<Todo> merged = new ArrayList<>(Math.min(total, limit));
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            merged.add(cursor.list.get(cursor.index++));
+            if (cursor.index < cursor.list.size()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Position in one of the lists being merged.
+     */
+    private static final class Cursor {
+        final List<Todo> list;
+        int index;
+
+        Cursor(List<Todo> list) {
+            this.list = list;
+        }
+
+        long headId() {
+            return list.get(index).getId();
+        }
+    }
+
+    /**
+     * Result of an operation run on a fan-out thread, with the work it did for the request.
+     */
+    private record ShardResult<T>(T result, long rows, long dbNanos) {
+    }
+
+    /**
+     * Defines SQL queries used by the ShardedTodoDao.
+     */
+    interface Queries {
+        String QUERY_INIT_LAYOUT = "INSERT OR IGNORE INTO todo_meta (name, value) VALUES (?, ?)"; // Record a shard layout setting on first start.
+        String QUERY_LAYOUT = "SELECT value FROM todo_meta WHERE name = ?"; // Read a shard layout setting.
+    }
+}
@@ -1,8 +1,16 @@
 package poc.todo.dao;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import poc.todo.model.Todo;
+import poc.todo.model.TodoChange;
+import poc.todo.model.TodoField;
+import poc.todo.model.TodoJson;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object (DAO) interface for managing "Todo" entities.
@@ -17,6 +25,116 @@ public interface TodoDao {
      */
     List<Todo> findAll();
 
+    /**
+     * Finds all Todo items, with only the selected fields populated.
+     * The default implementation loads the complete items and copies the selected fields.
+     *
+     * @param fields the fields to populate, or null for all fields.
+     * @return a list of all Todo items.
+     */
+    default List<Todo> findAll(Set<TodoField> fields) {
+        return TodoField.project(findAll(), fields);
+    }
+
+    /**
+     * Finds a page of Todo items ordered by ID, starting after the given cursor.
+     *
+     * @param afterId the ID after which the page starts (exclusive); use 0 for the first page.
+     * @param limit   the maximum number of Todo items to return.
+     * @return a list of at most {@code limit} Todo items with IDs greater than {@code afterId}.
+     */
+    List<Todo> findPage(long afterId, int limit);
+
+    /**
+     * Finds a page of Todo items ordered by ID, with only the selected fields populated.
+     *
+     * @param afterId the ID after which the page starts (exclusive); use 0 for the first page.
+     * @param limit   the maximum number of Todo items to return.
+     * @param fields  the fields to populate, or null for all fields.
+     * @return a list of at most {@code limit} Todo items with IDs greater than {@code afterId}.
+     */
+    default List<Todo> findPage(long afterId, int limit, Set<TodoField> fields) {
+        return TodoField.project(findPage(afterId, limit), fields);
+    }
+
+    /**
+     * Finds all Todo items with the given completion status, ordered by ID.
+     *
+     * @param completed the completion status to filter on.
+     * @return a list of the matching Todo items.
+     */
+    List<Todo> findByCompleted(boolean completed);
+
+    /**
+     * Finds a page of Todo items with the given completion status, ordered by ID, starting after the given cursor.
+     *
+     * @param completed the completion status to filter on.
+     * @param afterId   the ID after which the page starts (exclusive); use 0 for the first page.
+     * @param limit     the maximum number of Todo items to return.
+     * @return a list of at most {@code limit} matching Todo items with IDs greater than {@code afterId}.
+     */
+    List<Todo> findPageByCompleted(boolean completed, long afterId, int limit);
+
+    /**
+     * Finds a page of Todo items with the given completion status, with only the selected fields populated.
+     *
+     * @param completed the completion status to filter on.
+     * @param afterId   the ID after which the page starts (exclusive); use 0 for the first page.
+     * @param limit     the maximum number of Todo items to return.
+     * @param fields    the fields to populate, or null for all fields.
+     * @return a list of at most {@code limit} matching Todo items with IDs greater than {@code afterId}.
+     */
+    default List<Todo> findPageByCompleted(boolean completed, long afterId, int limit, Set<TodoField> fields) {
+        return TodoField.project(findPageByCompleted(completed, afterId, limit), fields);
+    }
+
+    /**
+     * Counts the Todo items, optionally only those with the given completion status.
+     *
+     * @param completed the completion status to filter on, or null to count all Todo items.
+     * @return the number of matching Todo items.
+     */
+    long count(Boolean completed);
+
+    /**
+     * Searches the descriptions of the Todo items, best matches first.
+     * All terms of the search text must match; a term ending in "*" matches any word starting with it.
+     *
+     * @param text  the search text.
+     * @param limit the maximum number of Todo items to return.
+     * @return a list of at most {@code limit} matching Todo items, ranked by relevance;
+     * empty if the text has no terms.
+     */
+    List<Todo> search(String text, int limit);
+
+    /**
+     * Streams all Todo items straight from the underlying cursor, without materializing them in a list.
+     * The returned stream holds database resources and must be closed by the caller.
+     *
+     * @return a lazily populated stream of all Todo items.
+     */
+    Stream<Todo> streamAll();
+
+    /**
+     * Writes all Todo items as an array, in the same form as serializing the Todo objects would.
+     * The default implementation writes the items of {@link #streamAll()}.
+     *
+     * @param generator the generator to write the array to.
+     * @return the number of Todo items written.
+     * @throws IOException if writing fails.
+     */
+    default long writeAll(JsonGenerator generator) throws IOException {
+        long count = 0;
+        generator.writeStartArray();
+        try (Stream<Todo> todos = streamAll()) {
+            for (Iterator<Todo> iterator = todos.iterator(); iterator.hasNext(); count++) {
+                TodoJson.writeTodo(generator, iterator.next());
+            }
+        }
+        generator.writeEndArray();
+        return count;
+    }
+
     /**
      * Finds a specific Todo item by its ID.
      *
@@ -25,6 +143,17 @@ public interface TodoDao {
      */
     Todo findById(long id);
 
+    /**
+     * Finds a specific Todo item by its ID, with only the selected fields populated.
+     *
+     * @param id     the ID of the Todo item to find.
+     * @param fields the fields to populate, or null for all fields.
+     * @return the Todo item with the given ID, or null if not found.
+     */
+    default Todo findById(long id, Set<TodoField> fields) {
+        return TodoField.project(findById(id), fields);
+    }
+
     /**
      * Saves a new Todo item.
      *
@@ -33,12 +162,50 @@ public interface TodoDao {
      */
     Todo save(Todo todo);
 
+    /**
+     * Saves several new Todo items in a single transaction.
+     *
+     * @param todos the Todo items to save.
+     * @return the saved Todo items, in the same order, with their ID fields populated.
+     */
+    List<Todo> saveAll(List<Todo> todos);
+
+    /**
+     * Finds the Todo items created, updated or deleted after a change sequence number, ordered by that number.
+     * Every mutation stamps the Todo item with the next change sequence number, so each item appears once,
+     * with its latest state; deleted items appear as tombstones until they are compacted.
+     *
+     * @param since the change sequence number after which the changes start (exclusive); use 0 for all Todo items.
+     * @param limit the maximum number of changes to return.
+     * @return a list of at most {@code limit} changes with sequence numbers greater than {@code since}.
+     */
+    List<TodoChange> findChangesSince(long since, int limit);
+
+    /**
+     * Gets the highest change sequence number whose tombstones may have been compacted away.
+     * Changes after a lower sequence number can no longer be listed completely.
+     *
+     * @return the compaction horizon, or 0 if nothing has been compacted.
+     */
+    long getCompactedThrough();
+
     /**
      * Deletes a Todo item by its ID.
      *
      * @param id the ID of the Todo item to delete.
      */
-    void deleteById(long id);
+    default void deleteById(long id) {
+        deleteById(id, null);
+    }
+
+    /**
+     * Deletes a Todo item by its ID, only if it still has the expected version.
+     *
+     * @param id              the ID of the Todo item to delete.
+     * @param expectedVersion the version the Todo item must have, or null to delete any version.
+     * @return true if a Todo item was deleted, false if the ID does not exist or the version did not match.
+     */
+    boolean deleteById(long id, Long expectedVersion);
 
     /**
      * Checks if a Todo item exists by its ID.
@@ -56,10 +223,11 @@ public interface TodoDao {
     List<Long> getMaxTodoId();
 
     /**
-     * Updates a Todo item by its ID.
+     * Updates a Todo item by its ID, changing only the fields that are non-null and incrementing its version.
+     * When the given Todo carries a version, the update only applies if the stored version still matches.
      *
-     * @param todo the Todo item with updated values.
-     * @return the updated Todo item, or null if the ID does not exist.
+     * @param todo the Todo item with updated values and, optionally, the expected version.
+     * @return the complete updated Todo item, or null if the ID does not exist or the version did not match.
      */
     Todo updateById(Todo todo);
 }
@@ -1,20 +1,57 @@
 package poc.todo.dao;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import poc.todo.logging.RequestStats;
+import poc.todo.metrics.TodoMetrics;
 import poc.todo.model.Todo;
+import poc.todo.model.TodoChange;
+import poc.todo.model.TodoField;
+import poc.todo.model.TodoJson;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the TodoDao interface using JDBC operations for database interactions.
+ * <p>
+ * Every mutation stamps the row with the next change sequence number, assigned inside the statement itself:
+ * SQLite holds the write lock while the statement reads MAX(CHANGE_SEQ), so numbers are unique and commit in
+ * increasing order. Deleting a Todo item turns its row into a tombstone, which every read except the delta
+ * feed skips, until {@link #compactTombstones(long)} removes it.
+ * <p>
+ * Reads given a set of {@link TodoField}s select only those columns, so the rows SQLite decodes and the
+ * driver copies carry no more than the client asked for; the column list only ever comes from the enum.
+ * <p>
+ * With the read/write split ("sqlite.read-write-split.enabled") queries run on the read-only connections and
+ * mutations on the single writer. Reads still see every write made before them: a mutation returns only once
+ * it has committed, and each read runs in autocommit mode, so it starts a fresh WAL snapshot that includes
+ * the commit. Reads inside a transaction stay on the writer, which sees the transaction's own changes.
  */
 @Service
+@DependsOn("todoSchema")
 public class TodoDaoImpl implements TodoDao {
 
     private static final Logger logger = LoggerFactory.getLogger(TodoDaoImpl.class);
@@ -22,6 +59,73 @@ public class TodoDaoImpl implements TodoDao {
     @Autowired
     private JdbcOperations jdbcOperations;
 
+    // Read-only connections of the read/write split; when absent, reads run on the writer
+    @Autowired(required = false)
+    @Qualifier("readJdbcTemplate")
+    private JdbcOperations readJdbcOperations;
+
+    @Autowired
+    private TodoIdAllocator idAllocator;
+
+    @Autowired
+    private TransactionTemplate jdbcTransactionTemplate;
+
+    // Optional single-writer pipeline; when absent, each mutation runs in its own autocommit transaction
+    @Autowired(required = false)
+    private TodoWritePipeline writePipeline;
+
+    @Autowired
+    private TodoMetrics metrics;
+
+    @Autowired
+    private TodoDbConcurrencyLimiter dbLimiter;
+
+    // Latency timers per SQL statement, resolved once in registerTimers()
+    private Timer fetchAllTimer;
+    private Timer fetchPageTimer;
+    private Timer fetchByCompletedTimer;
+    private Timer countTimer;
+    private Timer searchTimer;
+    private Timer rebuildSearchTimer;
+    private Timer streamAllTimer;
+    private Timer writeAllTimer;
+    private Timer fetchByIdTimer;
+    private Timer insertTimer;
+    private Timer insertBatchTimer;
+    private Timer patchTimer;
+    private Timer deleteByIdTimer;
+    private Timer countByIdTimer;
+    private Timer maxIdTimer;
+    private Timer fetchChangesTimer;
+    private Timer syncStateTimer;
+    private Timer compactTimer;
+
+    /**
+     * Constructor for TodoDaoImpl, with the dependencies injected into the fields.
+     */
+    public TodoDaoImpl() {
+    }
+
+    /**
+     * Constructor for a TodoDaoImpl over a database of its own, such as one shard of {@link ShardedTodoDao}.
+     * Mutations run in autocommit transactions, without a write pipeline.
+     *
+     * @param jdbcOperations          the JDBC operations of the database.
+     * @param jdbcTransactionTemplate the transaction template batch inserts and compactions run in.
+     * @param idAllocator             the allocator of the IDs of saved Todo items.
+     * @param metrics                 the metrics the statement timers are registered with.
+     * @param dbLimiter               the limiter of concurrent statements.
+     */
+    TodoDaoImpl(JdbcOperations jdbcOperations, TransactionTemplate jdbcTransactionTemplate, TodoIdAllocator idAllocator,
+                TodoMetrics metrics, TodoDbConcurrencyLimiter dbLimiter) {
+        this.jdbcOperations = jdbcOperations;
+        this.jdbcTransactionTemplate = jdbcTransactionTemplate;
+        this.idAllocator = idAllocator;
+        this.metrics = metrics;
+        this.dbLimiter = dbLimiter;
+        registerTimers();
+    }
+
     /**
      * RowMapper for mapping rows from the database to Todo objects.
      */
@@ -30,14 +134,81 @@ public class TodoDaoImpl implements TodoDao {
         todo.setId(rs.getLong("id"));
         todo.setDescription(rs.getString("description"));
         todo.setCompleted(rs.getBoolean("completed"));
+        todo.setVersion(rs.getLong("version"));
         return todo;
     };
 
+    /**
+     * RowMapper for mapping rows, tombstones included, to entries of the delta feed.
+     */
+    private final RowMapper<TodoChange> changeRowMapper = (rs, rowNum) -> {
+        boolean deleted = rs.getBoolean("deleted");
+        return new TodoChange(rs.getLong("change_seq"), rs.getLong("id"), deleted, deleted ? null : prodRowMapper.mapRow(rs, rowNum));
+    };
+
+    /**
+     * Builds a RowMapper that reads only the selected columns; the other fields of the Todo objects stay null.
+     *
+     * @param fields the selected fields, which always include the ID.
+     * @return the RowMapper.
+     */
+    private static RowMapper<Todo> projectedRowMapper(Set<TodoField> fields) {
+        boolean description = fields.contains(TodoField.DESCRIPTION);
+        boolean completed = fields.contains(TodoField.COMPLETED);
+        boolean version = fields.contains(TodoField.VERSION);
+        return (rs, rowNum) -> {
+            Todo todo = new Todo();
+            todo.setId(rs.getLong("id"));
+            if (description) {
+                todo.setDescription(rs.getString("description"));
+            }
+            if (completed) {
+                todo.setCompleted(rs.getBoolean("completed"));
+            }
+            if (version) {
+                todo.setVersion(rs.getLong("version"));
+            }
+            return todo;
+        };
+    }
+
+    /**
+     * Builds the column list of a projected query, in the declaration order of the fields, ID first.
+     */
+    private static String columns(Set<TodoField> fields) {
+        return fields.stream().map(TodoField::getColumn).collect(Collectors.joining(", "));
+    }
+
     /**
      * RowMapper for retrieving the maximum ID from the database.
      */
     private final RowMapper<Long> maxRowId = (rs, rowNum) -> rs.getLong("id");
 
+    /**
+     * Resolves the timer of each SQL statement once, so timing a statement only records the duration.
+     */
+    @PostConstruct
+    void registerTimers() {
+        fetchAllTimer = metrics.sqlTimer("fetch_all");
+        fetchPageTimer = metrics.sqlTimer("fetch_page");
+        fetchByCompletedTimer = metrics.sqlTimer("fetch_by_completed");
+        countTimer = metrics.sqlTimer("count");
+        searchTimer = metrics.sqlTimer("search");
+        rebuildSearchTimer = metrics.sqlTimer("rebuild_search");
+        streamAllTimer = metrics.sqlTimer("stream_all");
+        writeAllTimer = metrics.sqlTimer("write_all");
+        fetchByIdTimer = metrics.sqlTimer("fetch_by_id");
+        insertTimer = metrics.sqlTimer("insert");
+        insertBatchTimer = metrics.sqlTimer("insert_batch");
+        patchTimer = metrics.sqlTimer("patch");
+        deleteByIdTimer = metrics.sqlTimer("delete_by_id");
+        countByIdTimer = metrics.sqlTimer("count_by_id");
+        maxIdTimer = metrics.sqlTimer("max_id");
+        fetchChangesTimer = metrics.sqlTimer("fetch_changes");
+        syncStateTimer = metrics.sqlTimer("sync_state");
+        compactTimer = metrics.sqlTimer("compact_tombstones");
+    }
+
     /**
      * Retrieves all Todo items from the database.
      *
@@ -45,8 +216,296 @@ public class TodoDaoImpl implements TodoDao {
      */
     @Override
     public List<Todo> findAll() {
-        logger.info("Fetching all Todo items.");
-        return jdbcOperations.query(Queries.QUERY_FETCH_ALL, prodRowMapper);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching all Todo items.");
+        }
+        return countRows(execute(fetchAllTimer, () -> reader().query(Queries.QUERY_FETCH_ALL, prodRowMapper)));
+    }
+
+    /**
+     * Retrieves all Todo items, selecting only the columns of the given fields.
+     *
+     * @param fields the fields to populate, or null for all fields.
+     * @return a list of all Todo items.
+     */
+    @Override
+    public List<Todo> findAll(Set<TodoField> fields) {
+        if (fields == null) {
+            return findAll();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching fields {} of all Todo items.", fields);
+        }
+        String sql = Queries.QUERY_FETCH_ALL_FIELDS.formatted(columns(fields));
+        return countRows(execute(fetchAllTimer, () -> reader().query(sql, projectedRowMapper(fields))));
+    }
+
+    /**
+     * Retrieves a page of Todo items using an index-backed keyset query on the ID.
+     *
+     * @param afterId the ID after which the page starts (exclusive).
+     * @param limit   the maximum number of Todo items to return.
+     * @return a list of Todo items ordered by ID.
+     */
+    @Override
+    public List<Todo> findPage(long afterId, int limit) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching up to {} Todo items after ID {}.", limit, afterId);
+        }
+        return countRows(execute(fetchPageTimer, () -> reader().query(Queries.QUERY_FETCH_PAGE, prodRowMapper, afterId, limit)));
+    }
+
+    /**
+     * Retrieves a page of Todo items by ID cursor, selecting only the columns of the given fields.
+     *
+     * @param afterId the ID after which the page starts (exclusive).
+     * @param limit   the maximum number of Todo items to return.
+     * @param fields  the fields to populate, or null for all fields.
+     * @return a list of Todo items ordered by ID.
+     */
+    @Override
+    public List<Todo> findPage(long afterId, int limit, Set<TodoField> fields) {
+        if (fields == null) {
+            return findPage(afterId, limit);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching fields {} of up to {} Todo items after ID {}.", fields, limit, afterId);
+        }
+        String sql = Queries.QUERY_FETCH_PAGE_FIELDS.formatted(columns(fields));
+        return countRows(execute(fetchPageTimer, () -> reader().query(sql, projectedRowMapper(fields), afterId, limit)));
+    }
+
+    /**
+     * Retrieves all Todo items with the given completion status, using the Todo_COMPLETED index.
+     *
+     * @param completed the completion status to filter on.
+     * @return a list of the matching Todo items ordered by ID.
+     */
+    @Override
+    public List<Todo> findByCompleted(boolean completed) {
+        return findPageByCompleted(completed, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retrieves a page of Todo items with the given completion status, using a keyset range scan
+     * of the Todo_COMPLETED index, which is ordered by ID within each status.
+     *
+     * @param completed the completion status to filter on.
+     * @param afterId   the ID after which the page starts (exclusive).
+     * @param limit     the maximum number of Todo items to return.
+     * @return a list of the matching Todo items ordered by ID.
+     */
+    @Override
+    public List<Todo> findPageByCompleted(boolean completed, long afterId, int limit) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching up to {} Todo items with completed={} after ID {}.", limit, completed, afterId);
+        }
+        return countRows(execute(fetchByCompletedTimer, () ->
+                reader().query(Queries.QUERY_FETCH_PAGE_BY_COMPLETED, prodRowMapper, completed, afterId, limit)));
+    }
+
+    /**
+     * Retrieves a page of Todo items with the given completion status, selecting only the columns of the given fields.
+     * A page of only IDs and completion statuses is read from the Todo_COMPLETED index alone.
+     *
+     * @param completed the completion status to filter on.
+     * @param afterId   the ID after which the page starts (exclusive).
+     * @param limit     the maximum number of Todo items to return.
+     * @param fields    the fields to populate, or null for all fields.
+     * @return a list of the matching Todo items ordered by ID.
+     */
+    @Override
+    public List<Todo> findPageByCompleted(boolean completed, long afterId, int limit, Set<TodoField> fields) {
+        if (fields == null) {
+            return findPageByCompleted(completed, afterId, limit);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching fields {} of up to {} Todo items with completed={} after ID {}.", fields, limit, completed, afterId);
+        }
+        String sql = Queries.QUERY_FETCH_PAGE_BY_COMPLETED_FIELDS.formatted(columns(fields));
+        return countRows(execute(fetchByCompletedTimer, () ->
+                reader().query(sql, projectedRowMapper(fields), completed, afterId, limit)));
+    }
+
+    /**
+     * Counts the Todo items from the Todo_COMPLETED index alone, without reading the table rows.
+     *
+     * @param completed the completion status to filter on, or null to count all Todo items.
+     * @return the number of matching Todo items.
+     */
+    @Override
+    public long count(Boolean completed) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Counting Todo items with completed={}.", completed);
+        }
+        Long count = execute(countTimer, () -> completed == null
+                ? reader().queryForObject(Queries.QUERY_COUNT_ALL, Long.class)
+                : reader().queryForObject(Queries.QUERY_COUNT_BY_COMPLETED, Long.class, completed));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Searches the descriptions through the TodoSearch FTS5 index, ranked by bm25.
+     * The index yields the matching IDs in rank order, and the rows are then looked up by ID.
+     *
+     * @param text  the search text, see {@link TodoSearchQuery}.
+     * @param limit the maximum number of Todo items to return.
+     * @return a list of the best matching Todo items, best first.
+     */
+    @Override
+    public List<Todo> search(String text, int limit) {
+        String match = TodoSearchQuery.toMatchExpression(text);
+        if (match == null) {
+            return List.of();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Searching up to {} Todo items matching {}.", limit, match);
+        }
+        return countRows(execute(searchTimer, () -> reader().query(Queries.QUERY_SEARCH, prodRowMapper, match, limit)));
+    }
+
+    /**
+     * Searches the descriptions like {@link #search(String, int)}, keeping the bm25 rank of every match,
+     * so the matches of several databases can be merged; a lower rank is a better match.
+     *
+     * @param text  the search text, see {@link TodoSearchQuery}.
+     * @param limit the maximum number of Todo items to return.
+     * @return the best matching Todo items with their ranks, best first.
+     */
+    List<Map.Entry<Todo, Double>> searchRanked(String text, int limit) {
+        String match = TodoSearchQuery.toMatchExpression(text);
+        if (match == null) {
+            return List.of();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Searching up to {} ranked Todo items matching {}.", limit, match);
+        }
+        return countRows(execute(searchTimer, () -> reader().query(Queries.QUERY_SEARCH_RANKED,
+                (rs, rowNum) -> Map.entry(prodRowMapper.mapRow(rs, rowNum), rs.getDouble("search_rank")), match, limit)));
+    }
+
+    /**
+     * Rebuilds the full-text search index from the Todo table, e.g. after rows were written with the triggers missing.
+     * Runs as one write, so other writes wait for it.
+     */
+    public void rebuildSearchIndex() {
+        logger.info("Rebuilding the TodoSearch full-text index.");
+        write(() -> execute(rebuildSearchTimer, () -> jdbcOperations.update(Queries.QUERY_REBUILD_SEARCH)));
+    }
+
+    /**
+     * Streams all Todo items from the database cursor, mapping one row at a time.
+     * The statement holds its {@link TodoDbConcurrencyLimiter} slot until the stream is closed, like
+     * {@link #writeAll}; the timer records how long the stream was open.
+     *
+     * @return a stream of Todo items which must be closed to release the connection.
+     */
+    @Override
+    public Stream<Todo> streamAll() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Streaming all Todo items.");
+        }
+        return dbLimiter.stream(() -> {
+            long start = System.nanoTime();
+            return reader().queryForStream(Queries.QUERY_FETCH_ALL, prodRowMapper)
+                    .onClose(() -> streamAllTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Writes all Todo items straight from the ResultSet, reading the columns by position into primitives,
+     * so no Todo object or boxed value is created per row. When the generator writes bytes, the description
+     * is copied as the UTF-8 stored by SQLite rather than decoded into a String, which is most of the
+     * remaining allocation per row. The statement stays open, and holds its {@link TodoDbConcurrencyLimiter}
+     * slot, until the last row has been written to the generator.
+     *
+     * @param generator the generator to write the array to.
+     * @return the number of Todo items written.
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public long writeAll(JsonGenerator generator) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Writing all Todo items from the database cursor.");
+        }
+        long[] count = new long[1];
+        boolean utf8 = TodoJson.acceptsUtf8(generator);
+        RowCallbackHandler rowWriter = rs -> {
+            try {
+                if (utf8) {
+                    TodoJson.writeTodo(generator, rs.getLong(1), rs.getBytes(2), rs.getBoolean(3), rs.getLong(4));
+                } else {
+                    TodoJson.writeTodo(generator, rs.getLong(1), rs.getString(2), rs.getBoolean(3), rs.getLong(4));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count[0]++;
+        };
+        generator.writeStartArray();
+        try {
+            execute(writeAllTimer, () -> {
+                reader().query(Queries.QUERY_WRITE_ALL, rowWriter);
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // The client went away or the response could not be written
+        } finally {
+            RequestStats.current().addRows(count[0]);
+        }
+        generator.writeEndArray();
+        return count[0];
+    }
+
+    /**
+     * Retrieves the changes after a change sequence number with an index range scan on CHANGE_SEQ.
+     *
+     * @param since the change sequence number after which the changes start (exclusive).
+     * @param limit the maximum number of changes to return.
+     * @return a list of changes ordered by change sequence number, tombstones included.
+     */
+    @Override
+    public List<TodoChange> findChangesSince(long since, int limit) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching up to {} Todo changes after sequence number {}.", limit, since);
+        }
+        return countRows(execute(fetchChangesTimer, () -> reader().query(Queries.QUERY_FETCH_CHANGES, changeRowMapper, since, limit)));
+    }
+
+    /**
+     * Retrieves the change sequence number up to which tombstones have been compacted.
+     *
+     * @return the compaction horizon, or 0 if nothing has been compacted.
+     */
+    @Override
+    public long getCompactedThrough() {
+        Long compactedThrough = execute(syncStateTimer, () -> reader().queryForObject(Queries.QUERY_COMPACTED_THROUGH, Long.class));
+        return compactedThrough == null ? 0 : compactedThrough;
+    }
+
+    /**
+     * Removes the tombstones of Todo items deleted before the given time, in one transaction,
+     * and moves the compaction horizon up to the highest change sequence number removed.
+     * The tombstone holding the highest change sequence number overall is kept, because the next number
+     * is derived from it and must never go back to one a client may already have seen.
+     *
+     * @param deletedBefore the deletion time, in epoch milliseconds, before which tombstones are removed.
+     * @return the number of tombstones removed.
+     */
+    public int compactTombstones(long deletedBefore) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Compacting Todo tombstones deleted before {}.", deletedBefore);
+        }
+        Integer removed = write(() -> execute(compactTimer, () -> jdbcTransactionTemplate.execute(status -> {
+            Long through = jdbcOperations.queryForObject(Queries.QUERY_COMPACTABLE_THROUGH, Long.class, deletedBefore);
+            if (through == null) {
+                return 0;
+            }
+            int rows = jdbcOperations.update(Queries.QUERY_DELETE_TOMBSTONES, deletedBefore, through);
+            jdbcOperations.update(Queries.QUERY_ADVANCE_COMPACTED_THROUGH, through);
+            return rows;
+        })));
+        return removed == null ? 0 : removed;
     }
 
     /**
@@ -57,9 +516,15 @@ public class TodoDaoImpl implements TodoDao {
      */
     @Override
     public Todo findById(long id) {
-        logger.info("Fetching Todo item with ID: {}", id);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching Todo item with ID: {}", id);
+        }
         try {
-            return jdbcOperations.queryForObject(Queries.QUERY_FETCH_BY_ID, prodRowMapper, id);
+            Todo todo = execute(fetchByIdTimer, () -> reader().queryForObject(Queries.QUERY_FETCH_BY_ID, prodRowMapper, id));
+            RequestStats.current().addRows(1);
+            return todo;
+        } catch (EmptyResultDataAccessException e) {
+            return null; // Not found is an expected outcome, reported by the caller.
         } catch (DataAccessException e) {
             logger.error("Error fetching Todo item with ID {}: {}", id, e.getMessage());
             return null; // Return null if not found or error occurred.
@@ -67,57 +532,152 @@ public class TodoDaoImpl implements TodoDao {
     }
 
     /**
-     * Saves a new Todo item to the database, with auto-incremented ID.
+     * Finds a specific Todo item by its ID, selecting only the columns of the given fields.
+     *
+     * @param id     the ID of the Todo item to find.
+     * @param fields the fields to populate, or null for all fields.
+     * @return the Todo item, or null if not found.
+     */
+    @Override
+    public Todo findById(long id, Set<TodoField> fields) {
+        if (fields == null) {
+            return findById(id);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching fields {} of Todo item with ID: {}", fields, id);
+        }
+        String sql = Queries.QUERY_FETCH_BY_ID_FIELDS.formatted(columns(fields));
+        try {
+            Todo todo = execute(fetchByIdTimer, () -> reader().queryForObject(sql, projectedRowMapper(fields), id));
+            RequestStats.current().addRows(1);
+            return todo;
+        } catch (EmptyResultDataAccessException e) {
+            return null; // Not found is an expected outcome, reported by the caller.
+        } catch (DataAccessException e) {
+            logger.error("Error fetching Todo item with ID {}: {}", id, e.getMessage());
+            return null; // Return null if not found or error occurred.
+        }
+    }
+
+    /**
+     * Saves a new Todo item to the database, with an ID taken from the {@link TodoIdAllocator}.
      *
      * @param todo the Todo item to save.
      * @return the saved Todo item with the new ID.
      */
     @Override
     public Todo save(Todo todo) {
-        logger.info("Saving a new Todo item.");
-        // Get the maximum ID
-        List<Long> maxIds = getMaxTodoId();
-        long maxId = maxIds.isEmpty() ? 0 : maxIds.get(0);
-
-        // Increment the maximum ID for the next Todo
-        long nextId = maxId + 1;
-        todo.setId(nextId);
-
-        // Insert the Todo with the next ID
-        jdbcOperations.update(Queries.QUERY_INSERT_Todo, nextId, todo.getDescription(), todo.getCompleted());
-        logger.info("Todo item saved with ID: {}", nextId);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Saving a new Todo item.");
+        }
+        todo.setId(idAllocator.nextId());
+        return insert(todo);
+    }
+
+    /**
+     * Inserts a new Todo item under the ID it already has, e.g. one allocated by {@link ShardedTodoDao}
+     * before choosing the shard.
+     *
+     * @param todo the Todo item to insert, with its ID set.
+     * @return the inserted Todo item with its version.
+     */
+    Todo insert(Todo todo) {
+        long id = todo.getId();
+        write(() -> execute(insertTimer, () -> jdbcOperations.update(Queries.QUERY_INSERT_Todo, id, todo.getDescription(), todo.getCompleted())));
+        RequestStats.current().addRows(1);
+        todo.setVersion(0L);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Todo item saved with ID: {}", id);
+        }
         return todo;
     }
 
     /**
-     * Updates an existing Todo item in the database.
+     * Saves several new Todo items with one JDBC batch insert inside a single transaction,
+     * so the whole batch pays for one commit instead of one per item.
      *
-     * @param todo the Todo item with updated information.
+     * @param todos the Todo items to save.
+     * @return the saved Todo items with their new IDs.
+     */
+    @Override
+    public List<Todo> saveAll(List<Todo> todos) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Saving a batch of {} Todo items.", todos.size());
+        }
+        for (Todo todo : todos) {
+            todo.setId(idAllocator.nextId());
+        }
+        return insertAll(todos);
+    }
+
+    /**
+     * Inserts several new Todo items under the IDs they already have, with one JDBC batch insert
+     * inside a single transaction.
+     *
+     * @param todos the Todo items to insert, with their IDs set.
+     * @return the inserted Todo items with their versions.
+     */
+    List<Todo> insertAll(List<Todo> todos) {
+        List<Object[]> batchArgs = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            todo.setVersion(0L);
+            batchArgs.add(new Object[]{todo.getId(), todo.getDescription(), todo.getCompleted()});
+        }
+        write(() -> execute(insertBatchTimer, () ->
+                jdbcTransactionTemplate.execute(status -> jdbcOperations.batchUpdate(Queries.QUERY_INSERT_Todo, batchArgs))));
+        RequestStats.current().addRows(todos.size());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Saved a batch of {} Todo items.", todos.size());
+        }
+        return todos;
+    }
+
+    /**
+     * Updates an existing Todo item in the database with a single conditional statement,
+     * which also returns the updated row so no follow-up read is needed.
+     *
+     * @param todo the Todo item with the fields to change and, optionally, the expected version.
      * @return the updated Todo item, or null if no item was updated.
      */
     @Override
     public Todo updateById(Todo todo) {
-        logger.info("Updating Todo item with ID: {}", todo.getId());
-        int rows = jdbcOperations.update(Queries.QUERY_PATCH_Todo, todo.getDescription(), todo.getCompleted(), todo.getId());
-        if (rows == 1) {
-            logger.info("Todo item updated with ID: {}", todo.getId());
-            return todo;
-        } else {
-            logger.warn("Failed to update Todo item with ID: {}", todo.getId());
-            return null; // Return null if update didn't occur.
+        if (logger.isDebugEnabled()) {
+            logger.debug("Updating Todo item with ID: {}", todo.getId());
         }
+        List<Todo> updated = write(() -> execute(patchTimer, () -> jdbcOperations.query(Queries.QUERY_PATCH_Todo, prodRowMapper,
+                todo.getDescription(), todo.getCompleted(), todo.getId(), todo.getVersion(), todo.getVersion())));
+        RequestStats.current().addRows(updated.size());
+        if (updated.size() == 1) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Todo item updated with ID: {}", todo.getId());
+            }
+            return updated.get(0);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Failed to update Todo item with ID: {}", todo.getId());
+        }
+        return null; // Return null if update didn't occur.
     }
 
     /**
-     * Deletes a Todo item by its ID.
+     * Deletes a Todo item by its ID with a single conditional statement, leaving a tombstone behind.
      *
-     * @param id the ID of the Todo item to delete.
+     * @param id              the ID of the Todo item to delete.
+     * @param expectedVersion the version the Todo item must have, or null to delete any version.
+     * @return true if the Todo item was deleted, false otherwise.
      */
     @Override
-    public void deleteById(long id) {
-        logger.info("Deleting Todo item with ID: {}", id);
-        jdbcOperations.update(Queries.QUERY_DELETE_BY_ID, id);
-        logger.info("Todo item with ID {} deleted.", id);
+    public boolean deleteById(long id, Long expectedVersion) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Deleting Todo item with ID: {}", id);
+        }
+        int rows = write(() -> execute(deleteByIdTimer, () -> jdbcOperations.update(Queries.QUERY_DELETE_BY_ID,
+                System.currentTimeMillis(), id, expectedVersion, expectedVersion)));
+        RequestStats.current().addRows(rows);
+        if (logger.isDebugEnabled()) {
+            logger.debug(rows == 1 ? "Todo item with ID {} deleted." : "Failed to delete Todo item with ID: {}", id);
+        }
+        return rows == 1;
     }
 
     /**
@@ -128,38 +688,129 @@ public class TodoDaoImpl implements TodoDao {
      */
     @Override
     public boolean existsById(long id) {
-        logger.info("Checking if Todo item with ID {} exists.", id);
-        Integer count = jdbcOperations.queryForObject(Queries.QUERY_COUNT_BY_ID, Integer.class, id);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Checking if Todo item with ID {} exists.", id);
+        }
+        Integer count = execute(countByIdTimer, () -> reader().queryForObject(Queries.QUERY_COUNT_BY_ID, Integer.class, id));
         boolean exists = count != null && count > 0;
-        if (exists) {
-            logger.info("Todo item with ID {} exists.", id);
-        } else {
-            logger.warn("Todo item with ID {} does not exist.", id);
+        if (logger.isDebugEnabled()) {
+            logger.debug(exists ? "Todo item with ID {} exists." : "Todo item with ID {} does not exist.", id);
         }
         return exists;
     }
 
     /**
-     * Retrieves the maximum ID assigned to a Todo item.
+     * Retrieves the maximum ID assigned to a Todo item, tombstones included.
      *
      * @return a list containing the maximum ID, usually with one element.
      */
     @Override
     public List<Long> getMaxTodoId() {
-        logger.info("Retrieving the maximum Todo ID.");
-        return jdbcOperations.query(Queries.QUERY_MAX_Todo_ID, maxRowId);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Retrieving the maximum Todo ID.");
+        }
+        return execute(maxIdTimer, () -> reader().query(Queries.QUERY_MAX_Todo_ID, maxRowId));
+    }
+
+    /**
+     * Chooses the connections a query runs on: the read-only ones, unless there are none or a transaction
+     * is active on the writer, whose uncommitted changes only the writer can see.
+     *
+     * @return the JDBC operations to run the query with.
+     */
+    private JdbcOperations reader() {
+        if (readJdbcOperations == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return jdbcOperations;
+        }
+        return readJdbcOperations;
+    }
+
+    /**
+     * Runs a mutation through the write pipeline when it is enabled, or directly otherwise.
+     *
+     * @param operation the database work to run.
+     * @param <T>       the result type of the operation.
+     * @return the operation's result, once it has been committed.
+     */
+    private <T> T write(Supplier<T> operation) {
+        if (writePipeline == null) {
+            return operation.get();
+        }
+        // The statement runs on the writer thread, so the caller accounts for the time it waited for it
+        long start = System.nanoTime();
+        try {
+            return writePipeline.execute(operation);
+        } finally {
+            RequestStats.current().addDbTime(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs a statement within the {@link TodoDbConcurrencyLimiter}, recording its latency in the statement's
+     * timer and in the current request's totals. Time spent waiting for the limiter is not included.
+     *
+     * @param timer     the timer of the statement.
+     * @param statement the database call to run.
+     * @param <T>       the result type of the statement.
+     * @return the statement's result.
+     */
+    private <T> T execute(Timer timer, Supplier<T> statement) {
+        return dbLimiter.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                return statement.get();
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
+                RequestStats.current().addDbTime(elapsed);
+            }
+        });
+    }
+
+    /**
+     * Adds the size of a query result to the rows read by the current request.
+     */
+    private static <T> List<T> countRows(List<T> rows) {
+        RequestStats.current().addRows(rows.size());
+        return rows;
     }
 
     /**
      * Defines SQL queries used by the TodoDaoImpl.
      */
     interface Queries {
-        String QUERY_FETCH_ALL = "SELECT * FROM Todo"; // Fetch all Todo items.
-        String QUERY_FETCH_BY_ID = "SELECT * FROM Todo WHERE ID = ?"; // Fetch a Todo by ID.
-        String QUERY_DELETE_BY_ID = "DELETE FROM Todo WHERE ID = ?"; // Delete a Todo by ID.
-        String QUERY_INSERT_Todo = "INSERT INTO Todo (ID, DESCRIPTION, COMPLETED) VALUES (?,?,?)"; // Insert a new Todo.
-        String QUERY_PATCH_Todo = "UPDATE Todo SET DESCRIPTION = ?, COMPLETED = ? WHERE ID = ?"; // Update a Todo.
+        String NEXT_CHANGE_SEQ = "(SELECT COALESCE(MAX(CHANGE_SEQ), 0) + 1 FROM Todo)"; // Next change sequence number, read under the write lock.
+        String QUERY_FETCH_ALL = "SELECT * FROM Todo WHERE DELETED = 0"; // Fetch all Todo items.
+        String QUERY_FETCH_PAGE = "SELECT * FROM Todo WHERE ID > ? AND DELETED = 0 ORDER BY ID LIMIT ?"; // Fetch a page of Todo items by ID cursor.
+        String QUERY_FETCH_PAGE_BY_COMPLETED = "SELECT * FROM Todo WHERE COMPLETED = ? AND DELETED = 0 AND ID > ? "
+                + "ORDER BY ID LIMIT ?"; // Fetch a page of Todo items with a completion status by ID cursor.
+        String QUERY_WRITE_ALL = "SELECT ID, DESCRIPTION, COMPLETED, VERSION FROM Todo WHERE DELETED = 0"; // Fetch all Todo items, columns in TodoJson order.
+        String QUERY_FETCH_ALL_FIELDS = "SELECT %s FROM Todo WHERE DELETED = 0"; // Fetch the given columns of all Todo items.
+        String QUERY_FETCH_PAGE_FIELDS = "SELECT %s FROM Todo WHERE ID > ? AND DELETED = 0 ORDER BY ID LIMIT ?"; // Fetch the given columns of a page of Todo items.
+        String QUERY_FETCH_PAGE_BY_COMPLETED_FIELDS = "SELECT %s FROM Todo WHERE COMPLETED = ? AND DELETED = 0 AND ID > ? "
+                + "ORDER BY ID LIMIT ?"; // Fetch the given columns of a page of Todo items with a completion status.
+        String QUERY_FETCH_BY_ID_FIELDS = "SELECT %s FROM Todo WHERE ID = ? AND DELETED = 0"; // Fetch the given columns of a Todo by ID.
+        String QUERY_COUNT_BY_COMPLETED = "SELECT COUNT(*) FROM Todo WHERE COMPLETED = ? AND DELETED = 0"; // Count Todo items with a completion status.
+        String QUERY_COUNT_ALL = "SELECT COUNT(*) FROM Todo WHERE DELETED = 0"; // Count all Todo items, covered by the partial Todo_COMPLETED index.
+        String QUERY_SEARCH = "SELECT Todo.* FROM TodoSearch JOIN Todo ON Todo.ID = TodoSearch.rowid "
+                + "WHERE TodoSearch MATCH ? AND Todo.DELETED = 0 ORDER BY TodoSearch.rank LIMIT ?"; // Search the descriptions, best bm25 rank first.
+        String QUERY_SEARCH_RANKED = "SELECT Todo.*, TodoSearch.rank AS SEARCH_RANK FROM TodoSearch JOIN Todo ON Todo.ID = TodoSearch.rowid "
+                + "WHERE TodoSearch MATCH ? AND Todo.DELETED = 0 ORDER BY TodoSearch.rank LIMIT ?"; // Search the descriptions, with the bm25 rank of each match.
+        String QUERY_REBUILD_SEARCH = "INSERT INTO TodoSearch (TodoSearch) VALUES ('rebuild')"; // Rebuild the search index.
+        String QUERY_FETCH_BY_ID = "SELECT * FROM Todo WHERE ID = ? AND DELETED = 0"; // Fetch a Todo by ID.
+        String QUERY_FETCH_CHANGES = "SELECT * FROM Todo WHERE CHANGE_SEQ > ? ORDER BY CHANGE_SEQ LIMIT ?"; // Fetch the changes after a sequence number, tombstones included.
+        String QUERY_DELETE_BY_ID = "UPDATE Todo SET DELETED = 1, DELETED_AT = ?, DESCRIPTION = NULL, VERSION = VERSION + 1, CHANGE_SEQ = " + NEXT_CHANGE_SEQ
+                + " WHERE ID = ? AND DELETED = 0 AND (? IS NULL OR VERSION = ?)"; // Turn a Todo into a tombstone, optionally at an expected version.
+        String QUERY_INSERT_Todo = "INSERT INTO Todo (ID, DESCRIPTION, COMPLETED, VERSION, CHANGE_SEQ) VALUES (?,?,?,0," + NEXT_CHANGE_SEQ + ")"; // Insert a new Todo.
+        String QUERY_PATCH_Todo = "UPDATE Todo SET DESCRIPTION = COALESCE(?, DESCRIPTION), COMPLETED = COALESCE(?, COMPLETED), "
+                + "VERSION = VERSION + 1, CHANGE_SEQ = " + NEXT_CHANGE_SEQ
+                + " WHERE ID = ? AND DELETED = 0 AND (? IS NULL OR VERSION = ?) RETURNING *"; // Update the given fields of a Todo, optionally at an expected version.
         String QUERY_MAX_Todo_ID = "SELECT MAX(ID) AS ID FROM Todo"; // Get the maximum ID.
-        String QUERY_COUNT_BY_ID = "SELECT COUNT(*) FROM Todo WHERE ID = ?"; // Count Todo items by ID.
+        String QUERY_COUNT_BY_ID = "SELECT COUNT(*) FROM Todo WHERE ID = ? AND DELETED = 0"; // Count Todo items by ID.
+        String QUERY_COMPACTED_THROUGH = "SELECT COMPACTED_THROUGH FROM TodoSyncState WHERE ID = 1"; // Get the compaction horizon.
+        String QUERY_COMPACTABLE_THROUGH = "SELECT MAX(CHANGE_SEQ) FROM Todo WHERE DELETED = 1 AND DELETED_AT < ? "
+                + "AND CHANGE_SEQ < (SELECT MAX(CHANGE_SEQ) FROM Todo)"; // Highest sequence number of the expired tombstones, keeping the newest row.
+        String QUERY_DELETE_TOMBSTONES = "DELETE FROM Todo WHERE DELETED = 1 AND DELETED_AT < ? AND CHANGE_SEQ <= ?"; // Remove expired tombstones.
+        String QUERY_ADVANCE_COMPACTED_THROUGH = "UPDATE TodoSyncState SET COMPACTED_THROUGH = MAX(COMPACTED_THROUGH, ?) WHERE ID = 1"; // Move the compaction horizon up.
     }
 }
@@ -0,0 +1,122 @@
+package poc.todo.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import poc.todo.exception.TodoStorageBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Bounds the number of threads running SQLite statements at the same time.
+ * <p>
+ * With virtual threads every request has its own thread, so without a bound thousands of them would pile up
+ * on the connection pool. SQLite serializes writers anyway and the driver runs statements inside synchronized
+ * blocks, which pin a virtual thread to its carrier; keeping the number of concurrent statements small keeps
+ * most carriers free. Waiting happens on a fair {@link Semaphore}, which parks virtual threads without pinning.
+ * A request that cannot get a permit within the acquire timeout fails with {@link TodoStorageBusyException}
+ * instead of queueing indefinitely. A limit of 0 disables the limiter.
+ */
+@Component
+public class TodoDbConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoDbConcurrencyLimiter.class);
+
+    private final Semaphore permits; // Null when the limiter is disabled
+    private final long acquireTimeoutNanos;
+
+    /**
+     * Constructor for TodoDbConcurrencyLimiter.
+     *
+     * @param maxConcurrency the maximum number of concurrent statements, or 0 for no limit.
+     * @param acquireTimeout how long a statement may wait for a permit.
+     */
+    @Autowired
+    public TodoDbConcurrencyLimiter(@Value("${todo.db.max-concurrency:0}") int maxConcurrency,
+                                    @Value("${todo.db.acquire-timeout:2s}") Duration acquireTimeout) {
+        if (maxConcurrency < 0) {
+            throw new IllegalArgumentException("Maximum DB concurrency must not be negative: " + maxConcurrency);
+        }
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency, true) : null;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        if (permits != null) {
+            logger.info("Todo DB concurrency limited to {} statements (acquire timeout {}).", maxConcurrency, acquireTimeout);
+        }
+    }
+
+    /**
+     * Runs a database call once a permit is available.
+     *
+     * @param call the database call to run.
+     * @param <T>  the result type of the call.
+     * @return the call's result.
+     * @throws TodoStorageBusyException if no permit became available within the acquire timeout.
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (permits == null) {
+            return call.get();
+        }
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Opens a stream over a database cursor once a permit is available. The statement keeps running while the
+     * stream is consumed, so the permit is only released when the stream is closed, or at once if opening fails.
+     *
+     * @param call the database call that opens the stream.
+     * @param <T>  the element type of the stream.
+     * @return the stream, which must be closed to release the permit.
+     * @throws TodoStorageBusyException if no permit became available within the acquire timeout.
+     */
+    public <T> Stream<T> stream(Supplier<Stream<T>> call) {
+        if (permits == null) {
+            return call.get();
+        }
+        acquire();
+        Stream<T> stream;
+        try {
+            stream = call.get();
+        } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return stream.onClose(() -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * Gets the number of permits currently available.
+     *
+     * @return the available permits, or -1 if the limiter is disabled.
+     */
+    public int availablePermits() {
+        return permits == null ? -1 : permits.availablePermits();
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new TodoStorageBusyException("Todo storage is busy, try again later.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TodoStorageBusyException("Interrupted while waiting for the Todo storage.");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package poc.todo.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Allocates unique Todo IDs using a hi/lo scheme.
+ * Blocks of IDs are reserved in the database with a single statement and then handed out
+ * lock-free from memory, so most inserts need no extra round trip to obtain their ID.
+ * A reserved block is persisted before any of its IDs is used, which keeps IDs unique across restarts;
+ * IDs left over in a block when the application stops are simply skipped.
+ * The high-water mark lives in the todo_meta table created by {@link TodoSchema}.
+ */
+@Component
+@DependsOn("todoSchema")
+public class TodoIdAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoIdAllocator.class);
+
+    private final JdbcOperations jdbcOperations;
+    private final int blockSize;
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    private volatile Block current = new Block(0, 0); // Empty block, the first call reserves a real one
+
+    /**
+     * Constructor for TodoIdAllocator.
+     *
+     * @param jdbcOperations the JDBC operations used to reserve ID blocks.
+     * @param blockSize      the number of IDs reserved per database round trip.
+     */
+    @Autowired
+    public TodoIdAllocator(JdbcOperations jdbcOperations, @Value("${todo.id.block-size:100}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("ID block size must be positive: " + blockSize);
+        }
+        this.jdbcOperations = jdbcOperations;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the next unique Todo ID, reserving a new block from the database when the current one is used up.
+     *
+     * @return a unique Todo ID.
+     */
+    public long nextId() {
+        while (true) {
+            Block block = current;
+            long id = block.next.getAndIncrement();
+            if (id < block.limit) {
+                return id;
+            }
+            refill(block);
+        }
+    }
+
+    /**
+     * Replaces the exhausted block with a freshly reserved one, unless another thread already did.
+     *
+     * @param exhausted the block the caller found empty.
+     */
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (current == exhausted) {
+                current = reserveBlock();
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    /**
+     * Reserves the next block of IDs in the database.
+     * The reservation never goes below MAX(ID) + 1, so rows written by other paths (e.g. JPA) are not reused.
+     *
+     * @return the reserved block.
+     */
+    private Block reserveBlock() {
+        Long limit = jdbcOperations.queryForObject(Queries.QUERY_RESERVE_BLOCK, Long.class, blockSize);
+        long start = limit - blockSize;
+        logger.info("Reserved Todo ID block [{}, {}).", start, limit);
+        return new Block(start, limit);
+    }
+
+    /**
+     * A contiguous range of reserved IDs, handed out with an atomic counter.
+     */
+    private static final class Block {
+        final AtomicLong next;
+        final long limit;
+
+        Block(long start, long limit) {
+            this.next = new AtomicLong(start);
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * Defines SQL queries used by the TodoIdAllocator.
+     */
+    interface Queries {
+        String QUERY_RESERVE_BLOCK = "UPDATE todo_meta SET value = MAX(value, (SELECT IFNULL(MAX(ID), 0) + 1 FROM Todo)) + ? "
+                + "WHERE name = 'next_id' RETURNING value"; // Reserve a block and return its exclusive upper bound.
+    }
+}
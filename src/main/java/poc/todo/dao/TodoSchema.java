@@ -0,0 +1,193 @@
+package poc.todo.dao;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Creates the Todo schema on an empty database and brings an existing one up to the columns, indexes and tables
+ * the DAOs expect. Every step checks the current schema first, so running it against an already migrated database
+ * does nothing. The schema version is recorded in SQLite's user_version, and a database stamped by a newer build
+ * is refused rather than used with a schema this build does not know.
+ * <p>
+ * A Todo table created here declares ID as INTEGER PRIMARY KEY, which makes it an alias of the ROWID:
+ * lookups by ID search the table itself, with no separate primary key index to maintain or read first.
+ * Tables created by earlier versions keep their layout.
+ * <p>
+ * The sync columns support the delta feed: every mutation stamps the row with the next change sequence number,
+ * and deleted rows stay behind as tombstones until they are compacted (see {@link TodoTombstoneCompactor}).
+ * <p>
+ * Descriptions are indexed for full-text search in the TodoSearch FTS5 table. It is an external-content index
+ * over the live Todo items: it stores only the index, not a copy of the text, and triggers keep it in sync
+ * with every write to the Todo table, whichever storage engine or mapper makes it.
+ * <p>
+ * The todo_meta table holds named counters and settings: the ID high-water mark of {@link TodoIdAllocator}
+ * and the layout of a shard of {@link ShardedTodoDao}.
+ */
+@Component
+public class TodoSchema {
+
+    /**
+     * The schema version this build creates and migrates to.
+     */
+    public static final int SCHEMA_VERSION = 2;
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoSchema.class);
+
+    private final JdbcOperations jdbcOperations;
+    private List<String> applied = List.of();
+
+    /**
+     * Constructor for TodoSchema.
+     *
+     * @param jdbcOperations the JDBC operations used to inspect and alter the schema.
+     */
+    @Autowired
+    public TodoSchema(JdbcOperations jdbcOperations) {
+        this.jdbcOperations = jdbcOperations;
+    }
+
+    /**
+     * Creates the Todo table if there is none, then adds the missing columns, indexes and tables.
+     *
+     * @throws IllegalStateException if the database was migrated by a newer build.
+     */
+    @PostConstruct
+    public void migrate() {
+        Integer version = jdbcOperations.queryForObject(Queries.QUERY_USER_VERSION, Integer.class);
+        int from = version == null ? 0 : version;
+        if (from > SCHEMA_VERSION) {
+            throw new IllegalStateException("The Todo database is at schema version " + from
+                    + ", newer than version " + SCHEMA_VERSION + " this build supports");
+        }
+        Set<String> objects = new HashSet<>(jdbcOperations.query(Queries.QUERY_SCHEMA_OBJECTS,
+                (rs, rowNum) -> rs.getString("name").toLowerCase(Locale.ROOT)));
+        applied = new ArrayList<>();
+        if (!objects.contains("todo")) {
+            jdbcOperations.execute(Queries.CREATE_TODO_TABLE);
+            applied.add("Todo table");
+        }
+        List<String> columns = jdbcOperations.query(Queries.QUERY_TABLE_INFO, (rs, rowNum) -> rs.getString("name"));
+        if (!hasColumn(columns, "version")) {
+            jdbcOperations.execute(Queries.ADD_VERSION_COLUMN);
+            applied.add("VERSION column");
+        }
+        if (!hasColumn(columns, "change_seq")) {
+            jdbcOperations.execute(Queries.ADD_CHANGE_SEQ_COLUMN);
+            int rows = jdbcOperations.update(Queries.BACKFILL_CHANGE_SEQ);
+            applied.add("CHANGE_SEQ column (" + rows + " Todo items numbered)");
+        }
+        if (!hasColumn(columns, "deleted")) {
+            jdbcOperations.execute(Queries.ADD_DELETED_COLUMN);
+            jdbcOperations.execute(Queries.ADD_DELETED_AT_COLUMN);
+            applied.add("DELETED and DELETED_AT columns");
+        }
+        createIfMissing(objects, "Todo_CHANGE_SEQ", Queries.CREATE_CHANGE_SEQ_INDEX, applied);
+        createIfMissing(objects, "Todo_TOMBSTONE", Queries.CREATE_TOMBSTONE_INDEX, applied);
+        createIfMissing(objects, "Todo_COMPLETED", Queries.CREATE_COMPLETED_INDEX, applied);
+        createIfMissing(objects, "TodoSyncState", Queries.CREATE_SYNC_STATE_TABLE, applied);
+        jdbcOperations.update(Queries.INIT_SYNC_STATE);
+        createIfMissing(objects, "todo_meta", Queries.CREATE_META_TABLE, applied);
+        jdbcOperations.update(Queries.INIT_NEXT_ID);
+        migrateSearchIndex(objects, applied);
+        if (from < SCHEMA_VERSION) {
+            jdbcOperations.execute(Queries.SET_USER_VERSION + SCHEMA_VERSION);
+        }
+
+        if (applied.isEmpty()) {
+            logger.info("Todo schema is up to date at version {}.", SCHEMA_VERSION);
+        } else {
+            logger.info("Migrated the Todo schema from version {} to {}: {}.", from, SCHEMA_VERSION, String.join(", ", applied));
+        }
+    }
+
+    /**
+     * Gets the steps the last migration applied.
+     *
+     * @return the steps that changed the schema, empty if it was already up to date.
+     */
+    public List<String> getAppliedSteps() {
+        return applied;
+    }
+
+    /**
+     * Creates the full-text search index and its triggers. The index is built from the existing
+     * Todo items when it is first created; afterwards the triggers keep it up to date.
+     */
+    private void migrateSearchIndex(Set<String> objects, List<String> applied) {
+        createIfMissing(objects, "TodoLive", Queries.CREATE_LIVE_VIEW, applied);
+        if (!objects.contains("todosearch")) {
+            jdbcOperations.execute(Queries.CREATE_SEARCH_TABLE);
+            long start = System.nanoTime();
+            jdbcOperations.update(Queries.REBUILD_SEARCH_INDEX);
+            applied.add("TodoSearch full-text index (built in " + (System.nanoTime() - start) / 1_000_000 + " ms)");
+        }
+        createIfMissing(objects, "TodoSearch_insert", Queries.CREATE_SEARCH_INSERT_TRIGGER, applied);
+        createIfMissing(objects, "TodoSearch_update", Queries.CREATE_SEARCH_UPDATE_TRIGGER, applied);
+        createIfMissing(objects, "TodoSearch_delete", Queries.CREATE_SEARCH_DELETE_TRIGGER, applied);
+    }
+
+    /**
+     * Runs the statement creating a schema object unless an object of that name already exists.
+     */
+    private void createIfMissing(Set<String> objects, String name, String statement, List<String> applied) {
+        if (!objects.contains(name.toLowerCase(Locale.ROOT))) {
+            jdbcOperations.execute(statement);
+            applied.add(name);
+        }
+    }
+
+    /**
+     * Checks whether a column is in the list returned by the table info query.
+     */
+    private static boolean hasColumn(List<String> columns, String name) {
+        return columns.stream().anyMatch(name::equalsIgnoreCase);
+    }
+
+    /**
+     * Defines SQL statements used by the TodoSchema.
+     */
+    interface Queries {
+        String QUERY_USER_VERSION = "PRAGMA user_version"; // Schema version recorded in the database header.
+        String SET_USER_VERSION = "PRAGMA user_version = "; // Record the schema version; followed by the version number.
+        String QUERY_SCHEMA_OBJECTS = "SELECT name FROM sqlite_master"; // Names of all tables, indexes, views and triggers.
+        String CREATE_TODO_TABLE = "CREATE TABLE IF NOT EXISTS Todo (ID INTEGER PRIMARY KEY, DESCRIPTION VARCHAR(255), COMPLETED BOOLEAN, "
+                + "VERSION INTEGER NOT NULL DEFAULT 0, CHANGE_SEQ INTEGER NOT NULL DEFAULT 0, DELETED INTEGER NOT NULL DEFAULT 0, "
+                + "DELETED_AT INTEGER)"; // Todo table at the current schema, keyed by the ROWID.
+        String QUERY_TABLE_INFO = "PRAGMA table_info(Todo)"; // List the columns of the Todo table.
+        String ADD_VERSION_COLUMN = "ALTER TABLE Todo ADD COLUMN VERSION INTEGER NOT NULL DEFAULT 0"; // Row version for optimistic locking.
+        String ADD_CHANGE_SEQ_COLUMN = "ALTER TABLE Todo ADD COLUMN CHANGE_SEQ INTEGER NOT NULL DEFAULT 0"; // Sequence number of the row's last change.
+        String BACKFILL_CHANGE_SEQ = "UPDATE Todo SET CHANGE_SEQ = ROWID"; // Give rows that predate the column distinct sequence numbers.
+        String ADD_DELETED_COLUMN = "ALTER TABLE Todo ADD COLUMN DELETED INTEGER NOT NULL DEFAULT 0"; // Tombstone flag.
+        String ADD_DELETED_AT_COLUMN = "ALTER TABLE Todo ADD COLUMN DELETED_AT INTEGER"; // Deletion time of a tombstone, in epoch milliseconds.
+        String CREATE_CHANGE_SEQ_INDEX = "CREATE INDEX IF NOT EXISTS Todo_CHANGE_SEQ ON Todo (CHANGE_SEQ)"; // Range scans of the delta feed and MAX(CHANGE_SEQ).
+        String CREATE_TOMBSTONE_INDEX = "CREATE INDEX IF NOT EXISTS Todo_TOMBSTONE ON Todo (DELETED_AT) WHERE DELETED = 1"; // Tombstones by age, for compaction.
+        String CREATE_COMPLETED_INDEX = "CREATE INDEX IF NOT EXISTS Todo_COMPLETED ON Todo (COMPLETED, ID) WHERE DELETED = 0"; // Filtered listing by ID and covering counts of live Todo items.
+        String CREATE_SYNC_STATE_TABLE = "CREATE TABLE IF NOT EXISTS TodoSyncState (ID INTEGER PRIMARY KEY CHECK (ID = 1), "
+                + "COMPACTED_THROUGH INTEGER NOT NULL)"; // Single row holding the highest compacted change sequence number.
+        String INIT_SYNC_STATE = "INSERT OR IGNORE INTO TodoSyncState (ID, COMPACTED_THROUGH) VALUES (1, 0)"; // Create the sync state row.
+        String CREATE_META_TABLE = "CREATE TABLE IF NOT EXISTS todo_meta (name TEXT PRIMARY KEY, value INTEGER NOT NULL)"; // Named counters and settings.
+        String INIT_NEXT_ID = "INSERT OR IGNORE INTO todo_meta (name, value) VALUES ('next_id', 1)"; // Seed the ID high-water mark of TodoIdAllocator.
+        String CREATE_LIVE_VIEW = "CREATE VIEW IF NOT EXISTS TodoLive AS SELECT ID, DESCRIPTION FROM Todo WHERE DELETED = 0"; // Content of the search index: the live Todo items.
+        String CREATE_SEARCH_TABLE = "CREATE VIRTUAL TABLE TodoSearch USING fts5(DESCRIPTION, content = 'TodoLive', "
+                + "content_rowid = 'ID', prefix = '2 3')"; // Full-text index of the descriptions, with prefix indexes for 2 and 3 characters.
+        String REBUILD_SEARCH_INDEX = "INSERT INTO TodoSearch (TodoSearch) VALUES ('rebuild')"; // Rebuild the search index from the live Todo items.
+        String CREATE_SEARCH_INSERT_TRIGGER = "CREATE TRIGGER IF NOT EXISTS TodoSearch_insert AFTER INSERT ON Todo WHEN new.DELETED = 0 BEGIN "
+                + "INSERT INTO TodoSearch (rowid, DESCRIPTION) VALUES (new.ID, new.DESCRIPTION); END"; // Index a new Todo.
+        String CREATE_SEARCH_UPDATE_TRIGGER = "CREATE TRIGGER IF NOT EXISTS TodoSearch_update AFTER UPDATE OF DESCRIPTION, DELETED ON Todo "
+                + "WHEN old.DESCRIPTION IS NOT new.DESCRIPTION OR old.DELETED <> new.DELETED BEGIN "
+                + "INSERT INTO TodoSearch (TodoSearch, rowid, DESCRIPTION) SELECT 'delete', old.ID, old.DESCRIPTION WHERE old.DELETED = 0; "
+                + "INSERT INTO TodoSearch (rowid, DESCRIPTION) SELECT new.ID, new.DESCRIPTION WHERE new.DELETED = 0; END"; // Reindex a changed description, unindex a tombstone.
+        String CREATE_SEARCH_DELETE_TRIGGER = "CREATE TRIGGER IF NOT EXISTS TodoSearch_delete AFTER DELETE ON Todo WHEN old.DELETED = 0 BEGIN "
+                + "INSERT INTO TodoSearch (TodoSearch, rowid, DESCRIPTION) VALUES ('delete', old.ID, old.DESCRIPTION); END"; // Unindex a removed Todo.
+    }
+}
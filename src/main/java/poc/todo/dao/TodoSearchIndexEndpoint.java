@@ -0,0 +1,49 @@
+package poc.todo.dao;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint to rebuild the full-text search index of the Todo descriptions from the Todo table,
+ * e.g. after data was imported with the triggers missing: {@code POST /actuator/todosearch}.
+ * The index of each shard of the sharded engine, when enabled, is rebuilt as well.
+ */
+@Component
+@Endpoint(id = "todosearch")
+public class TodoSearchIndexEndpoint {
+
+    private final TodoDaoImpl todoDao;
+    private final ShardedTodoDao shardedTodoDao; // Null unless the sharded engine is enabled
+
+    /**
+     * Constructor for TodoSearchIndexEndpoint.
+     *
+     * @param todoDao        the JDBC TodoDao that owns the search index.
+     * @param shardedTodoDao the sharded TodoDao, if it is enabled.
+     */
+    @Autowired
+    public TodoSearchIndexEndpoint(TodoDaoImpl todoDao, ObjectProvider<ShardedTodoDao> shardedTodoDao) {
+        this.todoDao = todoDao;
+        this.shardedTodoDao = shardedTodoDao.getIfAvailable();
+    }
+
+    /**
+     * Rebuilds the search index.
+     *
+     * @return the time the rebuild took.
+     */
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        long start = System.nanoTime();
+        todoDao.rebuildSearchIndex();
+        if (shardedTodoDao != null) {
+            shardedTodoDao.rebuildSearchIndex();
+        }
+        return Map.of("rebuildMs", (System.nanoTime() - start) / 1_000_000);
+    }
+}
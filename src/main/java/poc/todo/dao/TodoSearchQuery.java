@@ -0,0 +1,45 @@
+package poc.todo.dao;
+
+/**
+ * Turns the text a user typed into an FTS5 match expression for the TodoSearch index.
+ * <p>
+ * Every whitespace-separated term is quoted, so FTS5 operators and punctuation in the input are searched
+ * for as text instead of being parsed as query syntax, and a malformed query can never fail the statement.
+ * The terms are combined with AND. A term ending in "*" matches any word starting with it.
+ */
+final class TodoSearchQuery {
+
+    private TodoSearchQuery() {
+    }
+
+    /**
+     * Builds the match expression for a search.
+     *
+     * @param text the search text, e.g. "milk buy*".
+     * @return the match expression, e.g. {@code "milk" "buy"*}, or null if the text has no terms.
+     */
+    static String toMatchExpression(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder expression = new StringBuilder();
+        for (String term : text.trim().split("\\s+")) {
+            boolean prefix = term.endsWith("*");
+            int end = term.length();
+            while (end > 0 && term.charAt(end - 1) == '*') {
+                end--;
+            }
+            if (end == 0) {
+                continue;
+            }
+            if (!expression.isEmpty()) {
+                expression.append(' ');
+            }
+            expression.append('"').append(term.substring(0, end).replace("\"", "\"\"")).append('"');
+            if (prefix) {
+                expression.append('*');
+            }
+        }
+        return expression.isEmpty() ? null : expression.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package poc.todo.dao;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically removes the tombstones of Todo items deleted longer ago than the retention window.
+ * <p>
+ * The retention window is how long a client can stay offline and still catch up through the delta feed;
+ * a client resuming from before the compaction horizon is told to reload all Todo items instead.
+ * Tombstones of the JDBC and in-memory storage engines live in the Todo table, so compaction goes through
+ * {@link TodoDaoImpl}; the sharded engine, when enabled, compacts the Todo table of each of its shards as well.
+ */
+@Component
+public class TodoTombstoneCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoTombstoneCompactor.class);
+
+    private final TodoDaoImpl todoDao;
+    private final ShardedTodoDao shardedTodoDao; // Null unless the sharded engine is enabled
+    private final Duration retention;
+    private final ScheduledExecutorService compactionExecutor;
+
+    /**
+     * Constructor for TodoTombstoneCompactor, scheduling the periodic compaction.
+     *
+     * @param todoDao        the JDBC TodoDao that removes the tombstones.
+     * @param shardedTodoDao the sharded TodoDao, if it is enabled.
+     * @param retention      how long a tombstone is kept after the deletion.
+     * @param interval       how often tombstones are compacted; zero disables the periodic compaction.
+     */
+    @Autowired
+    public TodoTombstoneCompactor(TodoDaoImpl todoDao, ObjectProvider<ShardedTodoDao> shardedTodoDao,
+                                  @Value("${todo.sync.tombstone-retention:7d}") Duration retention,
+                                  @Value("${todo.sync.compaction-interval:1h}") Duration interval) {
+        if (retention.isNegative() || interval.isNegative()) {
+            throw new IllegalArgumentException("Tombstone retention and compaction interval must not be negative");
+        }
+        this.todoDao = todoDao;
+        this.shardedTodoDao = shardedTodoDao.getIfAvailable();
+        this.retention = retention;
+        this.compactionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "todo-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = interval.toMillis();
+        if (intervalMs > 0) {
+            compactionExecutor.scheduleWithFixedDelay(this::compactQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Removes the tombstones that have outlived the retention window.
+     *
+     * @return the number of tombstones removed.
+     */
+    public int compact() {
+        long deletedBefore = System.currentTimeMillis() - retention.toMillis();
+        int removed = todoDao.compactTombstones(deletedBefore);
+        if (shardedTodoDao != null) {
+            removed += shardedTodoDao.compactTombstones(deletedBefore);
+        }
+        if (removed > 0) {
+            logger.info("Compacted {} Todo tombstones older than {}.", removed, retention);
+        }
+        return removed;
+    }
+
+    /**
+     * Stops the periodic compaction.
+     */
+    @PreDestroy
+    public void shutdown() {
+        compactionExecutor.shutdownNow();
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            logger.error("Compaction of Todo tombstones failed, will retry: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package poc.todo.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer group-commit pipeline for Todo mutations.
+ * <p>
+ * SQLite only allows one writer at a time, so instead of every request thread competing for the file lock
+ * with its own autocommit transaction, mutations are queued and executed by one dedicated writer thread.
+ * The writer drains whatever is pending (up to a maximum batch size, waiting at most a short delay for
+ * more work) and runs the whole batch in one transaction. Callers get their result only after that
+ * transaction commits, so durability is unchanged while the commit cost is shared by the batch.
+ * <p>
+ * If a batch fails, its operations are retried one per transaction so one bad write does not fail the others.
+ * Enabled with "todo.write-pipeline.enabled=true".
+ */
+@Component
+@ConditionalOnProperty(name = "todo.write-pipeline.enabled", havingValue = "true")
+public class TodoWritePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoWritePipeline.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<WriteTask<?>> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Thread writerThread;
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final AtomicLong committedOperations = new AtomicLong();
+    private volatile boolean running = true;
+
+    /**
+     * Constructor for TodoWritePipeline, starting the writer thread.
+     *
+     * @param jdbcTransactionTemplate the transaction template each batch runs in.
+     * @param queueCapacity           the maximum number of pending operations before callers block.
+     * @param maxBatchSize            the maximum number of operations committed together.
+     * @param maxDelayMs              the longest the writer waits for more operations before committing a batch.
+     */
+    @Autowired
+    public TodoWritePipeline(TransactionTemplate jdbcTransactionTemplate,
+                             @Value("${todo.write-pipeline.queue-capacity:1024}") int queueCapacity,
+                             @Value("${todo.write-pipeline.max-batch-size:64}") int maxBatchSize,
+                             @Value("${todo.write-pipeline.max-delay-ms:1}") long maxDelayMs) {
+        this.transactionTemplate = jdbcTransactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.writerThread = new Thread(this::runWriter, "todo-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        logger.info("Todo write pipeline started (queue capacity {}, batch size {}, max delay {} ms).",
+                queueCapacity, maxBatchSize, maxDelayMs);
+    }
+
+    /**
+     * Queues a write operation, blocking while the queue is full.
+     * An operation queued while the pipeline shuts down is either run by the draining writer or failed,
+     * never left in the queue with no writer to run it.
+     *
+     * @param operation the database work to run on the writer thread.
+     * @param <T>       the result type of the operation.
+     * @return a future completed with the operation's result once its batch has committed.
+     * @throws IllegalStateException if the pipeline is shut down.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        if (!running) {
+            throw new IllegalStateException("Todo write pipeline is shut down.");
+        }
+        WriteTask<T> task = new WriteTask<>(operation);
+        try {
+            while (!queue.offer(task, 100, TimeUnit.MILLISECONDS)) {
+                if (!running) {
+                    throw new IllegalStateException("Todo write pipeline is shut down.");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a Todo write.", e);
+        }
+        // The writer may have seen an empty queue for the last time before the task went in; taking the
+        // task back out succeeds only if the writer has not, and then nobody else will run it
+        if (!running && queue.remove(task)) {
+            throw new IllegalStateException("Todo write pipeline is shut down.");
+        }
+        return task.future;
+    }
+
+    /**
+     * Queues a write operation and waits until its batch has committed.
+     *
+     * @param operation the database work to run on the writer thread.
+     * @param <T>       the result type of the operation.
+     * @return the operation's result.
+     */
+    public <T> T execute(Supplier<T> operation) {
+        try {
+            return submit(operation).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of batches committed so far.
+     *
+     * @return the committed batch count.
+     */
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    /**
+     * Gets the number of operations committed so far.
+     *
+     * @return the committed operation count.
+     */
+    public long getCommittedOperations() {
+        return committedOperations.get();
+    }
+
+    /**
+     * Stops accepting work, lets the writer drain the queue and waits for it to finish.
+     * Operations the writer did not get to in time are failed rather than left waiting.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        List<WriteTask<?>> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        if (!leftover.isEmpty()) {
+            logger.warn("Todo write pipeline stopped with {} operations still queued; failing them.", leftover.size());
+            leftover.forEach(task -> task.fail(new IllegalStateException("Todo write pipeline is shut down.")));
+        }
+        logger.info("Todo write pipeline stopped after {} operations in {} batches.",
+                committedOperations.get(), committedBatches.get());
+    }
+
+    private void runWriter() {
+        List<WriteTask<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                WriteTask<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in Todo write pipeline: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds pending operations to the batch until it is full or the maximum delay has passed.
+     */
+    private void collectBatch(List<WriteTask<?>> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            WriteTask<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    /**
+     * Runs the batch in one transaction, falling back to one transaction per operation if it fails.
+     */
+    private void commit(List<WriteTask<?>> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(WriteTask::run));
+            committedBatches.incrementAndGet();
+            committedOperations.addAndGet(batch.size());
+            batch.forEach(WriteTask::complete);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).fail(e);
+                return;
+            }
+            logger.warn("Batch of {} Todo writes failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (WriteTask<?> task : batch) {
+                commit(List.of(task));
+            }
+        }
+    }
+
+    /**
+     * A queued write operation together with the future its caller waits on.
+     */
+    private static final class WriteTask<T> {
+        final Supplier<T> operation;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+
+        WriteTask(Supplier<T> operation) {
+            this.operation = operation;
+        }
+
+        void run() {
+            result = operation.get();
+        }
+
+        void complete() {
+            future.complete(result);
+        }
+
+        void fail(Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package poc.todo.exception;
+
+import java.io.IOException;
+
+/**
+ * Custom exception thrown while reading a compressed request body that inflates past the configured maximum size.
+ * It is an IOException, as it is thrown from the body's input stream.
+ */
+public class RequestBodyTooLargeException extends IOException {
+
+    /**
+     * Constructs a new RequestBodyTooLargeException with the specified detail message.
+     *
+     * @param message the detail message indicating why the exception was thrown.
+     */
+    public RequestBodyTooLargeException(String message) {
+        super(message); // Pass the message to the IOException constructor
+    }
+}
@@ -0,0 +1,17 @@
+package poc.todo.exception;
+
+/**
+ * Custom exception thrown when a client asks for Todo changes from before the tombstone compaction horizon,
+ * so deletions it has not seen may be gone and it has to reload all Todo items.
+ */
+public class TodoChangesExpiredException extends RuntimeException {
+
+    /**
+     * Constructs a new TodoChangesExpiredException with the specified detail message.
+     *
+     * @param message the detail message indicating why the exception was thrown.
+     */
+    public TodoChangesExpiredException(String message) {
+        super(message); // Pass the message to the RuntimeException constructor
+    }
+}
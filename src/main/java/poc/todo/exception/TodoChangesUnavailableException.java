@@ -0,0 +1,17 @@
+package poc.todo.exception;
+
+/**
+ * Custom exception thrown when a client asks for the delta feed of a storage engine that has no single
+ * change sequence to offer it, such as the sharded one.
+ */
+public class TodoChangesUnavailableException extends RuntimeException {
+
+    /**
+     * Constructs a new TodoChangesUnavailableException with the specified detail message.
+     *
+     * @param message the detail message indicating why the exception was thrown.
+     */
+    public TodoChangesUnavailableException(String message) {
+        super(message); // Pass the message to the RuntimeException constructor
+    }
+}
@@ -0,0 +1,16 @@
+package poc.todo.exception;
+
+/**
+ * Custom exception thrown when the Todo storage is saturated and a request could not get access to it in time.
+ */
+public class TodoStorageBusyException extends RuntimeException {
+
+    /**
+     * Constructs a new TodoStorageBusyException with the specified detail message.
+     *
+     * @param message the detail message indicating why the exception was thrown.
+     */
+    public TodoStorageBusyException(String message) {
+        super(message); // Pass the message to the RuntimeException constructor
+    }
+}
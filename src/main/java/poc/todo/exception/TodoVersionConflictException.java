@@ -0,0 +1,16 @@
+package poc.todo.exception;
+
+/**
+ * Custom exception thrown when a Todo item was changed since the version the client based its request on.
+ */
+public class TodoVersionConflictException extends RuntimeException {
+
+    /**
+     * Constructs a new TodoVersionConflictException with the specified detail message.
+     *
+     * @param message the detail message indicating why the exception was thrown.
+     */
+    public TodoVersionConflictException(String message) {
+        super(message); // Pass the message to the RuntimeException constructor
+    }
+}
@@ -0,0 +1,16 @@
+package poc.todo.exception;
+
+/**
+ * Custom exception thrown when a client asks for a Todo field that does not exist or cannot be selected.
+ */
+public class UnknownTodoFieldException extends RuntimeException {
+
+    /**
+     * Constructs a new UnknownTodoFieldException with the specified detail message.
+     *
+     * @param message the detail message indicating why the exception was thrown.
+     */
+    public UnknownTodoFieldException(String message) {
+        super(message); // Pass the message to the RuntimeException constructor
+    }
+}
@@ -0,0 +1,16 @@
+package poc.todo.exception;
+
+/**
+ * Custom exception thrown when a client asks for a bulk export or sends a bulk import in a format that is not supported.
+ */
+public class UnsupportedTodoFormatException extends RuntimeException {
+
+    /**
+     * Constructs a new UnsupportedTodoFormatException with the specified detail message.
+     *
+     * @param message the detail message indicating why the exception was thrown.
+     */
+    public UnsupportedTodoFormatException(String message) {
+        super(message); // Pass the message to the RuntimeException constructor
+    }
+}
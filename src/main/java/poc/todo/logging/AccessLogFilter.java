@@ -0,0 +1,96 @@
+package poc.todo.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes one access log record per request: method, route, Todo ID, status, rows touched and timings.
+ * <p>
+ * Records go to the "poc.todo.access" logger, which logback-spring.xml sends through a bounded asynchronous
+ * appender, so request threads never wait for the console. Successful fast requests are sampled with
+ * "todo.access-log.sample-rate"; server errors and requests slower than "todo.access-log.slow-threshold"
+ * are always logged. The filter only applies to the servlet API.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "todo.access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Logger accessLog = LoggerFactory.getLogger("poc.todo.access");
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    /**
+     * Constructor for AccessLogFilter.
+     *
+     * @param sampleRate    the fraction of ordinary requests to log, from 0 to 1.
+     * @param slowThreshold the duration from which a request is always logged.
+     */
+    @Autowired
+    public AccessLogFilter(@Value("${todo.access-log.sample-rate:1.0}") double sampleRate,
+                           @Value("${todo.access-log.slow-threshold:500ms}") Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestStats stats = RequestStats.reset();
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR; // Kept if the chain throws
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (accessLog.isInfoEnabled() && shouldLog(status, elapsed)) {
+                accessLog.info("method={} route={} id={} status={} rows={} db_us={} total_us={}",
+                        request.getMethod(), routeOf(request), idOf(request), status, stats.getRows(),
+                        stats.getDbNanos() / 1_000, elapsed / 1_000);
+            }
+        }
+    }
+
+    /**
+     * Decides whether a request is logged: server errors and slow requests always, others when sampled.
+     */
+    private boolean shouldLog(int status, long elapsedNanos) {
+        return status >= 500 || elapsedNanos >= slowThresholdNanos
+                || sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Gets the matched route template, such as "/todos/{id}", falling back to the request path.
+     */
+    private static Object routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern : request.getRequestURI();
+    }
+
+    /**
+     * Gets the Todo ID from the route variables, or "-" if the route has none.
+     */
+    private static Object idOf(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        Object id = variables instanceof Map<?, ?> map ? map.get("id") : null;
+        return id != null ? id : "-";
+    }
+}
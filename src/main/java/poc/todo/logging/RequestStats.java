@@ -0,0 +1,75 @@
+package poc.todo.logging;
+
+/**
+ * Per-thread totals of the database work done for the current request, reported by the access log.
+ * The DAO adds to it as statements run and {@link AccessLogFilter} resets it when a request starts.
+ * Statements that run on another thread, such as the write pipeline's writer, are accounted for by the
+ * thread that waited for them.
+ */
+public final class RequestStats {
+
+    private static final ThreadLocal<RequestStats> CURRENT = ThreadLocal.withInitial(RequestStats::new);
+
+    private long rows;     // Rows read or written
+    private long dbNanos;  // Time spent in database calls
+
+    private RequestStats() {
+    }
+
+    /**
+     * Gets the totals of the current thread.
+     *
+     * @return the RequestStats of the current thread.
+     */
+    public static RequestStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Clears the totals of the current thread, at the start of a request.
+     *
+     * @return the cleared RequestStats of the current thread.
+     */
+    public static RequestStats reset() {
+        RequestStats stats = CURRENT.get();
+        stats.rows = 0;
+        stats.dbNanos = 0;
+        return stats;
+    }
+
+    /**
+     * Adds to the number of rows read or written.
+     *
+     * @param count the number of rows.
+     */
+    public void addRows(long count) {
+        rows += count;
+    }
+
+    /**
+     * Adds to the time spent in database calls.
+     *
+     * @param nanos the elapsed time in nanoseconds.
+     */
+    public void addDbTime(long nanos) {
+        dbNanos += nanos;
+    }
+
+    /**
+     * Gets the number of rows read or written.
+     *
+     * @return the number of rows.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the time spent in database calls.
+     *
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getDbNanos() {
+        return dbNanos;
+    }
+}
@@ -0,0 +1,97 @@
+package poc.todo.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the Todo meters: latency timers for service operations and SQL statements, and exception counters.
+ * <p>
+ * Meters are meant to be looked up once and kept in fields, so the hot path only pays for recording a
+ * duration and never for resolving a meter by name and tags. Percentile histograms are switched on per
+ * meter name with the "management.metrics.distribution.percentiles-histogram" properties.
+ * HTTP routes are timed by Spring MVC itself, as "http.server.requests".
+ */
+@Component
+public class TodoMetrics {
+
+    /**
+     * Name of the timers for TodoServiceDao operations, tagged by "operation".
+     */
+    public static final String SERVICE_TIMER = "todo.service";
+
+    /**
+     * Name of the timers for SQL statements, tagged by "query".
+     */
+    public static final String SQL_TIMER = "todo.sql";
+
+    /**
+     * Name of the counters for exceptions mapped to error responses, tagged by "exception".
+     */
+    public static final String EXCEPTION_COUNTER = "todo.exceptions";
+
+    private final MeterRegistry registry;
+
+    /**
+     * Constructor for TodoMetrics.
+     *
+     * @param registry the registry the meters are published to.
+     */
+    @Autowired
+    public TodoMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Gets the timer of a service operation.
+     *
+     * @param operation the name of the operation.
+     * @return the timer, to be kept by the caller.
+     */
+    public Timer serviceTimer(String operation) {
+        return Timer.builder(SERVICE_TIMER)
+                .description("Latency of Todo service operations")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    /**
+     * Gets the timer of a SQL statement.
+     *
+     * @param query the name of the statement.
+     * @return the timer, to be kept by the caller.
+     */
+    public Timer sqlTimer(String query) {
+        return Timer.builder(SQL_TIMER)
+                .description("Latency of Todo SQL statements")
+                .tag("query", query)
+                .register(registry);
+    }
+
+    /**
+     * Publishes the size, hit, miss and eviction meters of a cache.
+     *
+     * @param cacheName the name the cache is tagged with.
+     * @param cache     the cache to monitor.
+     */
+    public void monitorCache(String cacheName, Cache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(registry, cache, cacheName);
+    }
+
+    /**
+     * Gets the counter of an exception type.
+     *
+     * @param exceptionType the exception class.
+     * @return the counter, to be kept by the caller.
+     */
+    public Counter exceptionCounter(Class<? extends Throwable> exceptionType) {
+        return Counter.builder(EXCEPTION_COUNTER)
+                .description("Exceptions mapped to Todo error responses")
+                .tag("exception", exceptionType.getSimpleName())
+                .register(registry);
+    }
+}
@@ -1,14 +1,23 @@
 package poc.todo.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.SQLRestriction;
 
 /**
  * Represents a Todo item in the system.
+ * Rows of deleted Todo items kept as tombstones for delta sync are not mapped.
+ * Todo items are mapped to and from JSON by {@link TodoJson}, which leaves null fields out.
  */
 @Entity
+@JsonSerialize(using = TodoJson.Serializer.class)
+@JsonDeserialize(using = TodoJson.Deserializer.class)
+@SQLRestriction("DELETED = 0")
 public class Todo {
 
     @GeneratedValue(strategy = GenerationType.AUTO) // ID is auto-generated
@@ -69,6 +78,27 @@ public class Todo {
         this.completed = completed;
     }
 
+    /**
+     * Gets the version of the Todo item, which is incremented on every update.
+     *
+     * @return the version of the Todo item.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the Todo item.
+     *
+     * @param version the version to set for the Todo item.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     String description; // The description of the Todo item
     Boolean completed;  // Whether the Todo item is completed
+
+    @Version
+    Long version;       // Row version used for optimistic locking
 }
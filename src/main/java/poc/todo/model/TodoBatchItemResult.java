@@ -0,0 +1,136 @@
+package poc.todo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Represents the outcome of a single item in a batch create request.
+ * The service records whether the item was created; the controller turns that into the item's HTTP status.
+ */
+public class TodoBatchItemResult {
+
+    /**
+     * Whether an item of a batch was created or rejected.
+     */
+    public enum Outcome {
+        CREATED,
+        REJECTED
+    }
+
+    private int index;            // The position of the item in the request payload
+    @JsonIgnore
+    private Outcome outcome;      // Whether the item was created or rejected
+    private int status;           // The HTTP status code describing the outcome of this item, set by the controller
+    private Todo todo;            // The created Todo item, or null if the item failed
+    private String errorMessage;  // The reason the item failed, or null if it was created
+
+    /**
+     * Default constructor for TodoBatchItemResult.
+     */
+    public TodoBatchItemResult() {
+    }
+
+    /**
+     * Constructor for TodoBatchItemResult with its outcome, before an HTTP status is assigned.
+     *
+     * @param index        the position of the item in the request payload.
+     * @param outcome      whether the item was created or rejected.
+     * @param todo         the created Todo item, or null if the item failed.
+     * @param errorMessage the reason the item failed, or null if it was created.
+     */
+    public TodoBatchItemResult(int index, Outcome outcome, Todo todo, String errorMessage) {
+        this.index = index;
+        this.outcome = outcome;
+        this.todo = todo;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Gets the position of the item in the request payload.
+     *
+     * @return the index of the item.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Sets the position of the item in the request payload.
+     *
+     * @param index the index to set.
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Gets whether the item was created or rejected.
+     *
+     * @return the outcome of the item.
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Sets whether the item was created or rejected.
+     *
+     * @param outcome the outcome to set.
+     */
+    public void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    /**
+     * Gets the HTTP status code describing the outcome of this item.
+     *
+     * @return the status code.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the HTTP status code describing the outcome of this item.
+     *
+     * @param status the status code to set.
+     */
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the created Todo item.
+     *
+     * @return the created Todo item, or null if the item failed.
+     */
+    public Todo getTodo() {
+        return todo;
+    }
+
+    /**
+     * Sets the created Todo item.
+     *
+     * @param todo the Todo item to set.
+     */
+    public void setTodo(Todo todo) {
+        this.todo = todo;
+    }
+
+    /**
+     * Gets the reason the item failed.
+     *
+     * @return the error message, or null if the item was created.
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Sets the reason the item failed.
+     *
+     * @param errorMessage the error message to set.
+     */
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
@@ -0,0 +1,86 @@
+package poc.todo.model;
+
+import java.util.List;
+
+/**
+ * Represents the outcome of a batch create request, with one result per submitted item.
+ */
+public class TodoBatchResult {
+
+    private int created;                        // The number of Todo items that were created
+    private int failed;                         // The number of Todo items that were rejected
+    private List<TodoBatchItemResult> results;  // The per-item results, in request order
+
+    /**
+     * Default constructor for TodoBatchResult.
+     */
+    public TodoBatchResult() {
+    }
+
+    /**
+     * Constructor for TodoBatchResult with its counts and per-item results.
+     *
+     * @param created the number of created Todo items.
+     * @param failed  the number of rejected Todo items.
+     * @param results the per-item results, in request order.
+     */
+    public TodoBatchResult(int created, int failed, List<TodoBatchItemResult> results) {
+        this.created = created;
+        this.failed = failed;
+        this.results = results;
+    }
+
+    /**
+     * Gets the number of Todo items that were created.
+     *
+     * @return the number of created Todo items.
+     */
+    public int getCreated() {
+        return created;
+    }
+
+    /**
+     * Sets the number of Todo items that were created.
+     *
+     * @param created the number to set.
+     */
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    /**
+     * Gets the number of Todo items that were rejected.
+     *
+     * @return the number of rejected Todo items.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Sets the number of Todo items that were rejected.
+     *
+     * @param failed the number to set.
+     */
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Gets the per-item results.
+     *
+     * @return the per-item results, in request order.
+     */
+    public List<TodoBatchItemResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Sets the per-item results.
+     *
+     * @param results the per-item results to set.
+     */
+    public void setResults(List<TodoBatchItemResult> results) {
+        this.results = results;
+    }
+}
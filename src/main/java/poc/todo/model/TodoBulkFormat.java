@@ -0,0 +1,89 @@
+package poc.todo.model;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import poc.todo.exception.UnsupportedTodoFormatException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The formats of the bulk export and import of Todo items.
+ * JSON is a single array; NDJSON and CSV hold one Todo item per line (CSV after a header line naming the columns),
+ * so they can be written and read one item at a time at both ends.
+ */
+public enum TodoBulkFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    CSV(new MediaType("text", "csv"));
+
+    private final MediaType mediaType;
+
+    TodoBulkFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Chooses the export format: the one named by the "format" parameter, otherwise the format of the Accept
+     * header's media types with the highest quality, the most specific first on a tie, otherwise JSON.
+     * Media types with a quality of 0 are not acceptable and wildcards leave the choice to the default.
+     *
+     * @param format the value of the "format" parameter, e.g. "csv" (optional).
+     * @param accept the Accept header (optional).
+     * @return the export format.
+     * @throws UnsupportedTodoFormatException if the "format" parameter names no format.
+     */
+    public static TodoBulkFormat negotiate(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            String name = format.trim().toUpperCase(Locale.ROOT);
+            return Arrays.stream(values())
+                    .filter(value -> value.name().equals(name))
+                    .findFirst()
+                    .orElseThrow(() -> new UnsupportedTodoFormatException("Unknown format '" + format.trim()
+                            + "'; supported formats are json, ndjson and csv."));
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = accept == null ? new ArrayList<>() : new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            accepted = new ArrayList<>(); // Answered with the default, as the export ignored the header before
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()); // Stable: ties stay by specificity
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0 || mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+                continue;
+            }
+            for (TodoBulkFormat value : values()) {
+                if (value.mediaType.isCompatibleWith(mediaType)) {
+                    return value;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Gets the format of a request body from its media type.
+     *
+     * @param contentType the media type of the body.
+     * @return the format.
+     * @throws UnsupportedTodoFormatException if the media type is not one of the formats.
+     */
+    public static TodoBulkFormat of(MediaType contentType) {
+        return Arrays.stream(values())
+                .filter(value -> value.mediaType.isCompatibleWith(contentType))
+                .findFirst()
+                .orElseThrow(() -> new UnsupportedTodoFormatException("Unsupported content type '" + contentType
+                        + "'; supported types are application/json, application/x-ndjson and text/csv."));
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+}
@@ -0,0 +1,106 @@
+package poc.todo.model;
+
+/**
+ * Represents one entry of the Todo delta feed: the latest state of a Todo item that changed
+ * after a given change sequence number, or its tombstone if it was deleted.
+ */
+public class TodoChange {
+
+    private long seq;         // The change sequence number of the item's latest change
+    private long id;          // The ID of the changed Todo item
+    private boolean deleted;  // Whether the Todo item has been deleted
+    private Todo todo;        // The current Todo item, or null if it was deleted
+
+    /**
+     * Default constructor for TodoChange.
+     */
+    public TodoChange() {
+    }
+
+    /**
+     * Constructor for TodoChange with all its fields.
+     *
+     * @param seq     the change sequence number of the latest change.
+     * @param id      the ID of the changed Todo item.
+     * @param deleted whether the Todo item has been deleted.
+     * @param todo    the current Todo item, or null if it was deleted.
+     */
+    public TodoChange(long seq, long id, boolean deleted, Todo todo) {
+        this.seq = seq;
+        this.id = id;
+        this.deleted = deleted;
+        this.todo = todo;
+    }
+
+    /**
+     * Gets the change sequence number of the latest change.
+     *
+     * @return the change sequence number.
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Sets the change sequence number of the latest change.
+     *
+     * @param seq the change sequence number to set.
+     */
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    /**
+     * Gets the ID of the changed Todo item.
+     *
+     * @return the ID of the Todo item.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the changed Todo item.
+     *
+     * @param id the ID to set.
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Checks whether the Todo item has been deleted.
+     *
+     * @return true if this change is a tombstone.
+     */
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Sets whether the Todo item has been deleted.
+     *
+     * @param deleted true if this change is a tombstone.
+     */
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    /**
+     * Gets the current Todo item.
+     *
+     * @return the Todo item, or null if it was deleted.
+     */
+    public Todo getTodo() {
+        return todo;
+    }
+
+    /**
+     * Sets the current Todo item.
+     *
+     * @param todo the Todo item to set, or null for a tombstone.
+     */
+    public void setTodo(Todo todo) {
+        this.todo = todo;
+    }
+}
@@ -0,0 +1,118 @@
+package poc.todo.model;
+
+/**
+ * Represents a change to a Todo item, as pushed to the subscribers of the change feed.
+ */
+public class TodoChangeEvent {
+
+    /**
+     * Type of an event for a newly created Todo item.
+     */
+    public static final String CREATED = "created";
+
+    /**
+     * Type of an event for an updated Todo item.
+     */
+    public static final String UPDATED = "updated";
+
+    /**
+     * Type of an event for a deleted Todo item.
+     */
+    public static final String DELETED = "deleted";
+
+    private long eventId;  // Position of the event in the feed, sent as the SSE event ID
+    private String type;   // One of "created", "updated" or "deleted"
+    private long todoId;   // ID of the changed Todo item
+    private Todo todo;     // The Todo item after the change, or null when it was deleted
+
+    /**
+     * Default constructor for TodoChangeEvent.
+     */
+    public TodoChangeEvent() {
+    }
+
+    /**
+     * Constructor for TodoChangeEvent with its type and Todo item; the event ID is assigned when it is published.
+     *
+     * @param type   the type of change.
+     * @param todoId the ID of the changed Todo item.
+     * @param todo   the Todo item after the change, or null if it was deleted.
+     */
+    public TodoChangeEvent(String type, long todoId, Todo todo) {
+        this.type = type;
+        this.todoId = todoId;
+        this.todo = todo;
+    }
+
+    /**
+     * Gets the position of the event in the feed.
+     *
+     * @return the event ID.
+     */
+    public long getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Sets the position of the event in the feed.
+     *
+     * @param eventId the event ID to set.
+     */
+    public void setEventId(long eventId) {
+        this.eventId = eventId;
+    }
+
+    /**
+     * Gets the type of change.
+     *
+     * @return "created", "updated" or "deleted".
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Sets the type of change.
+     *
+     * @param type the type to set.
+     */
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the ID of the changed Todo item.
+     *
+     * @return the Todo ID.
+     */
+    public long getTodoId() {
+        return todoId;
+    }
+
+    /**
+     * Sets the ID of the changed Todo item.
+     *
+     * @param todoId the Todo ID to set.
+     */
+    public void setTodoId(long todoId) {
+        this.todoId = todoId;
+    }
+
+    /**
+     * Gets the Todo item after the change.
+     *
+     * @return the Todo item, or null if it was deleted.
+     */
+    public Todo getTodo() {
+        return todo;
+    }
+
+    /**
+     * Sets the Todo item after the change.
+     *
+     * @param todo the Todo item to set.
+     */
+    public void setTodo(Todo todo) {
+        this.todo = todo;
+    }
+}
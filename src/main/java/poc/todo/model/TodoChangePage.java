@@ -0,0 +1,86 @@
+package poc.todo.model;
+
+import java.util.List;
+
+/**
+ * Represents one page of the Todo delta feed, together with the sequence number to resume from.
+ */
+public class TodoChangePage {
+
+    private List<TodoChange> changes;  // The changes on this page, ordered by change sequence number
+    private long nextSince;            // The sequence number to pass as "since" for the next sync
+    private boolean hasMore;           // Whether more changes follow right away
+
+    /**
+     * Default constructor for TodoChangePage.
+     */
+    public TodoChangePage() {
+    }
+
+    /**
+     * Constructor for TodoChangePage with its changes and resume point.
+     *
+     * @param changes   the changes on this page.
+     * @param nextSince the sequence number to pass as "since" for the next sync.
+     * @param hasMore   whether more changes follow right away.
+     */
+    public TodoChangePage(List<TodoChange> changes, long nextSince, boolean hasMore) {
+        this.changes = changes;
+        this.nextSince = nextSince;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Gets the changes on this page.
+     *
+     * @return the changes, ordered by change sequence number.
+     */
+    public List<TodoChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Sets the changes on this page.
+     *
+     * @param changes the changes to set.
+     */
+    public void setChanges(List<TodoChange> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Gets the sequence number to resume from.
+     *
+     * @return the sequence number to pass as "since" for the next sync; unchanged if there were no changes.
+     */
+    public long getNextSince() {
+        return nextSince;
+    }
+
+    /**
+     * Sets the sequence number to resume from.
+     *
+     * @param nextSince the sequence number to set.
+     */
+    public void setNextSince(long nextSince) {
+        this.nextSince = nextSince;
+    }
+
+    /**
+     * Checks whether more changes follow right away.
+     *
+     * @return true if the client should request the next page without waiting.
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Sets whether more changes follow right away.
+     *
+     * @param hasMore true if more changes follow.
+     */
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
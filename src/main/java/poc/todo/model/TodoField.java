@@ -0,0 +1,130 @@
+package poc.todo.model;
+
+import poc.todo.exception.UnknownTodoFieldException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The fields of a Todo item a client can select with the "fields" request parameter, with their columns
+ * in the Todo table. The ID is always included, as it identifies the item and is the paging cursor.
+ */
+public enum TodoField {
+
+    ID("id", "ID"),
+    DESCRIPTION("description", "DESCRIPTION"),
+    COMPLETED("completed", "COMPLETED"),
+    VERSION("version", "VERSION");
+
+    private static final String VALID_FIELDS = Arrays.stream(values()).map(TodoField::getProperty).collect(Collectors.joining(", "));
+
+    private final String property; // The JSON property name
+    private final String column;   // The column in the Todo table
+
+    TodoField(String property, String column) {
+        this.property = property;
+        this.column = column;
+    }
+
+    /**
+     * Gets the JSON property name of the field.
+     *
+     * @return the property name.
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Gets the column of the field in the Todo table.
+     *
+     * @return the column name.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Parses a comma-separated field list, such as "id,completed", against the whitelist of fields.
+     *
+     * @param fields the field list, or null for all fields.
+     * @return the selected fields, always including the ID, or null if no list was given.
+     * @throws UnknownTodoFieldException if a listed field does not exist.
+     */
+    public static Set<TodoField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<TodoField> selected = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String property = name.trim();
+            if (property.isEmpty()) {
+                continue;
+            }
+            selected.add(Arrays.stream(values())
+                    .filter(field -> field.property.equalsIgnoreCase(property))
+                    .findFirst()
+                    .orElseThrow(() -> new UnknownTodoFieldException("Unknown Todo field '" + property + "'; valid fields are " + VALID_FIELDS + ".")));
+        }
+        return selected;
+    }
+
+    /**
+     * Adds the version to a field selection, for reads that need it to derive an ETag.
+     *
+     * @param fields the selected fields.
+     * @return a copy of the selection that includes the version.
+     */
+    public static Set<TodoField> withVersion(Set<TodoField> fields) {
+        Set<TodoField> selected = EnumSet.copyOf(fields);
+        selected.add(VERSION);
+        return selected;
+    }
+
+    /**
+     * Copies the selected fields of a Todo item, leaving the others null so they are not serialized.
+     *
+     * @param todo   the Todo item.
+     * @param fields the fields to keep, or null to keep them all.
+     * @return the projected copy, or the Todo item itself if all fields are kept.
+     */
+    public static Todo project(Todo todo, Set<TodoField> fields) {
+        if (todo == null || fields == null) {
+            return todo;
+        }
+        Todo projected = new Todo();
+        projected.setId(todo.getId());
+        if (fields.contains(DESCRIPTION)) {
+            projected.setDescription(todo.getDescription());
+        }
+        if (fields.contains(COMPLETED)) {
+            projected.setCompleted(todo.getCompleted());
+        }
+        if (fields.contains(VERSION)) {
+            projected.setVersion(todo.getVersion());
+        }
+        return projected;
+    }
+
+    /**
+     * Copies the selected fields of several Todo items.
+     *
+     * @param todos  the Todo items.
+     * @param fields the fields to keep, or null to keep them all.
+     * @return the projected copies, or the list itself if all fields are kept.
+     */
+    public static List<Todo> project(List<Todo> todos, Set<TodoField> fields) {
+        if (fields == null) {
+            return todos;
+        }
+        List<Todo> projected = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            projected.add(project(todo, fields));
+        }
+        return projected;
+    }
+}
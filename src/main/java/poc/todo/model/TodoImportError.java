@@ -0,0 +1,63 @@
+package poc.todo.model;
+
+/**
+ * Represents a Todo item of a bulk import that was rejected, by the line it starts on.
+ */
+public class TodoImportError {
+
+    private long line;            // The line of the input the item starts on, counting from 1
+    private String errorMessage;  // The reason the item was rejected
+
+    /**
+     * Default constructor for TodoImportError.
+     */
+    public TodoImportError() {
+    }
+
+    /**
+     * Constructor for TodoImportError with all of its fields.
+     *
+     * @param line         the line of the input the item starts on.
+     * @param errorMessage the reason the item was rejected.
+     */
+    public TodoImportError(long line, String errorMessage) {
+        this.line = line;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Gets the line of the input the rejected item starts on.
+     *
+     * @return the line number, counting from 1.
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Sets the line of the input the rejected item starts on.
+     *
+     * @param line the line number to set.
+     */
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    /**
+     * Gets the reason the item was rejected.
+     *
+     * @return the error message.
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Sets the reason the item was rejected.
+     *
+     * @param errorMessage the error message to set.
+     */
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
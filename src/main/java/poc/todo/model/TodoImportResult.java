@@ -0,0 +1,128 @@
+package poc.todo.model;
+
+import java.util.List;
+
+/**
+ * Represents the outcome of a bulk import: the counts, and the rejected items by line.
+ */
+public class TodoImportResult {
+
+    private long imported;                 // The number of Todo items that were created
+    private long failed;                   // The number of Todo items that were rejected
+    private long batches;                  // The number of batches committed
+    private List<TodoImportError> errors;  // The rejected items, by line, up to todo.import.max-reported-errors
+    private boolean errorsTruncated;       // Whether more items were rejected than are listed
+
+    /**
+     * Default constructor for TodoImportResult.
+     */
+    public TodoImportResult() {
+    }
+
+    /**
+     * Constructor for TodoImportResult with its counts and errors.
+     *
+     * @param imported        the number of created Todo items.
+     * @param failed          the number of rejected Todo items.
+     * @param batches         the number of committed batches.
+     * @param errors          the rejected items, by line, as many as are listed.
+     * @param errorsTruncated whether more items were rejected than are listed.
+     */
+    public TodoImportResult(long imported, long failed, long batches, List<TodoImportError> errors, boolean errorsTruncated) {
+        this.imported = imported;
+        this.failed = failed;
+        this.batches = batches;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    /**
+     * Gets the number of Todo items that were created.
+     *
+     * @return the number of created Todo items.
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Sets the number of Todo items that were created.
+     *
+     * @param imported the number to set.
+     */
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    /**
+     * Gets the number of Todo items that were rejected.
+     *
+     * @return the number of rejected Todo items.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Sets the number of Todo items that were rejected.
+     *
+     * @param failed the number to set.
+     */
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Gets the number of batches committed.
+     *
+     * @return the number of batches.
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Sets the number of batches committed.
+     *
+     * @param batches the number to set.
+     */
+    public void setBatches(long batches) {
+        this.batches = batches;
+    }
+
+    /**
+     * Gets the rejected items.
+     *
+     * @return the rejected items, by line.
+     */
+    public List<TodoImportError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Sets the rejected items.
+     *
+     * @param errors the rejected items to set.
+     */
+    public void setErrors(List<TodoImportError> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Gets whether more items were rejected than are listed.
+     *
+     * @return true if the list of errors is incomplete.
+     */
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    /**
+     * Sets whether more items were rejected than are listed.
+     *
+     * @param errorsTruncated whether the list of errors is incomplete.
+     */
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+}
@@ -0,0 +1,188 @@
+package poc.todo.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Hand-written JSON mapping of Todo items, used instead of Jackson's reflective bean mapping.
+ * <p>
+ * A Todo is written as {"id":…,"description":…,"completed":…,"version":…}, in that order, leaving out null
+ * fields, which is how fields not selected with "fields" are omitted. The same writer serves Todo objects and
+ * rows read straight from the database, so both produce identical bytes. The mapping works with any Jackson
+ * format, so CBOR and Smile use it as well.
+ */
+public final class TodoJson {
+
+    // Property names, pre-encoded once rather than on every write
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+    private static final SerializableString COMPLETED = new SerializedString("completed");
+    private static final SerializableString VERSION = new SerializedString("version");
+
+    private TodoJson() {
+    }
+
+    /**
+     * Writes a complete Todo item from its column values, without creating a Todo object.
+     *
+     * @param generator   the generator to write to.
+     * @param id          the ID of the Todo item.
+     * @param description the description, or null to leave it out.
+     * @param completed   whether the Todo item is completed.
+     * @param version     the version of the Todo item.
+     * @throws IOException if writing fails.
+     */
+    public static void writeTodo(JsonGenerator generator, long id, String description, boolean completed, long version) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeNumber(id);
+        if (description != null) {
+            generator.writeFieldName(DESCRIPTION);
+            generator.writeString(description);
+        }
+        generator.writeFieldName(COMPLETED);
+        generator.writeBoolean(completed);
+        generator.writeFieldName(VERSION);
+        generator.writeNumber(version);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Checks whether a generator can take strings as UTF-8 bytes, which is the case for generators writing
+     * to an OutputStream, in JSON as in the binary formats, but not for those writing to a Writer.
+     *
+     * @param generator the generator.
+     * @return true if {@link #writeTodo(JsonGenerator, long, byte[], boolean, long)} can be used with it.
+     */
+    public static boolean acceptsUtf8(JsonGenerator generator) {
+        return generator.getOutputTarget() instanceof OutputStream;
+    }
+
+    /**
+     * Writes a complete Todo item from its column values, taking the description as UTF-8 bytes as stored
+     * in the database, so it is neither decoded into a String nor encoded again.
+     * Only for generators that {@link #acceptsUtf8(JsonGenerator) accept UTF-8}.
+     *
+     * @param generator   the generator to write to.
+     * @param id          the ID of the Todo item.
+     * @param description the UTF-8 encoded description, or null to leave it out.
+     * @param completed   whether the Todo item is completed.
+     * @param version     the version of the Todo item.
+     * @throws IOException if writing fails.
+     */
+    public static void writeTodo(JsonGenerator generator, long id, byte[] description, boolean completed, long version) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeNumber(id);
+        if (description != null) {
+            generator.writeFieldName(DESCRIPTION);
+            generator.writeUTF8String(description, 0, description.length);
+        }
+        generator.writeFieldName(COMPLETED);
+        generator.writeBoolean(completed);
+        generator.writeFieldName(VERSION);
+        generator.writeNumber(version);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes a Todo item, leaving out its null fields.
+     *
+     * @param generator the generator to write to.
+     * @param todo      the Todo item.
+     * @throws IOException if writing fails.
+     */
+    public static void writeTodo(JsonGenerator generator, Todo todo) throws IOException {
+        generator.writeStartObject();
+        if (todo.id != null) {
+            generator.writeFieldName(ID);
+            generator.writeNumber(todo.id);
+        }
+        if (todo.description != null) {
+            generator.writeFieldName(DESCRIPTION);
+            generator.writeString(todo.description);
+        }
+        if (todo.completed != null) {
+            generator.writeFieldName(COMPLETED);
+            generator.writeBoolean(todo.completed);
+        }
+        if (todo.version != null) {
+            generator.writeFieldName(VERSION);
+            generator.writeNumber(todo.version);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Serializer of Todo items, registered on the Todo class.
+     */
+    public static class Serializer extends StdSerializer<Todo> {
+
+        public Serializer() {
+            super(Todo.class);
+        }
+
+        @Override
+        public void serialize(Todo todo, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            writeTodo(generator, todo);
+        }
+    }
+
+    /**
+     * Deserializer of Todo items, registered on the Todo class. The common token types are read directly;
+     * anything else, such as a number sent as a string, goes through Jackson's own coercion rules, and
+     * unknown properties are handled as the mapper is configured to.
+     */
+    public static class Deserializer extends StdDeserializer<Todo> {
+
+        public Deserializer() {
+            super(Todo.class);
+        }
+
+        @Override
+        public Todo deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = parser.nextToken();
+            } else if (token != JsonToken.FIELD_NAME) {
+                return (Todo) context.handleUnexpectedToken(Todo.class, parser);
+            }
+            Todo todo = new Todo();
+            for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String name = parser.currentName();
+                token = parser.nextToken();
+                switch (name) {
+                    case "id" -> todo.id = readLong(parser, context, token);
+                    case "description" -> todo.description = token == JsonToken.VALUE_STRING ? parser.getText()
+                            : token == JsonToken.VALUE_NULL ? null : context.readValue(parser, String.class);
+                    case "completed" -> todo.completed = token == JsonToken.VALUE_TRUE ? Boolean.TRUE
+                            : token == JsonToken.VALUE_FALSE ? Boolean.FALSE
+                            : token == JsonToken.VALUE_NULL ? null : context.readValue(parser, Boolean.class);
+                    case "version" -> todo.version = readLong(parser, context, token);
+                    default -> context.handleUnknownProperty(parser, this, Todo.class, name);
+                }
+            }
+            if (token != JsonToken.END_OBJECT) {
+                return (Todo) context.handleUnexpectedToken(Todo.class, parser);
+            }
+            return todo;
+        }
+
+        private static Long readLong(JsonParser parser, DeserializationContext context, JsonToken token) throws IOException {
+            if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                return parser.getLongValue();
+            }
+            return token == JsonToken.VALUE_NULL ? null : context.readValue(parser, Long.class);
+        }
+    }
+}
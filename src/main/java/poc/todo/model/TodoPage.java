@@ -0,0 +1,66 @@
+package poc.todo.model;
+
+import java.util.List;
+
+/**
+ * Represents one page of Todo items returned by a keyset-paginated query,
+ * together with the cursor to request the following page.
+ */
+public class TodoPage {
+
+    private List<Todo> todos;  // The Todo items on this page, ordered by ID
+    private Long nextCursor;   // The ID to pass as "after" for the next page, or null on the last page
+
+    /**
+     * Default constructor for TodoPage.
+     */
+    public TodoPage() {
+    }
+
+    /**
+     * Constructor for TodoPage with its items and next cursor.
+     *
+     * @param todos      the Todo items on this page.
+     * @param nextCursor the cursor for the next page, or null if this is the last page.
+     */
+    public TodoPage(List<Todo> todos, Long nextCursor) {
+        this.todos = todos;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the Todo items on this page.
+     *
+     * @return the Todo items on this page.
+     */
+    public List<Todo> getTodos() {
+        return todos;
+    }
+
+    /**
+     * Sets the Todo items on this page.
+     *
+     * @param todos the Todo items to set.
+     */
+    public void setTodos(List<Todo> todos) {
+        this.todos = todos;
+    }
+
+    /**
+     * Gets the cursor for the next page.
+     *
+     * @return the ID to pass as "after" for the next page, or null if this is the last page.
+     */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Sets the cursor for the next page.
+     *
+     * @param nextCursor the cursor to set.
+     */
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
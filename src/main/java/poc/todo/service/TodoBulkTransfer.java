@@ -0,0 +1,282 @@
+package poc.todo.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvFactory;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+import poc.todo.exception.RequestBodyTooLargeException;
+import poc.todo.model.Todo;
+import poc.todo.model.TodoBatchItemResult;
+import poc.todo.model.TodoBatchResult;
+import poc.todo.model.TodoBulkFormat;
+import poc.todo.model.TodoImportError;
+import poc.todo.model.TodoImportResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Bulk export and import of Todo items as JSON, NDJSON or CSV, in memory that does not grow with the data.
+ * <p>
+ * The export writes the rows from the database cursor as they are read (see {@link TodoServiceDao#writeAllTodos}).
+ * The import reads one item at a time and creates them in batches of "todo.import.batch-size", each through
+ * {@link TodoServiceDao#createTodos(List)}, so in one transaction, with the usual validation and change events.
+ * The next item is only read once the batch before it has committed, so a client sending faster than the
+ * database writes is held back by the request body's flow control rather than buffered on the heap.
+ * Items are created with new IDs and versions, as with {@code POST /todos}; those in the input are ignored.
+ */
+@Service
+public class TodoBulkTransfer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoBulkTransfer.class);
+
+    // The committed batches between two progress log lines
+    private static final int PROGRESS_BATCHES = 100;
+
+    // CSV columns of the export, in the order TodoJson writes the properties, after a header line
+    private static final CsvSchema CSV_EXPORT_SCHEMA = CsvSchema.builder()
+            .addNumberColumn("id")
+            .addColumn("description")
+            .addBooleanColumn("completed")
+            .addNumberColumn("version")
+            .setUseHeader(true)
+            .build();
+
+    // CSV columns of an import are named by its header line, in any order
+    private static final CsvSchema CSV_IMPORT_SCHEMA = CsvSchema.emptySchema().withHeader();
+
+    private final TodoServiceDao todoService;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper csvMapper;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    /**
+     * Constructor for TodoBulkTransfer.
+     *
+     * @param todoService       the service the Todo items are read and created through.
+     * @param objectMapper      the mapper of JSON and NDJSON.
+     * @param builder           Spring Boot's Jackson builder, which the CSV mapper is built from.
+     * @param batchSize         the number of Todo items created per transaction.
+     * @param maxReportedErrors the number of rejected items listed in the import result.
+     */
+    @Autowired
+    public TodoBulkTransfer(TodoServiceDao todoService, ObjectMapper objectMapper, Jackson2ObjectMapperBuilder builder,
+                            @Value("${todo.import.batch-size:1000}") int batchSize,
+                            @Value("${todo.import.max-reported-errors:100}") int maxReportedErrors) {
+        if (batchSize < 1 || maxReportedErrors < 0) {
+            throw new IllegalArgumentException("Import batch size must be positive and reported errors not negative");
+        }
+        this.todoService = todoService;
+        this.objectMapper = objectMapper;
+        this.csvMapper = builder.factory(new CsvFactory()).build();
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Writes all Todo items in the given format.
+     *
+     * @param outputStream the stream to write to; it is closed when done.
+     * @param format       the format to write.
+     * @return the number of Todo items written.
+     * @throws IOException if writing fails.
+     */
+    public long exportTodos(OutputStream outputStream, TodoBulkFormat format) throws IOException {
+        JsonGenerator generator = switch (format) {
+            case JSON -> objectMapper.createGenerator(outputStream, JsonEncoding.UTF8);
+            case NDJSON -> new LineDelimitedGenerator(objectMapper.createGenerator(outputStream, JsonEncoding.UTF8));
+            case CSV -> csvMapper.writer(CSV_EXPORT_SCHEMA).createGenerator(outputStream, JsonEncoding.UTF8);
+        };
+        try (generator) {
+            return todoService.writeAllTodos(generator);
+        }
+    }
+
+    /**
+     * Creates the Todo items read from a stream, in batches. Items that cannot be read or are not valid are
+     * rejected by line, without affecting the others. Input that is no longer well-formed, such as a CSV field
+     * whose quote is never closed, ends the import at that line; the batches before it stay committed.
+     * A compressed body inflating past its maximum size ends the import the same way.
+     *
+     * @param inputStream the stream to read, NDJSON and CSV as UTF-8.
+     * @param format      the format of the stream.
+     * @return the counts of created and rejected items, with the rejected items by line.
+     * @throws IOException if reading the stream fails.
+     */
+    public TodoImportResult importTodos(InputStream inputStream, TodoBulkFormat format) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Importing Todo items as {} in batches of {}.", format, batchSize);
+        }
+        ImportRun run = new ImportRun();
+        switch (format) {
+            case NDJSON -> readLines(inputStream, run);
+            case JSON -> readValues(objectMapper.readerFor(Todo.class).readValues(inputStream), 0, run);
+            // The CSV parser places the start of a row at the line break that ends the row before it
+            case CSV -> readValues(csvMapper.readerFor(Todo.class).with(CSV_IMPORT_SCHEMA).readValues(inputStream), 1, run);
+        }
+        run.flush();
+        logger.info("Imported {} Todo items in {} batches, {} rejected.", run.imported, run.batches, run.failed);
+        run.errors.sort(Comparator.comparingLong(TodoImportError::getLine));
+        return new TodoImportResult(run.imported, run.failed, run.batches, run.errors, run.errorsTruncated);
+    }
+
+    /**
+     * Reads NDJSON line by line, so a malformed line is rejected on its own and the next one is read as usual.
+     */
+    private void readLines(InputStream inputStream, ImportRun run) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(Todo.class);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        try {
+            for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    run.add(reader.readValue(line), lineNumber);
+                } catch (JsonProcessingException e) {
+                    run.reject(lineNumber, e.getOriginalMessage());
+                }
+            }
+        } catch (RequestBodyTooLargeException e) {
+            run.stop(lineNumber + 1, e); // The line being read
+        }
+    }
+
+    /**
+     * Reads the values of a JSON array or CSV rows one at a time. An item whose values do not map to a Todo
+     * is rejected and the reader moves on to the next; a syntax error ends the reading.
+     */
+    private void readValues(MappingIterator<Todo> values, int lineOffset, ImportRun run) throws IOException {
+        long line = 1;
+        long handled = 0; // The line of the last item added or rejected
+        try (values) {
+            while (values.hasNextValue()) {
+                line = values.getParser().currentTokenLocation().getLineNr() + lineOffset;
+                try {
+                    run.add(values.nextValue(), line);
+                } catch (JsonMappingException e) {
+                    run.reject(line, e.getOriginalMessage());
+                }
+                handled = line;
+            }
+        } catch (JsonProcessingException e) {
+            long errorLine = e.getLocation() == null ? line : e.getLocation().getLineNr();
+            run.reject(errorLine, "Malformed input, the import stopped here: " + e.getOriginalMessage());
+        } catch (RequestBodyTooLargeException e) {
+            run.stop(handled + 1, e); // The parser reads ahead, so where it failed may be past items not yet read
+        }
+    }
+
+    /**
+     * The state of one import: the pending batch with the lines of its items, and the counts so far.
+     */
+    private final class ImportRun {
+
+        private final List<Todo> batch = new ArrayList<>(batchSize);
+        private final long[] batchLines = new long[batchSize];
+        private final List<TodoImportError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+        private long batches;
+        private boolean errorsTruncated;
+
+        void add(Todo todo, long line) {
+            batchLines[batch.size()] = line;
+            batch.add(todo);
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String errorMessage) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new TodoImportError(line, errorMessage));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        void stop(long line, RequestBodyTooLargeException e) {
+            logger.warn("Import stopped at line {}: {}", line, e.getMessage());
+            reject(line, "Request body too large, the import stopped here: " + e.getMessage());
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            TodoBatchResult result = todoService.createTodos(batch);
+            for (TodoBatchItemResult item : result.getResults()) {
+                if (item.getOutcome() == TodoBatchItemResult.Outcome.REJECTED) {
+                    reject(batchLines[item.getIndex()], item.getErrorMessage());
+                }
+            }
+            imported += result.getCreated();
+            batches++;
+            batch.clear();
+            if (batches % PROGRESS_BATCHES == 0) {
+                logger.info("Import in progress: {} Todo items created, {} rejected.", imported, failed);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Import batch {} committed: {} Todo items created, {} rejected.", batches, imported, failed);
+            }
+        }
+    }
+
+    /**
+     * Writes the items of the root array as NDJSON: the array itself is left out and every root-level
+     * object ends with a line feed. The target of the wrapped generator is kept, so rows are still written
+     * from their UTF-8 bytes when it writes to a stream.
+     */
+    private static final class LineDelimitedGenerator extends JsonGeneratorDelegate {
+
+        LineDelimitedGenerator(JsonGenerator generator) {
+            super(generator, false);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void writeStartArray() throws IOException {
+            if (!getOutputContext().inRoot()) {
+                super.writeStartArray();
+            }
+        }
+
+        @Override
+        public void writeEndArray() throws IOException {
+            if (!getOutputContext().inRoot()) {
+                super.writeEndArray();
+            }
+        }
+
+        @Override
+        public void writeEndObject() throws IOException {
+            super.writeEndObject();
+            if (getOutputContext().inRoot()) {
+                writeRaw('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package poc.todo.service;
+
+import org.springframework.stereotype.Component;
+import poc.todo.exception.TodoVersionConflictException;
+import poc.todo.model.Todo;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Keeps a monotonically increasing change version for the Todo items, from which the ETags are derived.
+ * <p>
+ * The version is bumped after every committed create, update and delete, so a request that reads it before
+ * querying can only ever tag its response with an older version than the data it returned, never a newer one.
+ * The epoch is the startup time, which keeps ETags handed out by a previous run from matching after a restart.
+ * Changes made to the database by other processes are not seen, so this assumes a single service instance.
+ */
+@Component
+public class TodoChangeTracker {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Records that the Todo items have changed. Must be called after the change has been committed.
+     */
+    public void changed() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Gets the current change version, as an opaque token of the form "epoch-version".
+     *
+     * @return the current change version.
+     */
+    public String currentVersion() {
+        return epoch + "-" + version.get();
+    }
+
+    /**
+     * Builds the ETag of the Todo collection at the given change version.
+     * The tag is weak: it only ever takes part in If-None-Match, which compares weakly, and a weak tag lets
+     * the server gzip the response, which Tomcat does not do for responses with a strong ETag.
+     *
+     * @param changeVersion the change version read before the collection was queried.
+     * @return the weak, quoted ETag.
+     */
+    public String collectionETag(String changeVersion) {
+        return "W/\"" + changeVersion + "\"";
+    }
+
+    /**
+     * Builds the ETag of a single Todo item: its row version, its ID and the change version, e.g. "3.17.epoch-42".
+     * The row version lets the ETag be sent back in If-Match, while the change version lets If-None-Match be
+     * answered without loading the item. Both headers only accept the tag for the item it was issued for.
+     *
+     * @param id            the ID of the Todo item.
+     * @param rowVersion    the version of the Todo item.
+     * @param changeVersion the change version read before the item was queried.
+     * @return the quoted ETag.
+     */
+    public String itemETag(long id, long rowVersion, String changeVersion) {
+        return "\"" + rowVersion + "." + id + "." + changeVersion + "\"";
+    }
+
+    /**
+     * Builds the ETag of a Todo item from its ID, its version and the change version.
+     *
+     * @param todo          the Todo item.
+     * @param changeVersion the change version read before the Todo item was obtained.
+     * @return the quoted ETag, or null if the Todo item has no ID or version.
+     */
+    public String itemETag(Todo todo, String changeVersion) {
+        return todo == null || todo.getId() == null || todo.getVersion() == null ? null
+                : itemETag(todo.getId(), todo.getVersion(), changeVersion);
+    }
+
+    /**
+     * Checks whether an If-None-Match header names the Todo collection as it is now.
+     *
+     * @param ifNoneMatch the If-None-Match header value, or null if absent.
+     * @return true if one of the listed ETags is the current collection ETag.
+     */
+    public boolean collectionUnchanged(String ifNoneMatch) {
+        String current = currentVersion();
+        return findTag(ifNoneMatch, tag -> tag.equals(current)) != null;
+    }
+
+    /**
+     * Finds, in an If-None-Match header, an ETag of the given Todo item issued at the current change version.
+     * Nothing has changed since then, so the item the client holds is still the current one.
+     * Tags of other items never match, nor do tags of an ID that was missing, as those carry no row version.
+     *
+     * @param id          the ID of the requested Todo item.
+     * @param ifNoneMatch the If-None-Match header value, or null if absent.
+     * @return the matching ETag, quoted, or null if none of the listed ETags is a current tag of the item.
+     */
+    public String unchangedItemETag(long id, String ifNoneMatch) {
+        String suffix = "." + id + "." + currentVersion();
+        String tag = findTag(ifNoneMatch, value -> value.endsWith(suffix)
+                && value.indexOf('.') == value.length() - suffix.length() && rowVersionOf(value) != null);
+        return tag == null ? null : "\"" + tag + "\"";
+    }
+
+    /**
+     * Extracts the row version from a Todo item ETag, as sent back in an If-Match header.
+     *
+     * @param eTag the unquoted ETag value.
+     * @return the row version, or null if the value is not a Todo item ETag.
+     */
+    public static Long rowVersionOf(String eTag) {
+        int dot = eTag.indexOf('.');
+        try {
+            return Long.parseLong(dot < 0 ? eTag : eTag.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Extracts the expected row version of a Todo item from an If-Match header.
+     * Only a single strong ETag issued for this item can match, as If-Match uses strong comparison and row versions
+     * of different items are unrelated; anything else fails the precondition.
+     * The change version part of the ETag is ignored, so a tag stays usable after unrelated changes.
+     *
+     * @param id      the ID of the Todo item the request targets.
+     * @param ifMatch the If-Match header value, or null if absent.
+     * @return the expected version, or null if any version is acceptable ("*" or no header).
+     * @throws TodoVersionConflictException if the header can never match a version of the Todo item.
+     */
+    public static Long expectedRowVersion(long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String value = tag.substring(1, tag.length() - 1);
+            Long version = rowVersionOf(value);
+            if (version != null && issuedFor(value, id)) {
+                return version;
+            }
+        }
+        throw new TodoVersionConflictException("If-Match " + ifMatch + " does not match any version of Todo item " + id);
+    }
+
+    /**
+     * Checks whether a Todo item ETag was issued for the given item, by the ID between its first two dots.
+     *
+     * @param eTag the unquoted ETag value.
+     * @param id   the ID of the Todo item.
+     * @return true if the ETag names the item, false if it names another one or no ID at all.
+     */
+    private static boolean issuedFor(String eTag, long id) {
+        int first = eTag.indexOf('.');
+        int second = first < 0 ? -1 : eTag.indexOf('.', first + 1);
+        return second > 0 && eTag.substring(first + 1, second).equals(Long.toString(id));
+    }
+
+    /**
+     * Finds the first ETag listed in a header that satisfies the matcher, using weak comparison
+     * as If-None-Match requires.
+     *
+     * @return the unquoted ETag value, or null if none matches.
+     */
+    private static String findTag(String header, Predicate<String> matcher) {
+        if (header == null) {
+            return null;
+        }
+        for (String tag : header.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                String value = tag.substring(1, tag.length() - 1);
+                if (matcher.test(value)) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+}
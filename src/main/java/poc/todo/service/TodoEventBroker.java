@@ -0,0 +1,471 @@
+package poc.todo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import poc.todo.model.TodoChangeEvent;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fans out Todo change events to the subscribers of the change feed.
+ * <p>
+ * Publishing never waits for a subscriber: it appends the event to a ring of recent events and to the bounded
+ * buffer of every subscriber, and a small pool of dispatcher threads delivers the buffered events. When a
+ * subscriber falls so far behind that its buffer is full, the buffer is dropped and the subscriber is sent a
+ * "resync" signal instead, telling it to reload the Todo items. The ring lets a reconnecting subscriber resume
+ * from its last event ID; if that event is no longer in the ring, or was issued before a restart, it gets a
+ * resync as well. Idle subscribers receive periodic heartbeats, so proxies keep the connections open and
+ * dead ones are detected.
+ * <p>
+ * Sinks may block, e.g. while a client does not read its socket, so every delivery is bounded by the send
+ * timeout: a watchdog cancels a subscription whose delivery has run longer, closes its sink and interrupts
+ * the dispatcher thread, which keeps one stalled client from holding up the feed of all the others.
+ */
+@Component
+public class TodoEventBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(TodoEventBroker.class);
+
+    private final long epoch = System.currentTimeMillis(); // Keeps event IDs from a previous run from resuming
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TodoChangeEvent[] ring;                    // Guarded by lock
+    private final Set<Subscription> subscriptions = new HashSet<>(); // Guarded by lock
+    private long lastEventId;                                // Guarded by lock
+    private final int bufferSize;
+    private final long sendTimeoutNanos;
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeats;
+    private final AtomicLong resyncs = new AtomicLong();
+
+    /**
+     * Constructor for TodoEventBroker, starting the dispatcher and heartbeat threads.
+     *
+     * @param ringSize          the number of recent events kept for resuming subscribers.
+     * @param bufferSize        the maximum number of undelivered events per subscriber.
+     * @param dispatchThreads   the number of threads delivering events.
+     * @param heartbeatInterval the interval between heartbeats, or 0 for no heartbeats.
+     * @param sendTimeout       how long the delivery of one message may take before the subscriber is dropped.
+     */
+    @Autowired
+    public TodoEventBroker(@Value("${todo.events.ring-size:1024}") int ringSize,
+                           @Value("${todo.events.subscriber-buffer:256}") int bufferSize,
+                           @Value("${todo.events.dispatch-threads:2}") int dispatchThreads,
+                           @Value("${todo.events.heartbeat-interval:15s}") Duration heartbeatInterval,
+                           @Value("${todo.events.send-timeout:10s}") Duration sendTimeout) {
+        if (ringSize < 1 || bufferSize < 1 || dispatchThreads < 1) {
+            throw new IllegalArgumentException("Event ring size, subscriber buffer and dispatch threads must be positive");
+        }
+        if (heartbeatInterval.isNegative() || sendTimeout.isNegative() || sendTimeout.isZero()) {
+            throw new IllegalArgumentException("Heartbeat interval must not be negative and send timeout must be positive: "
+                    + heartbeatInterval + ", " + sendTimeout);
+        }
+        this.ring = new TodoChangeEvent[ringSize];
+        this.bufferSize = bufferSize;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, daemonThreads("todo-events-"));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("todo-events-heartbeat-"));
+        long intervalMs = heartbeatInterval.toMillis();
+        if (intervalMs > 0) {
+            heartbeats.scheduleAtFixedRate(this::sendHeartbeats, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+        // Checked at twice the rate of the timeout, so a stalled delivery is dropped within 1.5 timeouts
+        long checkMs = Math.max(1, sendTimeout.toMillis() / 2);
+        heartbeats.scheduleAtFixedRate(this::dropStalledSubscribers, checkMs, checkMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Publishes a change to every subscriber. Must be called after the change has been committed.
+     *
+     * @param event the change; its event ID is assigned here.
+     */
+    public void publish(TodoChangeEvent event) {
+        lock.lock();
+        try {
+            event.setEventId(++lastEventId);
+            ring[(int) (lastEventId % ring.length)] = event;
+            for (Subscription subscription : subscriptions) {
+                subscription.enqueue(event);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Subscribes to the change feed, optionally resuming after the last event the client received.
+     * Registration and replay happen atomically with respect to publishing, so no event is missed or repeated.
+     *
+     * @param sink        where the events of this subscriber are delivered.
+     * @param lastEventId the last event ID the client received (its Last-Event-ID header), or null for new events only.
+     * @return the subscription, to be cancelled when the client goes away.
+     */
+    public Subscription subscribe(Sink sink, String lastEventId) {
+        Subscription subscription = new Subscription(sink);
+        Long resumeAfter = lastEventId == null ? null : sequenceOf(lastEventId);
+        lock.lock();
+        try {
+            subscriptions.add(subscription);
+            if (lastEventId != null) {
+                long oldest = Math.max(1, this.lastEventId - ring.length + 1);
+                if (resumeAfter == null || resumeAfter > this.lastEventId || resumeAfter < oldest - 1) {
+                    subscription.requestResync();
+                } else {
+                    for (long id = resumeAfter + 1; id <= this.lastEventId; id++) {
+                        subscription.enqueue(ring[(int) (id % ring.length)]);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return subscription;
+    }
+
+    /**
+     * Builds the ID a change event is sent with: the broker epoch followed by the event's position in the feed.
+     *
+     * @param event the change event.
+     * @return the event ID, as sent to and resumed from by clients.
+     */
+    public String eventIdOf(TodoChangeEvent event) {
+        return epoch + "-" + event.getEventId();
+    }
+
+    /**
+     * Gets the number of open subscriptions.
+     *
+     * @return the number of subscribers.
+     */
+    public int getSubscriberCount() {
+        lock.lock();
+        try {
+            return subscriptions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of resync signals sent since startup, because of overflowing buffers or unknown resume points.
+     *
+     * @return the number of resyncs.
+     */
+    public long getResyncCount() {
+        return resyncs.get();
+    }
+
+    /**
+     * Stops the dispatcher and heartbeat threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Extracts the feed position from an event ID issued by this broker.
+     *
+     * @return the position, or null if the ID was issued by another run or is malformed.
+     */
+    private Long sequenceOf(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Subscription subscription : currentSubscriptions()) {
+            subscription.requestHeartbeat();
+        }
+    }
+
+    private void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscription subscription : currentSubscriptions()) {
+            subscription.abortIfStalled(now);
+        }
+    }
+
+    private List<Subscription> currentSubscriptions() {
+        lock.lock();
+        try {
+            return new ArrayList<>(subscriptions);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        lock.lock();
+        try {
+            subscriptions.remove(subscription);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Destination of the events of one subscriber, such as an SSE connection.
+     * Methods are called by one dispatcher thread at a time; throwing cancels the subscription.
+     * Only {@link #close()} is called from another thread, possibly while a delivery is blocked.
+     */
+    public interface Sink {
+
+        /**
+         * Delivers a change event.
+         *
+         * @param eventId the ID to send the event with.
+         * @param event   the change event.
+         * @throws Exception if the event could not be delivered.
+         */
+        void send(String eventId, TodoChangeEvent event) throws Exception;
+
+        /**
+         * Tells the subscriber that events were lost and the Todo items must be reloaded.
+         *
+         * @throws Exception if the signal could not be delivered.
+         */
+        void resync() throws Exception;
+
+        /**
+         * Sends a keep-alive message.
+         *
+         * @throws Exception if the message could not be delivered.
+         */
+        void heartbeat() throws Exception;
+
+        /**
+         * Closes the connection of a subscriber that was dropped because a delivery exceeded the send timeout.
+         * The default does nothing.
+         */
+        default void close() {
+        }
+    }
+
+    /**
+     * One subscriber of the change feed, with its bounded buffer of undelivered events.
+     */
+    public final class Subscription {
+
+        private final Sink sink;
+        private final ReentrantLock bufferLock = new ReentrantLock();
+        private final ArrayDeque<TodoChangeEvent> buffer = new ArrayDeque<>(); // Guarded by bufferLock
+        private boolean resyncDue;    // Guarded by bufferLock
+        private boolean heartbeatDue; // Guarded by bufferLock
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final ReentrantLock senderLock = new ReentrantLock();
+        private Thread sender;        // Guarded by senderLock, the dispatcher thread inside the sink
+        private long sendStarted;     // Guarded by senderLock
+        private boolean stalled;      // Guarded by senderLock
+        private volatile boolean cancelled;
+
+        private Subscription(Sink sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Cancels the subscription; no more events are delivered to its sink.
+         */
+        public void cancel() {
+            cancelled = true;
+            remove(this);
+        }
+
+        private void enqueue(TodoChangeEvent event) {
+            bufferLock.lock();
+            try {
+                if (buffer.size() >= bufferSize) {
+                    // Too far behind: drop what is buffered and have the subscriber reload instead
+                    buffer.clear();
+                    resyncDue = true;
+                    resyncs.incrementAndGet();
+                }
+                buffer.add(event);
+            } finally {
+                bufferLock.unlock();
+            }
+            schedule();
+        }
+
+        private void requestResync() {
+            bufferLock.lock();
+            try {
+                buffer.clear();
+                resyncDue = true;
+                resyncs.incrementAndGet();
+            } finally {
+                bufferLock.unlock();
+            }
+            schedule();
+        }
+
+        private void requestHeartbeat() {
+            bufferLock.lock();
+            try {
+                heartbeatDue = true;
+            } finally {
+                bufferLock.unlock();
+            }
+            schedule();
+        }
+
+        /**
+         * Hands the subscription to a dispatcher thread, unless one already has it.
+         */
+        private void schedule() {
+            if (!cancelled && scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        /**
+         * Delivers everything pending, then releases the subscription; reschedules if more arrived meanwhile.
+         */
+        private void drain() {
+            try {
+                while (!cancelled) {
+                    List<TodoChangeEvent> events;
+                    boolean resync;
+                    boolean heartbeat;
+                    bufferLock.lock();
+                    try {
+                        events = new ArrayList<>(buffer);
+                        buffer.clear();
+                        resync = resyncDue;
+                        heartbeat = heartbeatDue && events.isEmpty();
+                        resyncDue = false;
+                        heartbeatDue = false;
+                    } finally {
+                        bufferLock.unlock();
+                    }
+                    if (events.isEmpty() && !resync && !heartbeat) {
+                        break;
+                    }
+                    beginSend();
+                    try {
+                        if (resync) {
+                            sink.resync();
+                        }
+                        for (TodoChangeEvent event : events) {
+                            sink.send(eventIdOf(event), event);
+                        }
+                        if (heartbeat) {
+                            sink.heartbeat();
+                        }
+                    } finally {
+                        endSend();
+                    }
+                }
+            } catch (Exception e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Closing change feed subscription: {}", e.getMessage());
+                }
+                cancel();
+            } finally {
+                scheduled.set(false);
+            }
+            if (hasPending()) {
+                schedule();
+            }
+        }
+
+        private void beginSend() {
+            senderLock.lock();
+            try {
+                sender = Thread.currentThread();
+                sendStarted = System.nanoTime();
+            } finally {
+                senderLock.unlock();
+            }
+        }
+
+        /**
+         * Leaves the sink. An interrupt from the watchdog is only ever sent while holding senderLock with
+         * the sender set, so once it is cleared here no interrupt can reach the thread's next subscription.
+         */
+        private void endSend() throws TimeoutException {
+            boolean timedOut;
+            senderLock.lock();
+            try {
+                sender = null;
+                timedOut = stalled;
+            } finally {
+                senderLock.unlock();
+            }
+            if (timedOut) {
+                Thread.interrupted();
+                throw new TimeoutException("Change feed delivery exceeded the send timeout");
+            }
+        }
+
+        /**
+         * Drops the subscription if its sink has been delivering for longer than the send timeout.
+         */
+        private void abortIfStalled(long now) {
+            senderLock.lock();
+            try {
+                if (sender == null || stalled || now - sendStarted < sendTimeoutNanos) {
+                    return;
+                }
+                stalled = true;
+                sender.interrupt();
+            } finally {
+                senderLock.unlock();
+            }
+            logger.warn("Dropping change feed subscriber: delivery took longer than {} ms.",
+                    TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+            cancel();
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Closing stalled change feed subscriber failed: {}", e.getMessage());
+                }
+            }
+        }
+
+        private boolean hasPending() {
+            bufferLock.lock();
+            try {
+                return !buffer.isEmpty() || resyncDue || heartbeatDue;
+            } finally {
+                bufferLock.unlock();
+            }
+        }
+    }
+}
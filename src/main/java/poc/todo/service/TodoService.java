@@ -40,13 +40,19 @@ public class TodoService {
      * @return a list of all Todo items from the repository.
      */
     public List<Todo> getAllTodos() {
-        logger.info("Fetching all Todo items.");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching all Todo items.");
+        }
         List<Todo> todos = todoRepository.findAll();
         if (todos.isEmpty()) {
-            logger.warn("No Todo items found.");
+            if (logger.isDebugEnabled()) {
+                logger.debug("No Todo items found.");
+            }
             throw new NoTodoFoundException("No Todo items found.");
         }
-        logger.info("Retrieved {} Todo items.", todos.size());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Retrieved {} Todo items.", todos.size());
+        }
         return todos;
     }
 
@@ -57,13 +63,19 @@ public class TodoService {
      * @return the Todo item if found, or null if not found.
      */
     public Todo getTodoById(Long id) {
-        logger.info("Fetching Todo item with ID: {}", id);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Fetching Todo item with ID: {}", id);
+        }
         Optional<Todo> optionalTodo = todoRepository.findById(id);
         if (optionalTodo.isPresent()) {
-            logger.info("Found Todo item with ID: {}", id);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Found Todo item with ID: {}", id);
+            }
             return optionalTodo.get();
         } else {
-            logger.warn("Todo item with ID {} not found.", id);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Todo item with ID {} not found.", id);
+            }
             throw new NoTodoFoundException("No Todo item found with ID " + id);
         }
     }
@@ -76,9 +88,13 @@ public class TodoService {
      * @throws IllegalArgumentException if the description is null or empty.
      */
     public Todo createTodo(Todo todo) throws IllegalArgumentException {
-        logger.info("Creating a new Todo item.");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Creating a new Todo item.");
+        }
         if (todo.getDescription() == null || todo.getDescription().isEmpty()) {
-            logger.error("Failed to create Todo item: description is null or empty.");
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to create Todo item: description is null or empty.");
+            }
             throw new MissingTodoDescriptionException("Failed to create Todo item: description is null or empty.");
         }
 
@@ -87,7 +103,9 @@ public class TodoService {
         }
 
         Todo createdTodo = todoRepository.save(todo);
-        logger.info("Created Todo item with ID: {}", createdTodo.getId());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Created Todo item with ID: {}", createdTodo.getId());
+        }
         return createdTodo;
     }
 
@@ -99,7 +117,9 @@ public class TodoService {
      * @return the updated Todo item, or null if the item doesn't exist.
      */
     public Todo updateTodo(Long id, Todo newTodoData) {
-        logger.info("Updating Todo item with ID: {}", id);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Updating Todo item with ID: {}", id);
+        }
         Optional<Todo> optionalTodo = todoRepository.findById(id);
         if (optionalTodo.isPresent()) {
             Todo todo = optionalTodo.get();
@@ -109,16 +129,22 @@ public class TodoService {
             }
 
             if (newTodoData.getDescription() == null || newTodoData.getDescription().isEmpty()) {
-                logger.error("Failed to update Todo item: description is empty.");
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Failed to update Todo item: description is empty.");
+                }
                 throw new MissingTodoDescriptionException("Failed to update Todo item: description is null or empty.");
             }
 
             todo.setDescription(newTodoData.getDescription());
             Todo updatedTodo = todoRepository.save(todo);
-            logger.info("Updated Todo item with ID: {}", updatedTodo.getId());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Updated Todo item with ID: {}", updatedTodo.getId());
+            }
             return updatedTodo;
         } else {
-            logger.warn("Failed to update Todo item: ID {} not found.", id);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to update Todo item: ID {} not found.", id);
+            }
             throw new NoTodoFoundException("No Todo item found with ID " + id);
         }
     }
@@ -130,13 +156,19 @@ public class TodoService {
      * @return true if the Todo item was deleted, false if it did not exist.
      */
     public boolean deleteTodoById(Long id) {
-        logger.info("Deleting Todo item with ID: {}", id);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Deleting Todo item with ID: {}", id);
+        }
         if (todoRepository.existsById(id)) {
             todoRepository.deleteById(id);
-            logger.info("Todo item with ID {} deleted.", id);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Todo item with ID {} deleted.", id);
+            }
             return true;
         } else {
-            logger.warn("Todo item with ID {} does not exist, cannot delete.", id);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Todo item with ID {} does not exist, cannot delete.", id);
+            }
             throw new NoTodoFoundException("No Todo item found with ID " + id);
         }
     }
@@ -1,16 +1,33 @@
 package poc.todo.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import poc.todo.dao.TodoDaoImpl;
+import poc.todo.dao.TodoDao;
 import poc.todo.exception.MissingTodoDescriptionException;
 import poc.todo.exception.NoTodoFoundException;
+import poc.todo.exception.TodoChangesExpiredException;
+import poc.todo.exception.TodoVersionConflictException;
+import poc.todo.metrics.TodoMetrics;
 import poc.todo.model.Todo;
+import poc.todo.model.TodoBatchItemResult;
+import poc.todo.model.TodoBatchResult;
+import poc.todo.model.TodoChange;
+import poc.todo.model.TodoChangeEvent;
+import poc.todo.model.TodoChangePage;
+import poc.todo.model.TodoField;
+import poc.todo.model.TodoPage;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Service class for handling business logic related to Todo items.
@@ -21,16 +38,62 @@ public class TodoServiceDao {
 
     private static final Logger logger = LoggerFactory.getLogger(TodoServiceDao.class);
 
-    private final TodoDaoImpl todoRepository;
+    /**
+     * Number of Todo items returned per page when the client does not ask for a limit.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
 
     /**
-     * Constructor for TodoServiceDao, injecting the TodoDaoImpl.
+     * Upper bound on the page size a client can request.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final TodoDao todoRepository;
+    private final TodoChangeTracker changeTracker;
+    private final TodoEventBroker eventBroker;
+
+    // Latency timers per operation, resolved once so timing a call only records the duration
+    private final Timer getAllTimer;
+    private final Timer getPageTimer;
+    private final Timer getByCompletedTimer;
+    private final Timer countTimer;
+    private final Timer searchTimer;
+    private final Timer getChangesTimer;
+    private final Timer streamAllTimer;
+    private final Timer writeAllTimer;
+    private final Timer getByIdTimer;
+    private final Timer createTimer;
+    private final Timer createBatchTimer;
+    private final Timer updateTimer;
+    private final Timer deleteTimer;
+
+    /**
+     * Constructor for TodoServiceDao, injecting the TodoDao, the change tracker, the change feed and the metrics.
      *
      * @param todoRepository the data access object for Todo items.
+     * @param changeTracker  the tracker notified after every committed change.
+     * @param eventBroker    the change feed every committed change is published to.
+     * @param metrics        the factory of the operation timers.
      */
     @Autowired
-    public TodoServiceDao(TodoDaoImpl todoRepository) {
+    public TodoServiceDao(TodoDao todoRepository, TodoChangeTracker changeTracker, TodoEventBroker eventBroker,
+                          TodoMetrics metrics) {
         this.todoRepository = todoRepository;
+        this.changeTracker = changeTracker;
+        this.eventBroker = eventBroker;
+        this.getAllTimer = metrics.serviceTimer("getAllTodos");
+        this.getPageTimer = metrics.serviceTimer("getTodoPage");
+        this.getByCompletedTimer = metrics.serviceTimer("getTodosByCompleted");
+        this.countTimer = metrics.serviceTimer("countTodos");
+        this.searchTimer = metrics.serviceTimer("searchTodos");
+        this.getChangesTimer = metrics.serviceTimer("getChangesSince");
+        this.streamAllTimer = metrics.serviceTimer("streamAllTodos");
+        this.writeAllTimer = metrics.serviceTimer("writeAllTodos");
+        this.getByIdTimer = metrics.serviceTimer("getTodoById");
+        this.createTimer = metrics.serviceTimer("createTodo");
+        this.createBatchTimer = metrics.serviceTimer("createTodos");
+        this.updateTimer = metrics.serviceTimer("updateTodo");
+        this.deleteTimer = metrics.serviceTimer("deleteTodoById");
         logger.info("TodoServiceDao initialized.");
     }
 
@@ -40,14 +103,246 @@ public class TodoServiceDao {
      * @return a list of all Todo items.
      */
     public List<Todo> getAllTodos() {
-        logger.info("Fetching all Todo items.");
-        List<Todo> todos = todoRepository.findAll();
-        if (todos.isEmpty()) {
-            logger.warn("No Todo items found.");
-            throw new NoTodoFoundException("No Todo items found.");
+        return getAllTodos(null);
+    }
+
+    /**
+     * Retrieves all Todo items, with only the selected fields populated.
+     *
+     * @param fields the fields to populate, or null for all fields.
+     * @return a list of all Todo items.
+     * @throws NoTodoFoundException if there are no Todo items.
+     */
+    public List<Todo> getAllTodos(Set<TodoField> fields) {
+        return getAllTimer.record(() -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Fetching fields {} of all Todo items.", fields == null ? "(all)" : fields);
+            }
+            List<Todo> todos = fields == null ? todoRepository.findAll() : todoRepository.findAll(fields);
+            if (todos.isEmpty()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("No Todo items found.");
+                }
+                throw new NoTodoFoundException("No Todo items found.");
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Fetched {} Todo items.", todos.size());
+            }
+            return todos;
+        });
+    }
+
+    /**
+     * Retrieves all Todo items with the given completion status.
+     *
+     * @param completed the completion status to filter on.
+     * @return a list of the matching Todo items, ordered by ID.
+     * @throws NoTodoFoundException if no Todo item matches.
+     */
+    public List<Todo> getTodosByCompleted(boolean completed) {
+        return getTodosByCompleted(completed, null);
+    }
+
+    /**
+     * Retrieves all Todo items with the given completion status, with only the selected fields populated.
+     *
+     * @param completed the completion status to filter on.
+     * @param fields    the fields to populate, or null for all fields.
+     * @return a list of the matching Todo items, ordered by ID.
+     * @throws NoTodoFoundException if no Todo item matches.
+     */
+    public List<Todo> getTodosByCompleted(boolean completed, Set<TodoField> fields) {
+        return getByCompletedTimer.record(() -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Fetching fields {} of Todo items with completed={}.", fields == null ? "(all)" : fields, completed);
+            }
+            List<Todo> todos = fields == null
+                    ? todoRepository.findByCompleted(completed)
+                    : todoRepository.findPageByCompleted(completed, 0, Integer.MAX_VALUE, fields);
+            if (todos.isEmpty()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("No Todo items found with completed={}.", completed);
+                }
+                throw new NoTodoFoundException("No Todo items found with completed=" + completed + ".");
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Fetched {} Todo items with completed={}.", todos.size(), completed);
+            }
+            return todos;
+        });
+    }
+
+    /**
+     * Counts the Todo items, optionally only those with the given completion status.
+     *
+     * @param completed the completion status to filter on, or null to count all Todo items.
+     * @return the number of matching Todo items.
+     */
+    public long countTodos(Boolean completed) {
+        return countTimer.record(() -> {
+            long count = todoRepository.count(completed);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Counted {} Todo items with completed={}.", count, completed);
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Searches the descriptions of the Todo items, best matches first.
+     *
+     * @param text  the search text; all terms must match, and a term ending in "*" is a prefix.
+     * @param limit the requested number of results, or null for the default; clamped to {@link #MAX_PAGE_SIZE}.
+     * @return the matching Todo items ranked by relevance, empty if none match.
+     */
+    public List<Todo> searchTodos(String text, Integer limit) {
+        return searchTimer.record(() -> {
+            int resultSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            List<Todo> todos = todoRepository.search(text, resultSize);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Found {} Todo items matching \"{}\".", todos.size(), text);
+            }
+            return todos;
+        });
+    }
+
+    /**
+     * Retrieves one page of Todo items ordered by ID.
+     *
+     * @param after the ID after which the page starts, or null for the first page.
+     * @param limit the requested page size, or null for the default; clamped to {@link #MAX_PAGE_SIZE}.
+     * @return the page of Todo items with the cursor for the next page.
+     */
+    public TodoPage getTodoPage(Long after, Integer limit) {
+        return getTodoPage(after, limit, null);
+    }
+
+    /**
+     * Retrieves one page of Todo items ordered by ID, optionally only those with the given completion status.
+     *
+     * @param after     the ID after which the page starts, or null for the first page.
+     * @param limit     the requested page size, or null for the default; clamped to {@link #MAX_PAGE_SIZE}.
+     * @param completed the completion status to filter on, or null for all Todo items.
+     * @return the page of Todo items with the cursor for the next page.
+     */
+    public TodoPage getTodoPage(Long after, Integer limit, Boolean completed) {
+        return getTodoPage(after, limit, completed, null);
+    }
+
+    /**
+     * Retrieves one page of Todo items ordered by ID, with only the selected fields populated.
+     *
+     * @param after     the ID after which the page starts, or null for the first page.
+     * @param limit     the requested page size, or null for the default; clamped to {@link #MAX_PAGE_SIZE}.
+     * @param completed the completion status to filter on, or null for all Todo items.
+     * @param fields    the fields to populate, or null for all fields; the ID is always populated.
+     * @return the page of Todo items with the cursor for the next page.
+     */
+    public TodoPage getTodoPage(Long after, Integer limit, Boolean completed, Set<TodoField> fields) {
+        return getPageTimer.record(() -> {
+            long afterId = after == null ? 0 : after;
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            if (logger.isDebugEnabled()) {
+                logger.debug("Fetching a page of {} Todo items after ID {} with completed={}.", pageSize, afterId, completed);
+            }
+
+            // Fetch one extra row so the last page can be detected without another round trip
+            List<Todo> todos;
+            if (fields == null) {
+                todos = completed == null
+                        ? todoRepository.findPage(afterId, pageSize + 1)
+                        : todoRepository.findPageByCompleted(completed, afterId, pageSize + 1);
+            } else {
+                todos = completed == null
+                        ? todoRepository.findPage(afterId, pageSize + 1, fields)
+                        : todoRepository.findPageByCompleted(completed, afterId, pageSize + 1, fields);
+            }
+            Long nextCursor = null;
+            if (todos.size() > pageSize) {
+                todos = todos.subList(0, pageSize);
+                nextCursor = todos.get(pageSize - 1).getId();
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Fetched {} Todo items, next cursor: {}", todos.size(), nextCursor);
+            }
+            return new TodoPage(todos, nextCursor);
+        });
+    }
+
+    /**
+     * Retrieves the Todo items created, updated or deleted after a change sequence number, for delta sync.
+     * A client starts with 0, which lists every Todo item, then keeps passing the returned "nextSince".
+     *
+     * @param since the change sequence number of the client's last sync, or null for a full sync.
+     * @param limit the requested number of changes, or null for the default; clamped to {@link #MAX_PAGE_SIZE}.
+     * @return the page of changes with the sequence number to resume from.
+     * @throws TodoChangesExpiredException if tombstones newer than {@code since} may have been compacted.
+     */
+    public TodoChangePage getChangesSince(Long since, Integer limit) {
+        return getChangesTimer.record(() -> {
+            long sinceSeq = since == null ? 0 : Math.max(0, since);
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            if (logger.isDebugEnabled()) {
+                logger.debug("Fetching up to {} Todo changes after sequence number {}.", pageSize, sinceSeq);
+            }
+
+            // Fetch one extra row so the last page can be detected without another round trip
+            List<TodoChange> changes = todoRepository.findChangesSince(sinceSeq, pageSize + 1);
+            // Checked after the query, so a compaction running concurrently with it cannot go unnoticed
+            long compactedThrough = todoRepository.getCompactedThrough();
+            if (sinceSeq > 0 && sinceSeq < compactedThrough) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Todo changes after sequence number {} expired, compacted through {}.", sinceSeq, compactedThrough);
+                }
+                throw new TodoChangesExpiredException("Todo changes after sequence number " + sinceSeq
+                        + " are no longer available; reload all Todo items and sync from 0.");
+            }
+            boolean hasMore = changes.size() > pageSize;
+            if (hasMore) {
+                changes = changes.subList(0, pageSize);
+            }
+            long nextSince = changes.isEmpty() ? sinceSeq : changes.get(changes.size() - 1).getSeq();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Fetched {} Todo changes, next sequence number: {}", changes.size(), nextSince);
+            }
+            return new TodoChangePage(changes, nextSince, hasMore);
+        });
+    }
+
+    /**
+     * Streams all Todo items without loading them into memory.
+     * The returned stream must be closed by the caller once consumed.
+     *
+     * @return a stream of all Todo items.
+     */
+    public Stream<Todo> streamAllTodos() {
+        return streamAllTimer.record(() -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Streaming all Todo items.");
+            }
+            return todoRepository.streamAll();
+        });
+    }
+
+    /**
+     * Writes all Todo items as a JSON array directly from the database, without loading them into memory
+     * or creating a Todo object per item.
+     *
+     * @param generator the generator to write the array to.
+     * @return the number of Todo items written.
+     * @throws IOException if writing fails, e.g. because the client went away.
+     */
+    public long writeAllTodos(JsonGenerator generator) throws IOException {
+        Timer.Sample sample = Timer.start();
+        try {
+            long count = todoRepository.writeAll(generator);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Wrote {} Todo items.", count);
+            }
+            return count;
+        } finally {
+            sample.stop(writeAllTimer);
         }
-        logger.info("Fetched {} Todo items.", todos.size());
-        return todos;
     }
 
     /**
@@ -57,15 +352,35 @@ public class TodoServiceDao {
      * @return the Todo item if found, or null if not found.
      */
     public Todo getTodoById(Long id) {
-        logger.info("Fetching Todo item with ID: {}", id);
-        Optional<Todo> optionalTodo = Optional.ofNullable(todoRepository.findById(id));
-        if (optionalTodo.isPresent()) {
-            logger.info("Found Todo item with ID: {}", id);
-            return optionalTodo.get();
-        } else {
-            logger.warn("Todo item with ID {} not found.", id);
-            throw new NoTodoFoundException("No Todo item found with ID " + id);
-        }
+        return getTodoById(id, null);
+    }
+
+    /**
+     * Retrieves a specific Todo item by its ID, with only the selected fields populated.
+     *
+     * @param id     the ID of the Todo item to retrieve.
+     * @param fields the fields to populate, or null for all fields.
+     * @return the Todo item.
+     * @throws NoTodoFoundException if no Todo item has the ID.
+     */
+    public Todo getTodoById(Long id, Set<TodoField> fields) {
+        return getByIdTimer.record(() -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Fetching Todo item with ID: {}", id);
+            }
+            Optional<Todo> optionalTodo = Optional.ofNullable(fields == null ? todoRepository.findById(id) : todoRepository.findById(id, fields));
+            if (optionalTodo.isPresent()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Found Todo item with ID: {}", id);
+                }
+                return optionalTodo.get();
+            } else {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Todo item with ID {} not found.", id);
+                }
+                throw new NoTodoFoundException("No Todo item found with ID " + id);
+            }
+        });
     }
 
     /**
@@ -76,69 +391,199 @@ public class TodoServiceDao {
      * @throws IllegalArgumentException if the description is null or empty.
      */
     public Todo createTodo(Todo todo) throws IllegalArgumentException {
-        logger.info("Creating a new Todo item.");
+        return createTimer.record(() -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Creating a new Todo item.");
+            }
+            prepareNewTodo(todo);
+
+            Todo createdTodo = todoRepository.save(todo);
+            changeTracker.changed();
+            eventBroker.publish(new TodoChangeEvent(TodoChangeEvent.CREATED, createdTodo.getId(), createdTodo));
+            if (logger.isDebugEnabled()) {
+                logger.debug("Created Todo item with ID: {}", createdTodo.getId());
+            }
+            return createdTodo;
+        });
+    }
+
+    /**
+     * Creates several Todo items at once.
+     * Every item is validated like {@link #createTodo(Todo)}; valid items are written together
+     * in a single transaction and invalid ones are reported without affecting the others.
+     *
+     * @param todos the Todo items to create.
+     * @return the per-item results, in request order.
+     */
+    public TodoBatchResult createTodos(List<Todo> todos) {
+        return createBatchTimer.record(() -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Creating a batch of {} Todo items.", todos.size());
+            }
+            TodoBatchItemResult[] results = new TodoBatchItemResult[todos.size()];
+            List<Todo> validTodos = new ArrayList<>(todos.size());
+            List<Integer> validIndexes = new ArrayList<>(todos.size());
+            for (int i = 0; i < todos.size(); i++) {
+                try {
+                    Todo todo = todos.get(i);
+                    if (todo == null) {
+                        throw new MissingTodoDescriptionException("Failed to create Todo item: description is null or empty.");
+                    }
+                    prepareNewTodo(todo);
+                    validTodos.add(todo);
+                    validIndexes.add(i);
+                } catch (MissingTodoDescriptionException e) {
+                    results[i] = new TodoBatchItemResult(i, TodoBatchItemResult.Outcome.REJECTED, null, e.getMessage());
+                }
+            }
+
+            if (!validTodos.isEmpty()) {
+                List<Todo> createdTodos = todoRepository.saveAll(validTodos);
+                changeTracker.changed();
+                for (int i = 0; i < createdTodos.size(); i++) {
+                    int index = validIndexes.get(i);
+                    Todo createdTodo = createdTodos.get(i);
+                    results[index] = new TodoBatchItemResult(index, TodoBatchItemResult.Outcome.CREATED, createdTodo, null);
+                    eventBroker.publish(new TodoChangeEvent(TodoChangeEvent.CREATED, createdTodo.getId(), createdTodo));
+                }
+            }
+
+            int failed = todos.size() - validTodos.size();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Created {} Todo items in batch, {} rejected.", validTodos.size(), failed);
+            }
+            return new TodoBatchResult(validTodos.size(), failed, Arrays.asList(results));
+        });
+    }
+
+    /**
+     * Validates a Todo item before creation and fills in its defaults.
+     *
+     * @param todo the Todo item to validate.
+     * @throws MissingTodoDescriptionException if the description is null or empty.
+     */
+    private void prepareNewTodo(Todo todo) {
         if (todo.getDescription() == null || todo.getDescription().isEmpty()) {
-            logger.error("Failed to create Todo item: description is empty.");
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to create Todo item: description is empty.");
+            }
             throw new MissingTodoDescriptionException("Failed to create Todo item: description is null or empty.");
         }
 
         if (todo.getCompleted() == null) {
             todo.setCompleted(false); // Default completion to false
         }
-
-        Todo createdTodo = todoRepository.save(todo);
-        logger.info("Created Todo item with ID: {}", createdTodo.getId());
-        return createdTodo;
     }
 
     /**
-     * Updates an existing Todo item with new data.
+     * Updates an existing Todo item with new data, regardless of its current version.
      *
      * @param id          the ID of the Todo item to update.
      * @param newTodoData the updated Todo data.
-     * @return the updated Todo item, or null if the item doesn't exist.
+     * @return the updated Todo item.
      */
     public Todo updateTodo(Long id, Todo newTodoData) {
-        logger.info("Updating Todo item with ID: {}", id);
-        Optional<Todo> optionalTodo = Optional.ofNullable(todoRepository.findById(id));
-        if (optionalTodo.isPresent()) {
-            Todo todo = optionalTodo.get();
+        return updateTodo(id, newTodoData, null);
+    }
 
-            if (newTodoData.getCompleted() != null) {
-                todo.setCompleted(newTodoData.getCompleted());
+    /**
+     * Updates the fields sent in the new data of an existing Todo item, in a single conditional statement.
+     * Fields left null keep their current value.
+     *
+     * @param id              the ID of the Todo item to update.
+     * @param newTodoData     the updated Todo data.
+     * @param expectedVersion the version the Todo item must still have, or null to update any version.
+     * @return the updated Todo item with its new version.
+     * @throws MissingTodoDescriptionException if the description is sent but empty.
+     * @throws NoTodoFoundException            if no Todo item has the given ID.
+     * @throws TodoVersionConflictException    if the Todo item no longer has the expected version.
+     */
+    public Todo updateTodo(Long id, Todo newTodoData, Long expectedVersion) {
+        return updateTimer.record(() -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Updating Todo item with ID: {}", id);
             }
-
-            if (newTodoData.getDescription() == null || newTodoData.getDescription().isEmpty()) {
-                logger.error("Failed to update Todo item: description is empty.");
+            if (newTodoData.getDescription() != null && newTodoData.getDescription().isEmpty()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Failed to update Todo item: description is empty.");
+                }
                 throw new MissingTodoDescriptionException("Failed to update Todo item: description is null or empty.");
             }
 
-            todo.setDescription(newTodoData.getDescription());
-            Todo updatedTodo = todoRepository.updateById(todo);
+            Todo patch = new Todo();
+            patch.setId(id);
+            patch.setDescription(newTodoData.getDescription());
+            patch.setCompleted(newTodoData.getCompleted());
+            patch.setVersion(expectedVersion);
+            Todo updatedTodo = todoRepository.updateById(patch);
+            if (updatedTodo == null) {
+                throw mutationFailure(id, expectedVersion, "update");
+            }
+            changeTracker.changed();
+            eventBroker.publish(new TodoChangeEvent(TodoChangeEvent.UPDATED, id, updatedTodo));
 
-            logger.info("Updated Todo item with ID: {}", updatedTodo.getId());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Updated Todo item with ID: {}", updatedTodo.getId());
+            }
             return updatedTodo;
-        } else {
-            logger.warn("Failed to update Todo item: ID {} not found.", id);
-            throw new NoTodoFoundException("No Todo item found with ID " + id);
-        }
+        });
     }
 
     /**
-     * Deletes a Todo item by its ID.
+     * Deletes a Todo item by its ID, regardless of its current version.
      *
      * @param id the ID of the Todo item to delete.
-     * @return true if the Todo item was deleted, false if it does not exist.
+     * @return true if the Todo item was deleted.
      */
     public boolean deleteTodoById(Long id) {
-        logger.info("Deleting Todo item with ID: {}", id);
-        if (todoRepository.existsById(id)) {
-            todoRepository.deleteById(id);
-            logger.info("Deleted Todo item with ID: {}", id);
+        return deleteTodoById(id, null);
+    }
+
+    /**
+     * Deletes a Todo item by its ID in a single conditional statement.
+     *
+     * @param id              the ID of the Todo item to delete.
+     * @param expectedVersion the version the Todo item must still have, or null to delete any version.
+     * @return true if the Todo item was deleted.
+     * @throws NoTodoFoundException         if no Todo item has the given ID.
+     * @throws TodoVersionConflictException if the Todo item no longer has the expected version.
+     */
+    public boolean deleteTodoById(Long id, Long expectedVersion) {
+        return deleteTimer.record(() -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Deleting Todo item with ID: {}", id);
+            }
+            if (!todoRepository.deleteById(id, expectedVersion)) {
+                throw mutationFailure(id, expectedVersion, "delete");
+            }
+            changeTracker.changed();
+            eventBroker.publish(new TodoChangeEvent(TodoChangeEvent.DELETED, id, null));
+            if (logger.isDebugEnabled()) {
+                logger.debug("Deleted Todo item with ID: {}", id);
+            }
             return true;
-        } else {
-            logger.warn("Todo item with ID {} not found, unable to delete.", id);
-            throw new NoTodoFoundException("No Todo item found with ID " + id);
+        });
+    }
+
+    /**
+     * Works out why a conditional update or delete matched no row. The existence check only runs on this
+     * failure path, so successful mutations still take a single statement.
+     *
+     * @param id              the ID of the Todo item.
+     * @param expectedVersion the version the mutation was conditional on, or null.
+     * @param operation       the name of the failed operation, for the log and message.
+     * @return the exception to throw.
+     */
+    private RuntimeException mutationFailure(Long id, Long expectedVersion, String operation) {
+        if (expectedVersion != null && todoRepository.existsById(id)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to {} Todo item: ID {} is no longer at version {}.", operation, id, expectedVersion);
+            }
+            return new TodoVersionConflictException("Todo item with ID " + id + " is no longer at version " + expectedVersion);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Failed to {} Todo item: ID {} not found.", operation, id);
         }
+        return new NoTodoFoundException("No Todo item found with ID " + id);
     }
 }
@@ -0,0 +1,169 @@
+package poc.todo;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import poc.todo.config.ReactiveConfig;
+import poc.todo.controller.ReactiveTodoController;
+import poc.todo.controller.RestExceptionHandler;
+import poc.todo.exception.NoTodoFoundException;
+import poc.todo.exception.TodoVersionConflictException;
+import poc.todo.metrics.TodoMetrics;
+import poc.todo.model.Todo;
+import poc.todo.model.TodoBatchResult;
+import poc.todo.service.TodoBulkTransfer;
+import poc.todo.service.TodoChangeTracker;
+import poc.todo.service.TodoEventBroker;
+import poc.todo.service.TodoServiceDao;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveTodoController.class)
+@ActiveProfiles("reactive")
+@Import({ReactiveConfig.class, RestExceptionHandler.class, TodoChangeTracker.class, TodoEventBroker.class, TodoBulkTransfer.class, TodoMetrics.class, SimpleMeterRegistry.class})
+public class ReactiveTodoControllerTest {
+
+    @MockBean
+    private TodoServiceDao service;
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void testGetAllStreamsTodos() {
+        when(service.streamAllTodos()).thenReturn(Stream.of(newTodo(1L, "first"), newTodo(2L, "second")));
+        webTestClient.get().uri("/todos").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBodyList(Todo.class).hasSize(2);
+    }
+
+    @Test
+    void testGetAllEmptyIsNotFound() {
+        when(service.streamAllTodos()).thenReturn(Stream.empty());
+        webTestClient.get().uri("/todos").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testGetByIdReturnsVersionETag() {
+        when(service.getTodoById(1L)).thenReturn(newTodo(1L, "first"));
+        webTestClient.get().uri("/todos/1").exchange()
+                .expectStatus().isOk()
+                .expectHeader().value("ETag", startsWith("\"3."))
+                .expectBody().jsonPath("$.description").isEqualTo("first");
+    }
+
+    @Test
+    void testGetByIdFail() {
+        when(service.getTodoById(2L)).thenThrow(new NoTodoFoundException("No Todo item found with ID 2"));
+        webTestClient.get().uri("/todos/2").exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.errorMessage").isEqualTo("No Todo item found with ID 2");
+    }
+
+    @Test
+    void testPostSuccess() {
+        when(service.createTodo(any(Todo.class))).thenReturn(newTodo(5L, "created"));
+        webTestClient.post().uri("/todos").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"description\":\"created\"}").exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.id").isEqualTo(5);
+    }
+
+    @Test
+    void testPatchVersionConflict() {
+        when(service.updateTodo(eq(1L), any(Todo.class), eq(2L)))
+                .thenThrow(new TodoVersionConflictException("Todo item with ID 1 is no longer at version 2"));
+        webTestClient.patch().uri("/todos/1").header("If-Match", "\"2.1.0-0\"").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"completed\":true}").exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+    @Test
+    void testDeleteByIdSuccess() {
+        when(service.deleteTodoById(1L, null)).thenReturn(true);
+        webTestClient.delete().uri("/todos/1").exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void testExportStreamsTodos() throws Exception {
+        whenWritingAll(newTodo(1L, "first"));
+        webTestClient.get().uri("/todos/export").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody().jsonPath("$[0].description").isEqualTo("first");
+    }
+
+    @Test
+    void testExportNegotiatesTheFormat() throws Exception {
+        whenWritingAll(newTodo(1L, "first"));
+        webTestClient.get().uri("/todos/export").header("Accept", "text/csv").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith("text/csv")
+                .expectBody(String.class).isEqualTo("id,description,completed,version\n1,first,false,3\n");
+        webTestClient.get().uri("/todos/export?format=ndjson").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).isEqualTo("{\"id\":1,\"description\":\"first\",\"completed\":false,\"version\":3}\n");
+    }
+
+    @Test
+    void testExportUnknownFormatIsBadRequest() {
+        webTestClient.get().uri("/todos/export?format=xml").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errorMessage").value(startsWith("Unknown format 'xml'"));
+    }
+
+    @Test
+    void testImportCreatesTodos() {
+        when(service.createTodos(anyList())).thenAnswer(invocation -> {
+            List<Todo> batch = invocation.getArgument(0);
+            return new TodoBatchResult(batch.size(), 0, List.of());
+        });
+        webTestClient.post().uri("/todos/import").contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"description\":\"one\"}\n{\"description\":\"two\"}\n").exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.imported").isEqualTo(2).jsonPath("$.failed").isEqualTo(0);
+    }
+
+    @Test
+    void testImportUnsupportedMediaType() {
+        webTestClient.post().uri("/todos/import").contentType(MediaType.APPLICATION_XML)
+                .bodyValue("<todos/>").exchange()
+                .expectStatus().isEqualTo(415);
+    }
+
+    private void whenWritingAll(Todo todo) throws Exception {
+        when(service.writeAllTodos(any())).thenAnswer(invocation -> {
+            JsonGenerator generator = invocation.getArgument(0);
+            generator.writeStartArray();
+            generator.writeObject(todo);
+            generator.writeEndArray();
+            return 1L;
+        });
+    }
+
+    private static Todo newTodo(long id, String description) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setDescription(description);
+        todo.setCompleted(false);
+        todo.setVersion(3L);
+        return todo;
+    }
+}
@@ -1,30 +1,76 @@
 package poc.todo;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import poc.todo.config.HttpFormatConfig;
 import poc.todo.controller.TodoController;
+import poc.todo.exception.NoTodoFoundException;
+import poc.todo.exception.TodoChangesExpiredException;
+import poc.todo.exception.TodoVersionConflictException;
+import poc.todo.metrics.TodoMetrics;
 import poc.todo.model.Todo;
+import poc.todo.model.TodoBatchItemResult;
+import poc.todo.model.TodoBatchResult;
+import poc.todo.model.TodoChange;
+import poc.todo.model.TodoChangePage;
+import poc.todo.model.TodoField;
+import poc.todo.model.TodoJson;
+import poc.todo.model.TodoPage;
+import poc.todo.service.TodoBulkTransfer;
+import poc.todo.service.TodoChangeTracker;
+import poc.todo.service.TodoEventBroker;
 import poc.todo.service.TodoService;
 import poc.todo.service.TodoServiceDao;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TodoController.class)
+@Import({TodoBulkTransfer.class, TodoChangeTracker.class, TodoEventBroker.class, TodoMetrics.class, SimpleMeterRegistry.class, HttpFormatConfig.class})
 public class TestingWebApplicationTest {
 
     @Autowired
@@ -33,6 +79,10 @@ public class TestingWebApplicationTest {
     private TodoServiceDao service;
     @Autowired
     private MockMvc mockMvc;
+    @Autowired
+    private TodoChangeTracker changeTracker;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @Test
     void testGetAllSuccess() throws Exception {
@@ -47,21 +97,62 @@ public class TestingWebApplicationTest {
         todo.setDescription("MockTodoTest2");
         todo.setCompleted(false);
         todos.add(todo);
-        when(service.getAllTodos()).thenReturn(todos);
+        whenWritingAll(todos);
         this.mockMvc.perform(get("/todos"))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(header().exists("ETag"))
                 .andExpect(content().json(toJson(todos)));
+        verify(service, times(0)).getAllTodos();
     }
 
     @Test
     void testGetAllFail() throws Exception {
-        List<Todo> todos = new ArrayList<>();
-        when(service.getAllTodos()).thenReturn(todos);
+        whenWritingAll(List.of());
         this.mockMvc.perform(get("/todos"))
                 .andDo(print())
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(content().string(not(containsString("[]"))));
+    }
+
+    @Test
+    void testGetAllNotModifiedUntilChanged() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(1L);
+        todo.setDescription("MockTodoTest");
+        todo.setCompleted(false);
+        whenWritingAll(List.of(todo));
+        String eTag = this.mockMvc.perform(get("/todos"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+        this.mockMvc.perform(get("/todos").header("If-None-Match", eTag))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+        verify(service, times(1)).writeAllTodos(any());
+
+        changeTracker.changed();
+        this.mockMvc.perform(get("/todos").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJson(List.of(todo))));
+    }
+
+    @Test
+    void testGetPageSuccess() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(2L);
+        todo.setDescription("MockTodoTest");
+        todo.setCompleted(false);
+        TodoPage page = new TodoPage(List.of(todo), 2L);
+        when(service.getTodoPage(1L, 1)).thenReturn(page);
+        this.mockMvc.perform(get("/todos").param("after", "1").param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(toJson(page)));
     }
 
     @Test
@@ -78,6 +169,49 @@ public class TestingWebApplicationTest {
                 .andExpect(content().json(toJson(todo)));
     }
 
+    @Test
+    void testGetByIdReturnsVersionETag() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(1L);
+        todo.setDescription("MockTodoTest");
+        todo.setCompleted(true);
+        todo.setVersion(3L);
+        when(service.getTodoById(1L)).thenReturn(todo);
+        this.mockMvc.perform(get("/todos/1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"3.")));
+    }
+
+    @Test
+    void testGetByIdNotModified() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(1L);
+        todo.setDescription("MockTodoTest");
+        todo.setCompleted(true);
+        todo.setVersion(3L);
+        when(service.getTodoById(1L)).thenReturn(todo);
+        String eTag = this.mockMvc.perform(get("/todos/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        this.mockMvc.perform(get("/todos/1").header("If-None-Match", eTag))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+        verify(service, times(1)).getTodoById(1L);
+        // The tag of item 1 says nothing about item 2, even at the same version
+        Todo other = new Todo();
+        other.setId(2L);
+        other.setDescription("OtherTodoTest");
+        other.setCompleted(false);
+        other.setVersion(3L);
+        when(service.getTodoById(2L)).thenReturn(other);
+        this.mockMvc.perform(get("/todos/2").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("OtherTodoTest"))
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
     @Test
     void testGetByIdFail() throws Exception {
         when(service.getTodoById(1L)).thenReturn(null);
@@ -86,6 +220,19 @@ public class TestingWebApplicationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testNotFoundIsCounted() throws Exception {
+        // The registry is shared by the tests of this context, so only the increase is checked
+        Counter counter = meterRegistry.find(TodoMetrics.EXCEPTION_COUNTER).tag("exception", "NoTodoFoundException").counter();
+        double before = counter == null ? 0 : counter.count();
+        when(service.getTodoById(2L)).thenThrow(new NoTodoFoundException("No Todo item found with ID 2"));
+        this.mockMvc.perform(get("/todos/2"))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+        assertEquals(before + 1, meterRegistry.get(TodoMetrics.EXCEPTION_COUNTER)
+                .tag("exception", "NoTodoFoundException").counter().count());
+    }
+
     @Test
     void testDeleteByIdSuccess() throws Exception {
         when(service.deleteTodoById(1L)).thenReturn(true);
@@ -102,6 +249,15 @@ public class TestingWebApplicationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testDeleteByIdWithIfMatch() throws Exception {
+        when(service.deleteTodoById(1L, 3L)).thenReturn(true);
+        this.mockMvc.perform(delete("/todos/1").header("If-Match", "\"3.1.0-0\""))
+                .andDo(print())
+                .andExpect(status().isNoContent());
+        verify(service).deleteTodoById(1L, 3L);
+    }
+
     @Test
     void testPostSuccess() throws Exception {
         Todo todo = new Todo();
@@ -131,6 +287,171 @@ public class TestingWebApplicationTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void testPostBatchPartialSuccess() throws Exception {
+        Todo valid = new Todo();
+        valid.setDescription("MockTodoTest");
+        Todo invalid = new Todo();
+        Todo created = new Todo();
+        created.setId(1L);
+        created.setDescription("MockTodoTest");
+        created.setCompleted(false);
+        TodoBatchResult result = new TodoBatchResult(1, 1, List.of(
+                new TodoBatchItemResult(0, TodoBatchItemResult.Outcome.CREATED, created, null),
+                new TodoBatchItemResult(1, TodoBatchItemResult.Outcome.REJECTED, null, "Failed to create Todo item: description is null or empty.")));
+        when(service.createTodos(anyList())).thenReturn(result);
+        this.mockMvc.perform(post("/todos/batch")
+                        .content(toJson(List.of(valid, invalid)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.results[0].status").value(201))
+                .andExpect(jsonPath("$.results[1].status").value(400))
+                .andExpect(content().json(toJson(result)));
+    }
+
+    @Test
+    void testCreateBatchGzipped() throws Exception {
+        Todo todo = new Todo();
+        todo.setDescription("MockTodoTest");
+        Todo created = new Todo();
+        created.setId(1L);
+        created.setDescription("MockTodoTest");
+        created.setCompleted(false);
+        TodoBatchResult result = new TodoBatchResult(1, 0, List.of(new TodoBatchItemResult(0, TodoBatchItemResult.Outcome.CREATED, created, null)));
+        when(service.createTodos(anyList())).thenReturn(result);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(body)) {
+            gzip.write(toJson(List.of(todo)).getBytes(StandardCharsets.UTF_8));
+        }
+        this.mockMvc.perform(post("/todos/batch")
+                        .content(body.toByteArray())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(content().json(toJson(result)));
+        verify(service).createTodos(argThat(todos -> todos.size() == 1 && "MockTodoTest".equals(todos.get(0).getDescription())));
+    }
+
+    @Test
+    void testGetAllAsCborAndSmile() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(1L);
+        todo.setDescription("MockTodoTest");
+        todo.setCompleted(false);
+        when(service.getAllTodos()).thenReturn(List.of(todo));
+        for (ObjectMapper mapper : List.of(new CBORMapper(), new ObjectMapper(new SmileFactory()))) {
+            String mediaType = mapper instanceof CBORMapper ? "application/cbor" : "application/x-jackson-smile";
+            byte[] body = this.mockMvc.perform(get("/todos").accept(mediaType))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(mediaType))
+                    .andReturn().getResponse().getContentAsByteArray();
+            assertEquals(toJson(List.of(todo)), toJson(mapper.readValue(body, Todo[].class)));
+        }
+    }
+
+    @Test
+    void testETagNamesTheRepresentation() throws Exception {
+        when(service.countTodos(null)).thenReturn(2L);
+        String eTag = this.mockMvc.perform(get("/todos/count").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+        String cborETag = this.mockMvc.perform(get("/todos/count").accept("application/cbor").header("If-None-Match", eTag))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(eTag, cborETag);
+        this.mockMvc.perform(get("/todos/count").accept("application/cbor").header("If-None-Match", cborETag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", cborETag))
+                .andExpect(header().string("Vary", containsString("Accept")));
+        this.mockMvc.perform(get("/todos/count").accept(MediaType.APPLICATION_JSON).header("If-None-Match", cborETag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testItemETagNamesTheRepresentation() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(1L);
+        todo.setDescription("MockTodoTest");
+        todo.setCompleted(false);
+        todo.setVersion(3L);
+        when(service.getTodoById(1L)).thenReturn(todo);
+        String eTag = this.mockMvc.perform(get("/todos/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        this.mockMvc.perform(get("/todos/1").accept("application/x-jackson-smile").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().string("ETag", endsWith("+smile\"")));
+    }
+
+    @Test
+    void testExportAsNdjsonAndCsv() throws Exception {
+        when(service.writeAllTodos(any())).thenAnswer(invocation -> {
+            JsonGenerator generator = invocation.getArgument(0);
+            generator.writeStartArray();
+            TodoJson.writeTodo(generator, 1L, "first", false, 0L);
+            TodoJson.writeTodo(generator, 2L, "second, done", true, 3L);
+            generator.writeEndArray();
+            return 2L;
+        });
+        MvcResult ndjson = this.mockMvc.perform(get("/todos/export").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("""
+                        {"id":1,"description":"first","completed":false,"version":0}
+                        {"id":2,"description":"second, done","completed":true,"version":3}
+                        """));
+        MvcResult csv = this.mockMvc.perform(get("/todos/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("""
+                        id,description,completed,version
+                        1,first,false,0
+                        2,"second, done",true,3
+                        """));
+        this.mockMvc.perform(get("/todos/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testImportNdjsonReportsRejectedLines() throws Exception {
+        Todo created = new Todo();
+        created.setId(1L);
+        created.setDescription("imported");
+        created.setCompleted(false);
+        when(service.createTodos(anyList())).thenReturn(new TodoBatchResult(1, 1, List.of(
+                new TodoBatchItemResult(0, TodoBatchItemResult.Outcome.CREATED, created, null),
+                new TodoBatchItemResult(1, TodoBatchItemResult.Outcome.REJECTED, null, "Failed to create Todo item: description is null or empty."))));
+        this.mockMvc.perform(post("/todos/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("""
+                                {"description":"imported"}
+                                not json
+                                {"completed":true}
+                                """))
+                .andDo(print())
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.batches").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[1].line").value(3));
+        this.mockMvc.perform(post("/todos/import").contentType(MediaType.TEXT_PLAIN).content("description\nx\n"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
     @Test
     void testPatchSuccess() throws Exception {
         Todo todo = new Todo();
@@ -161,6 +482,161 @@ public class TestingWebApplicationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testPatchVersionConflict() throws Exception {
+        Todo todo = new Todo();
+        todo.setCompleted(true);
+        when(service.updateTodo(eq(1L), any(Todo.class), eq(3L)))
+                .thenThrow(new TodoVersionConflictException("Todo item with ID 1 is no longer at version 3"));
+        this.mockMvc.perform(patch("/todos/1")
+                        .header("If-Match", "\"3.1.0-0\"")
+                        .content(toJson(todo))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testPatchWithAnotherItemsETagFails() throws Exception {
+        Todo todo = new Todo();
+        todo.setCompleted(true);
+        this.mockMvc.perform(patch("/todos/1")
+                        .header("If-Match", "\"1.2.0-5\"")
+                        .content(toJson(todo))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testDeleteWithETagWithoutIdFails() throws Exception {
+        this.mockMvc.perform(delete("/todos/1").header("If-Match", "\"3\""))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testPatchWeakIfMatchFails() throws Exception {
+        Todo todo = new Todo();
+        todo.setCompleted(true);
+        this.mockMvc.perform(patch("/todos/1")
+                        .header("If-Match", "W/\"3.1.0-0\"")
+                        .content(toJson(todo))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testGetAllByCompleted() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(2L);
+        todo.setDescription("MockTodoTest");
+        todo.setCompleted(false);
+        when(service.getTodosByCompleted(false)).thenReturn(List.of(todo));
+        this.mockMvc.perform(get("/todos").param("completed", "false"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJson(List.of(todo))));
+        verify(service, times(0)).getAllTodos();
+    }
+
+    @Test
+    void testCountByCompleted() throws Exception {
+        when(service.countTodos(true)).thenReturn(42L);
+        this.mockMvc.perform(get("/todos/count").param("completed", "true"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(content().string("42"));
+    }
+
+    @Test
+    void testGetAllWithFields() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(1L);
+        todo.setCompleted(true);
+        when(service.getAllTodos(EnumSet.of(TodoField.ID, TodoField.COMPLETED))).thenReturn(List.of(todo));
+        this.mockMvc.perform(get("/todos").param("fields", "completed"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":1,\"completed\":true}]", true));
+    }
+
+    @Test
+    void testGetByIdWithFields() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(1L);
+        todo.setDescription("MockTodoTest");
+        todo.setVersion(3L);
+        when(service.getTodoById(1L, EnumSet.of(TodoField.ID, TodoField.DESCRIPTION, TodoField.VERSION))).thenReturn(todo);
+        this.mockMvc.perform(get("/todos/1").param("fields", "id,description"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(content().json("{\"id\":1,\"description\":\"MockTodoTest\"}", true));
+    }
+
+    @Test
+    void testGetAllWithUnknownField() throws Exception {
+        this.mockMvc.perform(get("/todos").param("fields", "id,owner"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testSearch() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(3L);
+        todo.setDescription("buy milk");
+        todo.setCompleted(false);
+        when(service.searchTodos("mil*", 5)).thenReturn(List.of(todo));
+        this.mockMvc.perform(get("/todos/search").param("q", "mil*").param("limit", "5"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJson(List.of(todo))));
+    }
+
+    @Test
+    void testGetChangesSince() throws Exception {
+        Todo todo = new Todo();
+        todo.setId(1L);
+        todo.setDescription("MockTodoTest");
+        todo.setCompleted(false);
+        TodoChangePage page = new TodoChangePage(List.of(new TodoChange(11L, 1L, false, todo), new TodoChange(12L, 2L, true, null)), 12L, false);
+        when(service.getChangesSince(10L, null)).thenReturn(page);
+        this.mockMvc.perform(get("/todos/changes").param("since", "10"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(toJson(page)));
+    }
+
+    @Test
+    void testGetChangesSinceCompacted() throws Exception {
+        when(service.getChangesSince(3L, null)).thenThrow(new TodoChangesExpiredException("Todo changes after sequence number 3 are no longer available"));
+        this.mockMvc.perform(get("/todos/changes").param("since", "3"))
+                .andDo(print())
+                .andExpect(status().isGone());
+    }
+
+    /**
+     * Stubs the service to write the given Todo items as the DAO does, straight to the generator.
+     */
+    private void whenWritingAll(List<Todo> todos) throws IOException {
+        when(service.writeAllTodos(any())).thenAnswer(invocation -> {
+            JsonGenerator generator = invocation.getArgument(0);
+            generator.writeStartArray();
+            for (Todo todo : todos) {
+                TodoJson.writeTodo(generator, todo);
+            }
+            generator.writeEndArray();
+            return (long) todos.size();
+        });
+    }
+
     private String toJson(Object object) throws JsonProcessingException {
         return objectMapper.writeValueAsString(object);
     }
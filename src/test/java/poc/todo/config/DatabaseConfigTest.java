@@ -0,0 +1,69 @@
+package poc.todo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DatabaseConfigTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HikariDataSource writer;
+    private HikariDataSource readers;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("todo.datasource.url", "jdbc:sqlite:" + tempDir.resolve("split.db"))
+                .withProperty("sqlite.pool.enabled", "true")
+                .withProperty("sqlite.read-write-split.enabled", "true")
+                .withProperty("sqlite.read-pool.size", "2");
+        DatabaseConfig config = new DatabaseConfig();
+        ReflectionTestUtils.setField(config, "env", env);
+        writer = (HikariDataSource) config.createDataSource();
+        readers = config.readDataSource();
+    }
+
+    @AfterEach
+    void tearDown() {
+        readers.close();
+        writer.close();
+    }
+
+    @Test
+    void writerIsASingleConnectionAndReadersAreQueryOnly() {
+        assertThat(writer.getMaximumPoolSize()).isEqualTo(1);
+        assertThat(readers.getMaximumPoolSize()).isEqualTo(2);
+
+        JdbcTemplate reader = new JdbcTemplate(readers);
+        new JdbcTemplate(writer).execute("CREATE TABLE T (ID INTEGER PRIMARY KEY)");
+
+        assertThat(reader.queryForObject("PRAGMA query_only", Integer.class)).isEqualTo(1);
+        assertThatThrownBy(() -> reader.update("INSERT INTO T VALUES (1)")).isInstanceOf(DataAccessException.class);
+    }
+
+    @Test
+    void readersSeeEveryCommittedWrite() {
+        JdbcTemplate writes = new JdbcTemplate(writer);
+        JdbcTemplate reads = new JdbcTemplate(readers);
+        writes.execute("CREATE TABLE T (ID INTEGER PRIMARY KEY)");
+
+        // The cached statement of the reader must not keep the snapshot of its first run
+        for (int i = 1; i <= 20; i++) {
+            writes.update("INSERT INTO T VALUES (?)", i);
+            assertThat(reads.queryForObject("SELECT MAX(ID) FROM T", Integer.class)).isEqualTo(i);
+        }
+    }
+}
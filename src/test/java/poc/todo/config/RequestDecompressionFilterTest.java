@@ -0,0 +1,205 @@
+package poc.todo.config;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestDecompressionFilterTest {
+
+    private static final String BODY = "[{\"description\":\"compressed\"}]";
+
+    @Test
+    void inflatesDeflateBodiesAndHidesTheEncoding() throws Exception {
+        RequestDecompressionFilter filter = new RequestDecompressionFilter(DataSize.ofKilobytes(1));
+        AtomicReference<String> seen = new AtomicReference<>();
+        filter.doFilter(deflated(BODY), new MockHttpServletResponse(), (request, response) -> {
+            HttpServletRequest http = (HttpServletRequest) request;
+            assertThat(http.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+            assertThat(http.getContentLengthLong()).isEqualTo(-1);
+            seen.set(StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+        });
+
+        assertThat(seen.get()).isEqualTo(BODY);
+    }
+
+    @Test
+    void inflatesConcatenatedGzipMembersWithOptionalHeaderFields() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        // A member with a file name and a header CRC, as written by gzip -N, then a plain one
+        byte[] first = gzip("[{\"description\":");
+        compressed.write(first, 0, 3);
+        compressed.write(first[3] | 8 | 2);
+        compressed.write(first, 4, 6);
+        compressed.write("todos.json\0".getBytes(StandardCharsets.ISO_8859_1));
+        compressed.write(new byte[] {0x12, 0x34});
+        compressed.write(first, 10, first.length - 10);
+        compressed.write(gzip("\"compressed\"}]"));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/todos/batch");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        request.setContent(compressed.toByteArray());
+
+        AtomicReference<String> seen = new AtomicReference<>();
+        new RequestDecompressionFilter(DataSize.ofKilobytes(1)).doFilter(request, new MockHttpServletResponse(),
+                (filtered, ignored) -> seen.set(StreamUtils.copyToString(filtered.getInputStream(), StandardCharsets.UTF_8)));
+
+        assertThat(seen.get()).isEqualTo(BODY);
+    }
+
+    @Test
+    void readsNonBlockinglyThroughAReadListener() throws Exception {
+        byte[] compressed = gzip(BODY.repeat(100));
+        ChunkedInputStream source = new ChunkedInputStream(compressed, 7);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/todos/batch") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return source;
+            }
+        };
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        AtomicReference<Boolean> allRead = new AtomicReference<>(false);
+        new RequestDecompressionFilter(DataSize.ofKilobytes(16)).doFilter(request, new MockHttpServletResponse(), (filtered, ignored) -> {
+            ServletInputStream in = filtered.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[64];
+                    while (in.isReady() && !in.isFinished()) {
+                        int read = in.read(buffer);
+                        if (read > 0) {
+                            inflated.write(buffer, 0, read);
+                        }
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new AssertionError(t);
+                }
+            });
+        });
+        source.deliverAll();
+
+        assertThat(allRead.get()).isTrue();
+        assertThat(inflated.toString(StandardCharsets.UTF_8)).isEqualTo(BODY.repeat(100));
+    }
+
+    @Test
+    void refusesUnknownEncodingsAndOversizedBodies() throws Exception {
+        MockHttpServletRequest brotli = new MockHttpServletRequest("POST", "/todos/batch");
+        brotli.addHeader(HttpHeaders.CONTENT_ENCODING, "br");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new RequestDecompressionFilter(DataSize.ofKilobytes(1)).doFilter(brotli, response, (request, ignored) -> {
+            throw new AssertionError("Unsupported encodings must not reach the controllers");
+        });
+        assertThat(response.getStatus()).isEqualTo(415);
+
+        RequestDecompressionFilter capped = new RequestDecompressionFilter(DataSize.ofBytes(10));
+        assertThatThrownBy(() -> capped.doFilter(deflated(BODY), new MockHttpServletResponse(),
+                (request, ignored) -> StreamUtils.copyToByteArray(request.getInputStream())))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("exceeds 10 bytes");
+    }
+
+    private static byte[] gzip(String body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressed.toByteArray();
+    }
+
+    private static MockHttpServletRequest deflated(String body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/todos/batch");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "deflate");
+        request.setContent(compressed.toByteArray());
+        return request;
+    }
+
+    /**
+     * Non-blocking request stream that makes a few bytes ready at a time, like a slow client,
+     * calling the ReadListener as a container would.
+     */
+    private static final class ChunkedInputStream extends ServletInputStream {
+
+        private final byte[] content;
+        private final int chunkSize;
+        private int position;
+        private int available;
+        private ReadListener readListener;
+
+        ChunkedInputStream(byte[] content, int chunkSize) {
+            this.content = content;
+            this.chunkSize = chunkSize;
+        }
+
+        void deliverAll() throws IOException {
+            while (position < content.length) {
+                available = Math.min(chunkSize, content.length - position);
+                readListener.onDataAvailable();
+            }
+            readListener.onAllDataRead();
+        }
+
+        @Override
+        public int read() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position == content.length) {
+                return -1;
+            }
+            if (available == 0) {
+                throw new IllegalStateException("Read while not ready");
+            }
+            int read = Math.min(length, available);
+            System.arraycopy(content, position, buffer, offset, read);
+            position += read;
+            available -= read;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return position == content.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return available > 0 || position == content.length;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            this.readListener = readListener;
+        }
+    }
+}
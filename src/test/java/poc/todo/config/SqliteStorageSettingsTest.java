@@ -0,0 +1,86 @@
+package poc.todo.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.unit.DataSize;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SqliteStorageSettingsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void profileSettingsCanBeOverriddenOneByOne() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("sqlite.storage-profile", "Low-Memory")
+                .withProperty("sqlite.cache-size", "4MB")
+                .withProperty("sqlite.synchronous", "full");
+
+        SqliteStorageSettings settings = SqliteStorageSettings.from(env);
+
+        assertThat(settings.getProfile()).isEqualTo(SqliteStorageProfile.LOW_MEMORY);
+        assertThat(settings.expectedPragmas())
+                .containsEntry("cache_size", -4096L)
+                .containsEntry("synchronous", 2L)
+                .containsEntry("temp_store", 1L)
+                .containsEntry("journal_mode", "wal");
+    }
+
+    @Test
+    void unknownProfileAndInvalidPageSizeAreRejected() {
+        assertThatThrownBy(() -> SqliteStorageSettings.from(new MockEnvironment().withProperty("sqlite.storage-profile", "fast")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("low-memory");
+        assertThatThrownBy(() -> SqliteStorageSettings.from(new MockEnvironment().withProperty("sqlite.page-size", "5000")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void newDatabaseGetsEveryPragmaOfTheProfile() throws SQLException {
+        SqliteStorageSettings settings = new SqliteStorageSettings(SqliteStorageProfile.THROUGHPUT,
+                SQLiteConfig.JournalMode.WAL, SQLiteConfig.SynchronousMode.NORMAL, DataSize.ofMegabytes(64),
+                DataSize.ofMegabytes(256), SQLiteConfig.TempStore.MEMORY, 8192);
+
+        SqliteStorageReport report = report(settings, "new.db");
+
+        assertThat(report.getDifferences()).isEmpty();
+        assertThat(report.getApplied()).containsEntry("page_size", 8192L).containsEntry("mmap_size", 268435456L);
+    }
+
+    @Test
+    void existingDatabaseKeepsItsPageSizeAndTheDifferenceIsReported() throws SQLException {
+        report(SqliteStorageSettings.of(SqliteStorageProfile.BALANCED), "existing.db");
+        SqliteStorageSettings larger = new SqliteStorageSettings(SqliteStorageProfile.BALANCED,
+                SQLiteConfig.JournalMode.WAL, SQLiteConfig.SynchronousMode.NORMAL, DataSize.ofMegabytes(2),
+                DataSize.ofBytes(0), SQLiteConfig.TempStore.DEFAULT, 16384);
+
+        SqliteStorageReport report = report(larger, "existing.db");
+
+        assertThat(report.getApplied()).containsEntry("page_size", 4096L);
+        assertThat(report.getDifferences()).containsOnlyKeys("page_size");
+    }
+
+    private SqliteStorageReport report(SqliteStorageSettings settings, String file) throws SQLException {
+        String url = "jdbc:sqlite:" + tempDir.resolve(file);
+        settings.initializeDatabase(url);
+        SQLiteConfig config = new SQLiteConfig();
+        settings.applyTo(config);
+        SQLiteDataSource dataSource = new SQLiteDataSource(config);
+        dataSource.setUrl(url);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS t (x)");
+        SqliteStorageReport report = new SqliteStorageReport(jdbcTemplate, settings);
+        report.report();
+        return report;
+    }
+}
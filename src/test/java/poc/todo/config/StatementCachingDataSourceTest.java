@@ -0,0 +1,75 @@
+package poc.todo.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementCachingDataSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SQLiteDataSource target;
+
+    @BeforeEach
+    void setUp() {
+        target = new SQLiteDataSource();
+        target.setUrl("jdbc:sqlite:" + tempDir.resolve("cache.db"));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(target);
+        jdbcTemplate.execute("CREATE TABLE todo (id bigint not null primary key, description varchar(255))");
+        jdbcTemplate.update("INSERT INTO todo VALUES (1, 'first')");
+    }
+
+    @Test
+    void reusesStatementForSameSql() throws Exception {
+        StatementCachingDataSource dataSource = new StatementCachingDataSource(target, 4);
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement first = connection.prepareStatement("SELECT description FROM todo WHERE id = ?");
+            first.close();
+            PreparedStatement second = connection.prepareStatement("SELECT description FROM todo WHERE id = ?");
+            assertThat(second).isSameAs(first);
+            second.close();
+        }
+    }
+
+    @Test
+    void doesNotShareStatementThatIsStillOpen() throws Exception {
+        StatementCachingDataSource dataSource = new StatementCachingDataSource(target, 4);
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement first = connection.prepareStatement("SELECT description FROM todo");
+            PreparedStatement second = connection.prepareStatement("SELECT description FROM todo");
+            assertThat(second).isNotSameAs(first);
+            second.close();
+            first.close();
+        }
+    }
+
+    @Test
+    void releasedStatementSeesLaterWrites() throws Exception {
+        StatementCachingDataSource dataSource = new StatementCachingDataSource(target, 4);
+        JdbcTemplate writer = new JdbcTemplate(target);
+        try (Connection connection = dataSource.getConnection()) {
+            // Leave the cursor unfinished; releasing the statement must still reset it
+            PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM todo");
+            ResultSet resultSet = statement.executeQuery();
+            assertThat(resultSet.getInt(1)).isEqualTo(1);
+            statement.close();
+
+            writer.update("INSERT INTO todo VALUES (2, 'second')");
+
+            statement = connection.prepareStatement("SELECT COUNT(*) FROM todo");
+            resultSet = statement.executeQuery();
+            assertThat(resultSet.getInt(1)).isEqualTo(2);
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package poc.todo.dao;
+
+import org.junit.jupiter.api.Test;
+import poc.todo.model.Todo;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingTodoDaoTest {
+
+    private final TodoDao delegate = mock(TodoDao.class);
+    private final CachingTodoDao cachingTodoDao = new CachingTodoDao(delegate, 100, Duration.ofMinutes(1));
+
+    @Test
+    void servesRepeatedLookupsFromCache() {
+        when(delegate.findById(1L)).thenReturn(todo(1L, "first"));
+
+        assertThat(cachingTodoDao.findById(1L).getDescription()).isEqualTo("first");
+        assertThat(cachingTodoDao.findById(1L).getDescription()).isEqualTo("first");
+
+        verify(delegate, times(1)).findById(1L);
+        assertThat(cachingTodoDao.getStats().hitCount()).isEqualTo(1);
+        assertThat(cachingTodoDao.getStats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void updateInvalidatesCachedTodo() {
+        when(delegate.findById(1L)).thenReturn(todo(1L, "first"), todo(1L, "second"));
+        Todo updated = todo(1L, "second");
+        when(delegate.updateById(updated)).thenReturn(updated);
+
+        cachingTodoDao.findById(1L);
+        cachingTodoDao.updateById(updated);
+
+        assertThat(cachingTodoDao.findById(1L).getDescription()).isEqualTo("second");
+        verify(delegate, times(2)).findById(1L);
+    }
+
+    @Test
+    void callerChangesDoNotLeakIntoCache() {
+        when(delegate.findById(1L)).thenReturn(todo(1L, "first"));
+
+        cachingTodoDao.findById(1L).setDescription("changed by caller");
+
+        assertThat(cachingTodoDao.findById(1L).getDescription()).isEqualTo("first");
+    }
+
+    private static Todo todo(long id, String description) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setDescription(description);
+        todo.setCompleted(false);
+        return todo;
+    }
+}
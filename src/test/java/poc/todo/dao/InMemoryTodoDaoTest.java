@@ -0,0 +1,95 @@
+package poc.todo.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteDataSource;
+import poc.todo.model.Todo;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryTodoDaoTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("memory.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE todo (completed boolean, id bigint not null, description varchar(255), primary key (id))");
+        new TodoSchema(jdbcTemplate).migrate();
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void idOfADeletedTodoIsNotReusedAfterRestart() throws InterruptedException {
+        InMemoryTodoDao before = open();
+        before.save(todo("first"));
+        Todo last = before.save(todo("last"));
+        before.snapshot(); // The row exists, so the delete leaves a tombstone
+        before.deleteById(last.getId(), null);
+        before.close();
+
+        InMemoryTodoDao after = open();
+        Todo created = after.save(todo("after restart"));
+        after.close();
+
+        assertThat(created.getId()).isGreaterThan(last.getId());
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT DESCRIPTION, DELETED FROM Todo WHERE ID = ?", created.getId());
+        assertThat(row.get("DESCRIPTION")).isEqualTo("after restart");
+        assertThat(((Number) row.get("DELETED")).intValue()).isZero();
+        assertThat(open().findAll()).extracting(Todo::getDescription).containsExactly("first", "after restart");
+    }
+
+    @Test
+    void upsertOverATombstoneWritesALiveRow() {
+        jdbcTemplate.update("INSERT INTO Todo (ID, DESCRIPTION, COMPLETED, VERSION, DELETED, DELETED_AT, CHANGE_SEQ) "
+                + "VALUES (1, NULL, 0, 1, 1, 1000, 1)");
+
+        jdbcTemplate.update(InMemoryTodoDao.Queries.QUERY_UPSERT_Todo, 1L, "revived", false, 2L);
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT DESCRIPTION, DELETED, DELETED_AT FROM Todo WHERE ID = 1");
+        assertThat(row.get("DESCRIPTION")).isEqualTo("revived");
+        assertThat(((Number) row.get("DELETED")).intValue()).isZero();
+        assertThat(row.get("DELETED_AT")).isNull();
+    }
+
+    @Test
+    void searchFillsTheLimitPastMatchesDeletedSinceTheSnapshot() throws InterruptedException {
+        InMemoryTodoDao dao = open();
+        for (int i = 1; i <= 6; i++) {
+            dao.save(todo("buy milk " + i));
+        }
+        dao.snapshot();
+        for (long id = 1; id <= 3; id++) {
+            dao.deleteById(id, null);
+        }
+
+        assertThat(dao.search("milk", 3)).extracting(Todo::getId).containsExactlyInAnyOrder(4L, 5L, 6L);
+        assertThat(dao.search("milk", 10)).hasSize(3);
+        dao.close();
+    }
+
+    private InMemoryTodoDao open() {
+        return new InMemoryTodoDao(jdbcTemplate, transactionTemplate, Duration.ofHours(1));
+    }
+
+    private static Todo todo(String description) {
+        Todo todo = new Todo();
+        todo.setDescription(description);
+        todo.setCompleted(false);
+        return todo;
+    }
+}
@@ -0,0 +1,45 @@
+package poc.todo.dao;
+
+import org.junit.jupiter.api.Test;
+import poc.todo.model.Todo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongTodoMapTest {
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperations() {
+        LongTodoMap map = new LongTodoMap(8);
+        Map<Long, String> reference = new HashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            long key = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(reference.remove(key) != null);
+            } else {
+                String description = "todo " + i;
+                map.put(key, description, key % 2 == 0, i);
+                reference.put(key, description);
+                versions.put(key, (long) i);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        for (long key = 1; key <= 2_000; key++) {
+            Todo todo = map.get(key);
+            if (reference.containsKey(key)) {
+                assertThat(todo.getDescription()).isEqualTo(reference.get(key));
+                assertThat(todo.getCompleted()).isEqualTo(key % 2 == 0);
+                assertThat(todo.getVersion()).isEqualTo(versions.get(key));
+            } else {
+                assertThat(todo).isNull();
+            }
+        }
+        assertThat(map.sortedKeys()).isSorted().hasSize(reference.size());
+    }
+}
@@ -0,0 +1,160 @@
+package poc.todo.dao;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.sqlite.SQLiteDataSource;
+import poc.todo.exception.TodoChangesUnavailableException;
+import poc.todo.metrics.TodoMetrics;
+import poc.todo.model.Todo;
+import poc.todo.model.TodoField;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardedTodoDaoTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ShardedTodoDao todoDao;
+
+    @BeforeEach
+    void setUp() {
+        todoDao = open(3);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        todoDao.close();
+    }
+
+    @Test
+    void todosAreSpreadOverTheShardsAndListedInIdOrder() {
+        List<Todo> saved = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            saved.add(todoDao.save(todo("todo " + i, i % 3 == 0)));
+        }
+        saved.addAll(todoDao.saveAll(IntStream.range(30, 60).mapToObj(i -> todo("batch " + i, i % 3 == 0)).toList()));
+
+        List<Long> ids = saved.stream().map(Todo::getId).toList();
+        assertThat(ids).doesNotHaveDuplicates();
+        for (int shard = 0; shard < 3; shard++) {
+            assertThat(shardTable(shard).queryForObject("SELECT COUNT(*) FROM Todo", Integer.class)).isBetween(5, 40);
+            for (Long id : shardTable(shard).queryForList("SELECT ID FROM Todo", Long.class)) {
+                assertThat(ShardedTodoDao.shardOf(id, 3)).isEqualTo(shard);
+            }
+        }
+        assertThat(todoDao.findAll()).extracting(Todo::getId).containsExactlyElementsOf(ids.stream().sorted().toList());
+        assertThat(todoDao.findPage(ids.get(9), 5)).extracting(Todo::getId).containsExactlyElementsOf(ids.subList(10, 15));
+        assertThat(todoDao.findByCompleted(true)).hasSize(20).extracting(Todo::getId).isSorted();
+        assertThat(todoDao.findAll(EnumSet.of(TodoField.ID))).allMatch(todo -> todo.getDescription() == null).hasSize(60);
+        assertThat(todoDao.count(null)).isEqualTo(60);
+        assertThat(todoDao.count(false)).isEqualTo(40);
+        assertThat(todoDao.getMaxTodoId()).containsExactly(ids.get(ids.size() - 1));
+    }
+
+    @Test
+    void pointOperationsGoToTheShardOfTheId() {
+        Todo saved = todoDao.save(todo("routed", false));
+        long id = saved.getId();
+
+        Todo patch = new Todo();
+        patch.setId(id);
+        patch.setCompleted(true);
+        assertThat(todoDao.updateById(patch).getVersion()).isEqualTo(1L);
+        assertThat(todoDao.findById(id).getCompleted()).isTrue();
+        assertThat(todoDao.existsById(id)).isTrue();
+        assertThat(todoDao.search("routed", 10)).extracting(Todo::getId).containsExactly(id);
+
+        assertThat(todoDao.deleteById(id, 0L)).isFalse();
+        assertThat(todoDao.deleteById(id, 1L)).isTrue();
+        assertThat(todoDao.findById(id)).isNull();
+        assertThat(todoDao.count(null)).isZero();
+        assertThat(todoDao.compactTombstones(System.currentTimeMillis() + 1)).isZero(); // The newest row of a shard stays
+    }
+
+    @Test
+    void idsStayUniqueAcrossRestartsAndTheShardCountCannotChange() throws Exception {
+        long before = todoDao.save(todo("before restart", false)).getId();
+        todoDao.close();
+
+        todoDao = open(3);
+        assertThat(todoDao.save(todo("after restart", false)).getId()).isGreaterThan(before);
+        assertThat(todoDao.findById(before).getDescription()).isEqualTo("before restart");
+
+        assertThatThrownBy(() -> open(2)).isInstanceOf(IllegalStateException.class).hasMessageContaining("not supported");
+    }
+
+    @Test
+    void searchIndexOfEveryShardIsRebuilt() {
+        todoDao.saveAll(IntStream.range(0, 12).mapToObj(i -> todo("indexed " + i, false)).toList());
+        for (int shard = 0; shard < 3; shard++) {
+            shardTable(shard).update("INSERT INTO TodoSearch (TodoSearch) VALUES ('delete-all')");
+        }
+        assertThat(todoDao.search("indexed", 20)).isEmpty();
+
+        todoDao.rebuildSearchIndex();
+
+        assertThat(todoDao.search("indexed", 20)).hasSize(12);
+    }
+
+    @Test
+    void deltaFeedIsNotOffered() {
+        assertThatThrownBy(() -> todoDao.findChangesSince(0, 10)).isInstanceOf(TodoChangesUnavailableException.class);
+    }
+
+    @Test
+    void mergeKeepsIdOrderUpToTheLimit() {
+        List<Todo> merged = ShardedTodoDao.mergeById(List.of(todos(1, 4, 9), todos(), todos(2, 3, 10)), 5);
+
+        assertThat(merged).extracting(Todo::getId).containsExactly(1L, 2L, 3L, 4L, 9L);
+    }
+
+    private ShardedTodoDao open(int shards) {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            dataSources.add(dataSource(shard));
+        }
+        return new ShardedTodoDao(dataSources, 10, 2, new TodoMetrics(new SimpleMeterRegistry()),
+                new TodoDbConcurrencyLimiter(0, Duration.ofSeconds(1)));
+    }
+
+    private SQLiteDataSource dataSource(int shard) {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("shard-" + shard + ".db"));
+        return dataSource;
+    }
+
+    private JdbcTemplate shardTable(int shard) {
+        return new JdbcTemplate(dataSource(shard));
+    }
+
+    private static List<Todo> todos(long... ids) {
+        List<Todo> todos = new ArrayList<>();
+        for (long id : ids) {
+            Todo todo = todo("merged", false);
+            todo.setId(id);
+            todos.add(todo);
+        }
+        return todos;
+    }
+
+    private static Todo todo(String description, boolean completed) {
+        Todo todo = new Todo();
+        todo.setDescription(description);
+        todo.setCompleted(completed);
+        return todo;
+    }
+}
@@ -0,0 +1,188 @@
+package poc.todo.dao;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteDataSource;
+import poc.todo.metrics.TodoMetrics;
+import poc.todo.model.Todo;
+import poc.todo.model.TodoField;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TodoDaoImplQueryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private TodoDaoImpl todoDao;
+
+    @BeforeEach
+    void setUp() {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("query.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE todo (completed boolean, id bigint not null, description varchar(255), primary key (id))");
+        new TodoSchema(jdbcTemplate).migrate();
+
+        todoDao = new TodoDaoImpl();
+        ReflectionTestUtils.setField(todoDao, "jdbcOperations", jdbcTemplate);
+        ReflectionTestUtils.setField(todoDao, "idAllocator", new TodoIdAllocator(jdbcTemplate, 10));
+        ReflectionTestUtils.setField(todoDao, "jdbcTransactionTemplate", new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(todoDao, "metrics", new TodoMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(todoDao, "dbLimiter", new TodoDbConcurrencyLimiter(0, Duration.ofSeconds(1)));
+        todoDao.registerTimers();
+    }
+
+    @Test
+    void filteredQueriesAreIndexScans() {
+        assertThat(queryPlan(TodoDaoImpl.Queries.QUERY_FETCH_PAGE_BY_COMPLETED, false, 0, 100))
+                .containsIgnoringCase("SEARCH Todo USING INDEX Todo_COMPLETED (COMPLETED=? AND ID>?)")
+                .doesNotContain("TEMP B-TREE");
+        assertThat(queryPlan(TodoDaoImpl.Queries.QUERY_COUNT_BY_COMPLETED, true))
+                .containsIgnoringCase("SEARCH Todo USING COVERING INDEX Todo_COMPLETED (COMPLETED=?)");
+        assertThat(queryPlan(TodoDaoImpl.Queries.QUERY_COUNT_ALL))
+                .containsIgnoringCase("USING COVERING INDEX Todo_COMPLETED");
+    }
+
+    @Test
+    void listsAndCountsByCompletionStatus() {
+        for (int i = 1; i <= 5; i++) {
+            Todo todo = new Todo();
+            todo.setDescription("todo " + i);
+            todo.setCompleted(i % 2 == 0);
+            todoDao.save(todo);
+        }
+        long deletedId = todoDao.findByCompleted(false).get(0).getId();
+        todoDao.deleteById(deletedId, null);
+
+        assertThat(todoDao.findByCompleted(false)).extracting(Todo::getDescription).containsExactly("todo 3", "todo 5");
+        assertThat(todoDao.findByCompleted(true)).extracting(Todo::getDescription).containsExactly("todo 2", "todo 4");
+        List<Todo> firstPage = todoDao.findPageByCompleted(true, 0, 1);
+        assertThat(todoDao.findPageByCompleted(true, firstPage.get(0).getId(), 10)).extracting(Todo::getDescription).containsExactly("todo 4");
+        assertThat(todoDao.count(false)).isEqualTo(2);
+        assertThat(todoDao.count(true)).isEqualTo(2);
+        assertThat(todoDao.count(null)).isEqualTo(4);
+    }
+
+    @Test
+    void projectedReadsSelectOnlyTheRequestedColumns() {
+        Todo projected = todo("projected");
+        projected.setCompleted(true);
+        Todo saved = todoDao.save(projected);
+        Set<TodoField> fields = TodoField.parse("completed");
+
+        Todo byId = todoDao.findById(saved.getId(), fields);
+        assertThat(byId.getId()).isEqualTo(saved.getId());
+        assertThat(byId.getCompleted()).isTrue();
+        assertThat(byId.getDescription()).isNull();
+        assertThat(byId.getVersion()).isNull();
+        assertThat(todoDao.findPage(0, 10, fields)).extracting(Todo::getDescription).containsOnlyNulls();
+        assertThat(todoDao.findAll(EnumSet.of(TodoField.ID, TodoField.DESCRIPTION))).extracting(Todo::getDescription).containsExactly("projected");
+        assertThat(todoDao.findById(saved.getId(), null)).usingRecursiveComparison().isEqualTo(todoDao.findById(saved.getId()));
+
+        // IDs and completion statuses of a filtered page come from the index alone
+        assertThat(queryPlan(TodoDaoImpl.Queries.QUERY_FETCH_PAGE_BY_COMPLETED_FIELDS.formatted("ID, COMPLETED"), true, 0, 100))
+                .containsIgnoringCase("USING COVERING INDEX Todo_COMPLETED");
+    }
+
+    @Test
+    void writeAllWritesTheSameBytesAsSerializingTheTodos() throws Exception {
+        todoDao.save(todo("plain"));
+        Todo quoted = todo("with \"quotes\", \u00e9 and \u2603");
+        quoted.setCompleted(true);
+        todoDao.save(quoted);
+        todoDao.save(todo(null));
+
+        ObjectMapper mapper = new ObjectMapper();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonGenerator generator = mapper.createGenerator(bytes)) {
+            assertThat(todoDao.writeAll(generator)).isEqualTo(3);
+        }
+        StringWriter chars = new StringWriter();
+        try (JsonGenerator generator = mapper.createGenerator(chars)) {
+            todoDao.writeAll(generator);
+        }
+
+        // Jackson's reflective bean serialization, as used before TodoJson
+        ObjectMapper reflective = JsonMapper.builder().disable(MapperFeature.USE_ANNOTATIONS)
+                .serializationInclusion(JsonInclude.Include.NON_NULL).build();
+        byte[] expected = reflective.writeValueAsBytes(todoDao.findAll());
+        assertThat(bytes.toByteArray()).isEqualTo(expected);
+        assertThat(chars.toString()).isEqualTo(new String(expected, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void searchIsAFullTextIndexScanRankedInTheIndex() {
+        assertThat(queryPlan(TodoDaoImpl.Queries.QUERY_SEARCH, "\"milk\"", 10))
+                .contains("SCAN TodoSearch VIRTUAL TABLE INDEX")
+                .doesNotContain("TEMP B-TREE");
+    }
+
+    @Test
+    void searchRanksMatchesAndFollowsWrites() {
+        Todo milk = todoDao.save(todo("buy milk"));
+        Todo milkTwice = todoDao.save(todo("milk milk and more milk"));
+        Todo bread = todoDao.save(todo("buy bread"));
+        todoDao.save(todo("call the plumber"));
+
+        assertThat(todoDao.search("milk", 10)).extracting(Todo::getId).containsExactly(milkTwice.getId(), milk.getId());
+        assertThat(todoDao.search("buy", 1)).hasSize(1);
+        assertThat(todoDao.search("plu*", 10)).extracting(Todo::getDescription).containsExactly("call the plumber");
+        assertThat(todoDao.search("buy milk", 10)).extracting(Todo::getId).containsExactly(milk.getId());
+
+        Todo patch = new Todo();
+        patch.setId(bread.getId());
+        patch.setDescription("buy butter");
+        todoDao.updateById(patch);
+        todoDao.deleteById(milk.getId(), null);
+
+        assertThat(todoDao.search("bread", 10)).isEmpty();
+        assertThat(todoDao.search("butter", 10)).extracting(Todo::getId).containsExactly(bread.getId());
+        assertThat(todoDao.search("buy", 10)).extracting(Todo::getId).containsExactly(bread.getId());
+        todoDao.rebuildSearchIndex();
+        assertThat(todoDao.search("milk", 10)).extracting(Todo::getId).containsExactly(milkTwice.getId());
+    }
+
+    @Test
+    void searchTextIsNeverParsedAsQuerySyntax() {
+        todoDao.save(todo("fix \"quoted\" bug AND more"));
+
+        assertThat(todoDao.search("\"quoted", 10)).hasSize(1);
+        assertThat(todoDao.search("NOT bug", 10)).isEmpty();
+        assertThat(todoDao.search("( OR * -", 10)).isEmpty();
+        assertThat(todoDao.search("   ", 10)).isEmpty();
+        assertThat(TodoSearchQuery.toMatchExpression("milk  bu* \"x")).isEqualTo("\"milk\" \"bu\"* \"\"\"x\"");
+    }
+
+    private static Todo todo(String description) {
+        Todo todo = new Todo();
+        todo.setDescription(description);
+        todo.setCompleted(false);
+        return todo;
+    }
+
+    private String queryPlan(String query, Object... args) {
+        return String.join("\n", jdbcTemplate.query("EXPLAIN QUERY PLAN " + query, (rs, rowNum) -> rs.getString("detail"), args));
+    }
+}
@@ -0,0 +1,95 @@
+package poc.todo.dao;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteDataSource;
+import poc.todo.metrics.TodoMetrics;
+import poc.todo.model.Todo;
+import poc.todo.model.TodoChange;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TodoDaoImplSyncTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private TodoDaoImpl todoDao;
+
+    @BeforeEach
+    void setUp() {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("sync.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE todo (completed boolean, id bigint not null, description varchar(255), primary key (id))");
+        jdbcTemplate.update("INSERT INTO todo (id, description, completed) VALUES (?, ?, ?)", 7, "before migration", false);
+        new TodoSchema(jdbcTemplate).migrate();
+
+        todoDao = new TodoDaoImpl();
+        ReflectionTestUtils.setField(todoDao, "jdbcOperations", jdbcTemplate);
+        ReflectionTestUtils.setField(todoDao, "idAllocator", new TodoIdAllocator(jdbcTemplate, 10));
+        ReflectionTestUtils.setField(todoDao, "jdbcTransactionTemplate", new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(todoDao, "metrics", new TodoMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(todoDao, "dbLimiter", new TodoDbConcurrencyLimiter(0, Duration.ofSeconds(1)));
+        todoDao.registerTimers();
+    }
+
+    @Test
+    void mutationsAreListedOnceInChangeOrderAndDeletesLeaveTombstones() {
+        Todo first = todoDao.save(todo("first"));
+        Todo second = todoDao.save(todo("second"));
+        Todo patch = new Todo();
+        patch.setId(first.getId());
+        patch.setCompleted(true);
+        todoDao.updateById(patch);
+        long beforeDelete = todoDao.findChangesSince(0, 10).get(2).getSeq();
+        assertThat(todoDao.deleteById(second.getId(), null)).isTrue();
+
+        List<TodoChange> changes = todoDao.findChangesSince(0, 10);
+        assertThat(changes).extracting(TodoChange::getId).containsExactly(7L, first.getId(), second.getId());
+        assertThat(changes).extracting(TodoChange::getSeq).isSorted().doesNotHaveDuplicates();
+        assertThat(changes.get(1).getTodo().getCompleted()).isTrue();
+        assertThat(changes.get(2).isDeleted()).isTrue();
+        assertThat(changes.get(2).getTodo()).isNull();
+
+        assertThat(todoDao.findChangesSince(beforeDelete, 10)).extracting(TodoChange::getId).containsExactly(second.getId());
+        assertThat(todoDao.findById(second.getId())).isNull();
+        assertThat(todoDao.existsById(second.getId())).isFalse();
+        assertThat(todoDao.deleteById(second.getId(), null)).isFalse();
+        assertThat(todoDao.findAll()).extracting(Todo::getId).containsExactly(7L, first.getId());
+    }
+
+    @Test
+    void compactionKeepsTheNewestRowAndMovesTheHorizon() {
+        Todo first = todoDao.save(todo("first"));
+        Todo second = todoDao.save(todo("second"));
+        todoDao.deleteById(first.getId(), null);
+        todoDao.deleteById(second.getId(), null);
+        List<TodoChange> tombstones = todoDao.findChangesSince(0, 10).subList(1, 3);
+
+        assertThat(todoDao.compactTombstones(System.currentTimeMillis() + 1)).isEqualTo(1);
+
+        assertThat(todoDao.getCompactedThrough()).isEqualTo(tombstones.get(0).getSeq());
+        assertThat(todoDao.findChangesSince(0, 10)).extracting(TodoChange::getId).containsExactly(7L, second.getId());
+        todoDao.save(todo("third"));
+        assertThat(todoDao.findChangesSince(tombstones.get(1).getSeq(), 10)).hasSize(1);
+    }
+
+    private static Todo todo(String description) {
+        Todo todo = new Todo();
+        todo.setDescription(description);
+        todo.setCompleted(false);
+        return todo;
+    }
+}
@@ -0,0 +1,108 @@
+package poc.todo.dao;
+
+import org.junit.jupiter.api.Test;
+import poc.todo.exception.TodoStorageBusyException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TodoDbConcurrencyLimiterTest {
+
+    @Test
+    void boundsConcurrentCalls() throws Exception {
+        TodoDbConcurrencyLimiter limiter = new TodoDbConcurrencyLimiter(2, Duration.ofSeconds(10));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(() -> limiter.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(5);
+                    return running.decrementAndGet();
+                })));
+            }
+            for (Future<Integer> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+        assertThat(limiter.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void failsFastWhenNoPermitBecomesAvailable() throws Exception {
+        TodoDbConcurrencyLimiter limiter = new TodoDbConcurrencyLimiter(1, Duration.ofMillis(50));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> limiter.execute(() -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        holder.start();
+        holding.await();
+
+        assertThatThrownBy(() -> limiter.execute(() -> 1)).isInstanceOf(TodoStorageBusyException.class);
+
+        release.countDown();
+        holder.join();
+        assertThat(limiter.execute(() -> 1)).isEqualTo(1);
+    }
+
+    @Test
+    void streamHoldsItsPermitUntilClosed() {
+        TodoDbConcurrencyLimiter limiter = new TodoDbConcurrencyLimiter(1, Duration.ofMillis(50));
+        Stream<Integer> stream = limiter.stream(() -> Stream.of(1, 2, 3));
+        assertThat(limiter.availablePermits()).isZero();
+        assertThatThrownBy(() -> limiter.execute(() -> 1)).isInstanceOf(TodoStorageBusyException.class);
+
+        assertThat(stream.mapToInt(Integer::intValue).sum()).isEqualTo(6);
+        stream.close();
+        stream.close(); // A second close releases nothing more
+        assertThat(limiter.availablePermits()).isEqualTo(1);
+
+        assertThatThrownBy(() -> limiter.stream(() -> {
+            throw new IllegalStateException("cursor failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(limiter.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void zeroDisablesTheLimit() {
+        TodoDbConcurrencyLimiter limiter = new TodoDbConcurrencyLimiter(0, Duration.ZERO);
+        assertThat(limiter.execute(() -> 1)).isEqualTo(1);
+        assertThat(limiter.availablePermits()).isEqualTo(-1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
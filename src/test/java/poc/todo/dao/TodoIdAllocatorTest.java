@@ -0,0 +1,68 @@
+package poc.todo.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TodoIdAllocatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("ids.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE todo (completed boolean, id bigint not null, description varchar(255), primary key (id))");
+        new TodoSchema(jdbcTemplate).migrate();
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+        TodoIdAllocator allocator = new TodoIdAllocator(jdbcTemplate, 10);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        assertThat(ids.add(allocator.nextId())).isTrue();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(ids).hasSize(4000);
+    }
+
+    @Test
+    void idsStayUniqueAfterRestartAndSkipExistingRows() {
+        TodoIdAllocator first = new TodoIdAllocator(jdbcTemplate, 10);
+        long lastBeforeRestart = first.nextId();
+        jdbcTemplate.update("INSERT INTO todo (id, description, completed) VALUES (?, ?, ?)", 50, "written elsewhere", false);
+
+        TodoIdAllocator second = new TodoIdAllocator(jdbcTemplate, 10);
+        assertThat(second.nextId()).isGreaterThan(lastBeforeRestart).isGreaterThan(50);
+    }
+}
@@ -0,0 +1,68 @@
+package poc.todo.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TodoSchemaTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("schema.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void emptyDatabaseGetsTheCurrentSchemaKeyedByRowidOnce() {
+        TodoSchema schema = new TodoSchema(jdbcTemplate);
+        schema.migrate();
+
+        assertThat(schema.getAppliedSteps()).first().isEqualTo("Todo table");
+        assertThat(schema.getAppliedSteps()).contains("Todo_COMPLETED", "TodoSyncState", "todo_meta", "TodoSearch_insert");
+        assertThat(jdbcTemplate.queryForObject("PRAGMA user_version", Integer.class)).isEqualTo(TodoSchema.SCHEMA_VERSION);
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'Todo'", String.class))
+                .containsExactlyInAnyOrder("Todo_CHANGE_SEQ", "Todo_TOMBSTONE", "Todo_COMPLETED");
+        jdbcTemplate.update("INSERT INTO Todo (ID, DESCRIPTION, COMPLETED) VALUES (42, 'rowid', 0)");
+        assertThat(jdbcTemplate.queryForObject("SELECT ROWID FROM Todo", Long.class)).isEqualTo(42L);
+
+        schema.migrate();
+        assertThat(schema.getAppliedSteps()).isEmpty();
+    }
+
+    @Test
+    void legacyTableKeepsItsRowsAndGainsTheMissingColumns() {
+        jdbcTemplate.execute("CREATE TABLE todo (completed boolean, id bigint not null, description varchar(255), primary key (id))");
+        jdbcTemplate.update("INSERT INTO todo (id, description, completed) VALUES (?, ?, ?)", 7, "legacy row", false);
+        TodoSchema schema = new TodoSchema(jdbcTemplate);
+
+        schema.migrate();
+
+        assertThat(schema.getAppliedSteps()).doesNotContain("Todo table").contains("VERSION column", "DELETED and DELETED_AT columns");
+        assertThat(jdbcTemplate.queryForObject("SELECT CHANGE_SEQ FROM Todo WHERE ID = 7", Long.class)).isPositive();
+        assertThat(jdbcTemplate.queryForObject("SELECT ROWID FROM TodoSearch WHERE TodoSearch MATCH 'legacy'", Long.class)).isEqualTo(7L);
+        assertThat(jdbcTemplate.queryForObject("PRAGMA user_version", Integer.class)).isEqualTo(TodoSchema.SCHEMA_VERSION);
+    }
+
+    @Test
+    void databaseFromANewerBuildIsRefused() {
+        jdbcTemplate.execute("PRAGMA user_version = " + (TodoSchema.SCHEMA_VERSION + 1));
+
+        assertThatThrownBy(() -> new TodoSchema(jdbcTemplate).migrate())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("newer");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sqlite_master", Integer.class)).isZero();
+    }
+}
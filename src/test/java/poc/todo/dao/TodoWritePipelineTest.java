@@ -0,0 +1,82 @@
+package poc.todo.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TodoWritePipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private TodoWritePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("pipeline.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE todo (completed boolean, id bigint not null, description varchar(255), primary key (id))");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        pipeline = new TodoWritePipeline(transactionTemplate, 16, 8, 5);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void groupsConcurrentWritesIntoBatches() {
+        AtomicLong ids = new AtomicLong();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long id = ids.incrementAndGet();
+            futures.add(pipeline.submit(() ->
+                    jdbcTemplate.update("INSERT INTO todo (id, description, completed) VALUES (?, ?, ?)", id, "todo " + id, false)));
+        }
+        futures.forEach(future -> assertThat(future.join()).isEqualTo(1));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todo", Integer.class)).isEqualTo(200);
+        assertThat(pipeline.getCommittedOperations()).isEqualTo(200);
+        assertThat(pipeline.getCommittedBatches()).isLessThan(200);
+    }
+
+    @Test
+    void failingWriteDoesNotFailItsBatch() {
+        jdbcTemplate.update("INSERT INTO todo (id, description, completed) VALUES (1, 'existing', false)");
+        CompletableFuture<Integer> duplicate = pipeline.submit(() ->
+                jdbcTemplate.update("INSERT INTO todo (id, description, completed) VALUES (1, 'duplicate', false)"));
+        CompletableFuture<Integer> valid = pipeline.submit(() ->
+                jdbcTemplate.update("INSERT INTO todo (id, description, completed) VALUES (2, 'valid', false)"));
+
+        assertThat(valid.join()).isEqualTo(1);
+        assertThatThrownBy(duplicate::join).hasCauseInstanceOf(DataAccessException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT description FROM todo WHERE id = 1", String.class)).isEqualTo("existing");
+    }
+
+    @Test
+    void submitAfterShutdownFailsInsteadOfWaiting() throws InterruptedException {
+        pipeline.submit(() -> jdbcTemplate.update("INSERT INTO todo (id, description, completed) VALUES (1, 'before', false)")).join();
+        pipeline.shutdown();
+
+        assertThatThrownBy(() -> pipeline.submit(() -> 1)).isInstanceOf(IllegalStateException.class);
+        assertThat(pipeline.getCommittedOperations()).isEqualTo(1);
+    }
+}
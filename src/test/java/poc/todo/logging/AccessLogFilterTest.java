@@ -0,0 +1,80 @@
+package poc.todo.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogFilterTest {
+
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger("poc.todo.access");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        accessLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLogger.detachAppender(appender);
+    }
+
+    @Test
+    void logsRouteIdStatusAndRows() throws Exception {
+        AccessLogFilter filter = new AccessLogFilter(1.0, Duration.ofSeconds(1));
+        filter.doFilter(getTodo(), new MockHttpServletResponse(), (request, response) -> {
+            RequestStats.current().addRows(1);
+            ((MockHttpServletResponse) response).setStatus(200);
+        });
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getFormattedMessage())
+                .startsWith("method=GET route=/todos/{id} id=7 status=200 rows=1 db_us=");
+    }
+
+    @Test
+    void samplesOrdinaryRequestsButAlwaysLogsServerErrorsAndSlowRequests() throws Exception {
+        AccessLogFilter sampled = new AccessLogFilter(0.0, Duration.ofSeconds(1));
+        sampled.doFilter(getTodo(), new MockHttpServletResponse(), (request, response) -> { });
+        assertThat(appender.list).isEmpty();
+
+        sampled.doFilter(getTodo(), new MockHttpServletResponse(),
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(503));
+        assertThat(appender.list).hasSize(1);
+
+        AccessLogFilter slow = new AccessLogFilter(0.0, Duration.ZERO);
+        slow.doFilter(getTodo(), new MockHttpServletResponse(), (request, response) -> { });
+        assertThat(appender.list).hasSize(2);
+    }
+
+    @Test
+    void startsEachRequestWithEmptyTotals() throws Exception {
+        RequestStats.current().addRows(42);
+        AccessLogFilter filter = new AccessLogFilter(1.0, Duration.ofSeconds(1));
+        FilterChain chain = (request, response) -> { };
+        filter.doFilter(getTodo(), new MockHttpServletResponse(), chain);
+
+        assertThat(appender.list.get(0).getFormattedMessage()).contains(" rows=0 ");
+    }
+
+    private static MockHttpServletRequest getTodo() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/todos/7");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/todos/{id}");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", "7"));
+        return request;
+    }
+}
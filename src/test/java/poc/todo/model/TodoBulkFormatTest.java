@@ -0,0 +1,32 @@
+package poc.todo.model;
+
+import org.junit.jupiter.api.Test;
+import poc.todo.exception.UnsupportedTodoFormatException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TodoBulkFormatTest {
+
+    @Test
+    void formatParameterTakesPrecedence() {
+        assertThat(TodoBulkFormat.negotiate(" CSV ", "application/x-ndjson")).isEqualTo(TodoBulkFormat.CSV);
+        assertThatThrownBy(() -> TodoBulkFormat.negotiate("xml", null)).isInstanceOf(UnsupportedTodoFormatException.class);
+    }
+
+    @Test
+    void acceptHeaderIsNegotiatedByQualityThenSpecificity() {
+        assertThat(TodoBulkFormat.negotiate(null, "text/csv;q=0.5, application/x-ndjson")).isEqualTo(TodoBulkFormat.NDJSON);
+        assertThat(TodoBulkFormat.negotiate(null, "application/x-ndjson;q=0.2, text/*;q=0.9, text/csv;q=0.8"))
+                .isEqualTo(TodoBulkFormat.CSV);
+        assertThat(TodoBulkFormat.negotiate(null, "*/*, text/csv")).isEqualTo(TodoBulkFormat.CSV);
+        assertThat(TodoBulkFormat.negotiate(null, "text/csv;q=0, application/json;q=0.1")).isEqualTo(TodoBulkFormat.JSON);
+    }
+
+    @Test
+    void missingOrMalformedAcceptHeaderMeansJson() {
+        assertThat(TodoBulkFormat.negotiate(null, null)).isEqualTo(TodoBulkFormat.JSON);
+        assertThat(TodoBulkFormat.negotiate("", "*/*")).isEqualTo(TodoBulkFormat.JSON);
+        assertThat(TodoBulkFormat.negotiate(null, "not a media type")).isEqualTo(TodoBulkFormat.JSON);
+    }
+}
@@ -0,0 +1,58 @@
+package poc.todo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TodoJsonTest {
+
+    private final ObjectMapper mapper = JsonMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+
+    // Jackson's reflective bean mapping, as used before TodoJson
+    private final ObjectMapper reflective = JsonMapper.builder().disable(MapperFeature.USE_ANNOTATIONS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .serializationInclusion(JsonInclude.Include.NON_NULL).build();
+
+    @Test
+    void writesTheSameBytesAsReflectiveSerialization() throws Exception {
+        Todo complete = new Todo();
+        complete.setId(7L);
+        complete.setDescription("line\nbreak \"quoted\"");
+        complete.setCompleted(true);
+        complete.setVersion(2L);
+        Todo projected = new Todo();
+        projected.setId(8L);
+        projected.setCompleted(false);
+
+        List<Todo> todos = List.of(complete, projected, new Todo());
+        assertThat(mapper.writeValueAsString(todos)).isEqualTo(reflective.writeValueAsString(todos));
+    }
+
+    @Test
+    void readsLikeReflectiveDeserialization() throws Exception {
+        String json = "{\"id\":\"7\",\"extra\":{\"nested\":[1,2]},\"description\":\"walk\",\"completed\":null,\"version\":3.0}";
+        Todo todo = mapper.readValue(json, Todo.class);
+        Todo expected = reflective.readValue(json, Todo.class);
+
+        assertThat(todo).usingRecursiveComparison().isEqualTo(expected);
+        assertThat(todo.getId()).isEqualTo(7L);
+        assertThat(todo.getDescription()).isEqualTo("walk");
+        assertThat(todo.getCompleted()).isNull();
+        assertThat(todo.getVersion()).isEqualTo(3L);
+        assertThat(mapper.readValue("[{\"completed\":true},{}]", Todo[].class))
+                .extracting(Todo::getCompleted).containsExactly(true, null);
+
+        ObjectMapper strict = new ObjectMapper();
+        assertThatThrownBy(() -> strict.readValue("{\"owner\":\"me\"}", Todo.class))
+                .isInstanceOf(UnrecognizedPropertyException.class);
+    }
+}
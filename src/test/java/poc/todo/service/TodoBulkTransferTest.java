@@ -0,0 +1,235 @@
+package poc.todo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import poc.todo.config.RequestDecompressionFilter;
+import poc.todo.dao.TodoDao;
+import poc.todo.exception.RequestBodyTooLargeException;
+import poc.todo.metrics.TodoMetrics;
+import poc.todo.model.Todo;
+import poc.todo.model.TodoBulkFormat;
+import poc.todo.model.TodoImportError;
+import poc.todo.model.TodoImportResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TodoBulkTransferTest {
+
+    private final TodoDao todoDao = mock(TodoDao.class);
+    private final TodoEventBroker eventBroker = new TodoEventBroker(1024, 256, 1, Duration.ofSeconds(15), Duration.ofSeconds(10));
+    private final TodoServiceDao todoService = new TodoServiceDao(todoDao, new TodoChangeTracker(), eventBroker,
+            new TodoMetrics(new SimpleMeterRegistry()));
+    private final List<List<String>> savedBatches = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        eventBroker.shutdown();
+    }
+
+    @Test
+    void exportWritesNdjsonAndCsvFromTheDao() throws IOException {
+        when(todoDao.writeAll(any())).thenCallRealMethod();
+        when(todoDao.streamAll()).thenAnswer(invocation -> Stream.of(todo(1L, "plain", false), todo(2L, "quoted, \"twice\"", true)));
+        TodoBulkTransfer bulkTransfer = bulkTransfer(10, 10);
+
+        assertThat(export(bulkTransfer, TodoBulkFormat.NDJSON)).isEqualTo("""
+                {"id":1,"description":"plain","completed":false,"version":0}
+                {"id":2,"description":"quoted, \\"twice\\"","completed":true,"version":0}
+                """);
+        assertThat(export(bulkTransfer, TodoBulkFormat.CSV)).isEqualTo("""
+                id,description,completed,version
+                1,plain,false,0
+                2,"quoted, ""twice""\",true,0
+                """);
+        assertThat(export(bulkTransfer, TodoBulkFormat.JSON)).startsWith("[{\"id\":1,").endsWith("}]");
+    }
+
+    @Test
+    void ndjsonImportCommitsInBatchesAndRejectsLinesOnTheirOwn() throws IOException {
+        TodoBulkTransfer bulkTransfer = bulkTransfer(2, 10);
+
+        TodoImportResult result = bulkTransfer.importTodos(input("""
+                {"description":"one"}
+                {"description":"two","completed":true}
+                {"description":
+
+                {"description":""}
+                {"description":"three","id":99}
+                {"description":"four"}
+                """), TodoBulkFormat.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(4);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getBatches()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(TodoImportError::getLine).containsExactly(3L, 5L);
+        assertThat(savedBatches).containsExactly(List.of("one", "two"), List.of("three"), List.of("four"));
+    }
+
+    @Test
+    void csvImportReadsColumnsByHeaderAndQuotedLineBreaks() throws IOException {
+        TodoBulkTransfer bulkTransfer = bulkTransfer(10, 10);
+
+        TodoImportResult result = bulkTransfer.importTodos(input("""
+                completed,description,id
+                true,first,
+                maybe,second,
+                false,"third
+                over two lines",
+                ,fourth,7
+                """), TodoBulkFormat.CSV);
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(3);
+            assertThat(error.getErrorMessage()).contains("maybe");
+        });
+        assertThat(savedBatches).containsExactly(List.of("first", "third\nover two lines", "fourth"));
+    }
+
+    @Test
+    void malformedInputStopsTheImportAndKeepsWhatCameBefore() throws IOException {
+        TodoBulkTransfer bulkTransfer = bulkTransfer(1, 10);
+
+        TodoImportResult result = bulkTransfer.importTodos(input("""
+                [{"description":"kept"},
+                 {"description":"also kept"},
+                 {"description": oops}]
+                """), TodoBulkFormat.JSON);
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(3);
+            assertThat(error.getErrorMessage()).startsWith("Malformed input");
+        });
+    }
+
+    @Test
+    void compressedBodyPastTheSizeLimitStopsTheImportAndKeepsWhatCameBefore() throws Exception {
+        TodoBulkTransfer bulkTransfer = bulkTransfer(100, 10);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= 2000; i++) {
+            ndjson.append("{\"description\":\"item ").append(i).append("\"}\n");
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/todos/import");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        request.setContent(gzip(ndjson.toString()));
+        AtomicReference<TodoImportResult> result = new AtomicReference<>();
+
+        // About 28 bytes per line; the body is read in buffers, so the import stops at a buffer boundary
+        new RequestDecompressionFilter(DataSize.ofBytes(30_000)).doFilter(request, new MockHttpServletResponse(),
+                (filtered, ignored) -> result.set(bulkTransfer.importTodos(filtered.getInputStream(), TodoBulkFormat.NDJSON)));
+
+        long imported = result.get().getImported();
+        assertThat(imported).isBetween(1L, 1071L);
+        assertThat(result.get().getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(imported + 1); // Every line before it was imported
+            assertThat(error.getErrorMessage()).startsWith("Request body too large").contains("30000 bytes");
+        });
+        assertThat(savedBatches.get(savedBatches.size() - 1)).last().isEqualTo("item " + imported);
+    }
+
+    @Test
+    void csvImportStopsAfterTheLastRowReadWhenTheBodyIsTooLarge() throws IOException {
+        TodoBulkTransfer bulkTransfer = bulkTransfer(10, 10);
+        byte[] csv = "description\nfirst\nsecond\nthird\n".getBytes(StandardCharsets.UTF_8);
+        // Serves the header and two rows, then fails as the decompression filter does
+        InputStream rows = new ByteArrayInputStream(csv, 0, 25);
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = rows.read(buffer, offset, length);
+                if (read < 0) {
+                    throw new RequestBodyTooLargeException("Decompressed request body exceeds 25 bytes");
+                }
+                return read;
+            }
+        };
+
+        TodoImportResult result = bulkTransfer.importTodos(failing, TodoBulkFormat.CSV);
+
+        // The parser needs the next row to finish the second, so the import stops there
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(3);
+            assertThat(error.getErrorMessage()).contains("exceeds 25 bytes");
+        });
+    }
+
+    @Test
+    void onlyTheFirstErrorsAreListed() throws IOException {
+        TodoBulkTransfer bulkTransfer = bulkTransfer(10, 2);
+
+        TodoImportResult result = bulkTransfer.importTodos(input("x\ny\nz\n"), TodoBulkFormat.NDJSON);
+
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(TodoImportError::getLine).containsExactly(1L, 2L);
+        assertThat(result.isErrorsTruncated()).isTrue();
+    }
+
+    private TodoBulkTransfer bulkTransfer(int batchSize, int maxReportedErrors) {
+        AtomicLong ids = new AtomicLong();
+        when(todoDao.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Todo> todos = invocation.getArgument(0);
+            savedBatches.add(todos.stream().map(Todo::getDescription).toList());
+            todos.forEach(todo -> todo.setId(ids.incrementAndGet()));
+            return List.copyOf(todos);
+        });
+        return new TodoBulkTransfer(todoService, new Jackson2ObjectMapperBuilder().build(), new Jackson2ObjectMapperBuilder(),
+                batchSize, maxReportedErrors);
+    }
+
+    private static String export(TodoBulkTransfer bulkTransfer, TodoBulkFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkTransfer.exportTodos(out, format);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressed.toByteArray();
+    }
+
+    private static ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Todo todo(long id, String description, boolean completed) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setDescription(description);
+        todo.setCompleted(completed);
+        todo.setVersion(0L);
+        return todo;
+    }
+}
@@ -0,0 +1,192 @@
+package poc.todo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import poc.todo.model.TodoChangeEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TodoEventBrokerTest {
+
+    private final TodoEventBroker broker = new TodoEventBroker(4, 3, 1, Duration.ofHours(1), Duration.ofSeconds(10));
+
+    @AfterEach
+    void tearDown() {
+        broker.shutdown();
+    }
+
+    @Test
+    void deliversEventsInOrderToEverySubscriber() throws Exception {
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+        broker.subscribe(first, null);
+        broker.subscribe(second, null);
+
+        broker.publish(created(1));
+        broker.publish(deleted(1));
+
+        assertThat(first.take(2)).containsExactly("created 1", "deleted 1");
+        assertThat(second.take(2)).containsExactly("created 1", "deleted 1");
+    }
+
+    @Test
+    void resumesAfterLastEventIdFromTheRing() throws Exception {
+        TodoChangeEvent seen = created(1);
+        broker.publish(seen);
+        broker.publish(created(2));
+        broker.publish(created(3));
+
+        RecordingSink sink = new RecordingSink();
+        broker.subscribe(sink, broker.eventIdOf(seen));
+
+        assertThat(sink.take(2)).containsExactly("created 2", "created 3");
+    }
+
+    @Test
+    void resyncsWhenTheResumePointIsUnknown() throws Exception {
+        TodoChangeEvent evicted = created(1);
+        broker.publish(evicted);
+        for (int i = 2; i <= 6; i++) {
+            broker.publish(created(i));
+        }
+
+        RecordingSink fromEvicted = new RecordingSink();
+        broker.subscribe(fromEvicted, broker.eventIdOf(evicted));
+        RecordingSink fromOtherRun = new RecordingSink();
+        broker.subscribe(fromOtherRun, "42-1");
+
+        assertThat(fromEvicted.take(1)).containsExactly("resync");
+        assertThat(fromOtherRun.take(1)).containsExactly("resync");
+    }
+
+    @Test
+    void slowSubscriberIsResyncedWithoutBlockingPublishers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink(release);
+        broker.subscribe(slow, null);
+
+        broker.publish(created(1)); // Taken by the dispatcher, which then blocks in the sink
+        slow.awaitFirstDelivery();
+        for (int i = 2; i <= 10; i++) {
+            broker.publish(created(i)); // Overflows the buffer of 3 without waiting for the subscriber
+        }
+        release.countDown();
+
+        assertThat(slow.take(5)).containsExactly("created 1", "resync", "created 8", "created 9", "created 10");
+        assertThat(broker.getResyncCount()).isGreaterThan(0);
+    }
+
+    @Test
+    void stalledSubscriberIsDroppedAndOthersKeepReceiving() throws Exception {
+        TodoEventBroker timed = new TodoEventBroker(4, 3, 1, Duration.ZERO, Duration.ofMillis(100));
+        try {
+            RecordingSink stalled = new RecordingSink(new CountDownLatch(1)); // Blocks until interrupted
+            RecordingSink healthy = new RecordingSink();
+            timed.subscribe(stalled, null);
+            timed.publish(created(1));
+            stalled.awaitFirstDelivery(); // The only dispatcher thread is now stuck in the stalled sink
+            timed.subscribe(healthy, null);
+
+            timed.publish(created(2));
+
+            assertThat(healthy.take(1)).containsExactly("created 2");
+            assertThat(stalled.closed.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(timed.getSubscriberCount()).isEqualTo(1);
+        } finally {
+            timed.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsNegativeHeartbeatIntervalAndNonPositiveSendTimeout() {
+        assertThatThrownBy(() -> new TodoEventBroker(4, 3, 1, Duration.ofSeconds(-1), Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TodoEventBroker(4, 3, 1, Duration.ZERO, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cancelledSubscriptionReceivesNothing() {
+        RecordingSink sink = new RecordingSink();
+        TodoEventBroker.Subscription subscription = broker.subscribe(sink, null);
+        subscription.cancel();
+
+        broker.publish(created(1));
+
+        assertThat(broker.getSubscriberCount()).isZero();
+        assertThat(sink.received).isEmpty();
+    }
+
+    private static TodoChangeEvent created(long id) {
+        return new TodoChangeEvent(TodoChangeEvent.CREATED, id, null);
+    }
+
+    private static TodoChangeEvent deleted(long id) {
+        return new TodoChangeEvent(TodoChangeEvent.DELETED, id, null);
+    }
+
+    private static class RecordingSink implements TodoEventBroker.Sink {
+
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        private final CountDownLatch release;
+        private final CountDownLatch firstDelivery = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        RecordingSink() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingSink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(String eventId, TodoChangeEvent event) throws Exception {
+            deliver(event.getType() + " " + event.getTodoId());
+        }
+
+        @Override
+        public void resync() throws Exception {
+            deliver("resync");
+        }
+
+        @Override
+        public void heartbeat() {
+            received.add("heartbeat");
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        void awaitFirstDelivery() throws InterruptedException {
+            assertThat(firstDelivery.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        List<String> take(int count) throws InterruptedException {
+            List<String> messages = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String message = received.poll(5, TimeUnit.SECONDS);
+                assertThat(message).as("message %d of %d", i + 1, count).isNotNull();
+                messages.add(message);
+            }
+            return messages;
+        }
+
+        private void deliver(String message) throws InterruptedException {
+            received.add(message);
+            firstDelivery.countDown();
+            release.await();
+        }
+    }
+}